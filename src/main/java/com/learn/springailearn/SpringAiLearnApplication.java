@@ -1,17 +1,23 @@
 package com.learn.springailearn;
 
+import com.learn.springailearn.config.StartupTimingReporter;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
-@MapperScan("com.learn.springailearn.mapper") // 扫描Mapper接口
-@EnableRetry // 启用重试功能
+@SpringBootApplication(exclude = RedisAutoConfiguration.class) // Redis只在app.shared-state.type=redis时启用（见SharedStateConfig）
+@MapperScan(value = "com.learn.springailearn.mapper", sqlSessionTemplateRef = "sqlSessionTemplate") // 扫描Mapper接口（显式指定SqlSessionTemplate以兼容AOT）
+@EnableScheduling // 对话记录定时归档
 public class SpringAiLearnApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SpringAiLearnApplication.class, args);
+        SpringApplication application = new SpringApplication(SpringAiLearnApplication.class);
+        // 记录启动时间线，供启动耗时报告和/actuator/startup使用
+        application.setApplicationStartup(new BufferingApplicationStartup(StartupTimingReporter.TIMELINE_CAPACITY));
+        application.run(args);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.learn.springailearn.advisor;
+
+/**
+ * 调用模型的业务接口标识，用于按接口开启缓存等能力
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class ChatEndpoints {
+
+    /**
+     * Advisor上下文参数名，调用方通过该参数声明所属接口
+     */
+    public static final String CONTEXT_KEY = "chat_endpoint";
+
+    /**
+     * 基础文本生成
+     */
+    public static final String QWEN_GENERATE = "qwen-generate";
+
+    /**
+     * 带系统指令的文本生成
+     */
+    public static final String QWEN_GENERATE_WITH_SYSTEM = "qwen-generate-with-system";
+
+    /**
+     * 智能问答
+     */
+    public static final String SMART_CHAT = "smart-chat";
+
+    private ChatEndpoints() {
+    }
+}
@@ -0,0 +1,87 @@
+package com.learn.springailearn.advisor;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 模型请求的规范化Key生成工具
+ * Key由模型名、渲染后的系统指令和用户消息组成，参数渲染已体现在系统指令文本中
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class ChatRequestKeys {
+
+    private ChatRequestKeys() {
+    }
+
+    /**
+     * 生成请求的完整Key（SHA-256十六进制）
+     * @param prompt 发送给模型的Prompt
+     * @param defaultModel Prompt未指定模型时使用的默认模型
+     * @return 请求Key
+     */
+    public static String requestKey(Prompt prompt, String defaultModel) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(resolveModel(prompt, defaultModel), StandardCharsets.UTF_8).putByte((byte) 0);
+        for (Message message : prompt.getInstructions()) {
+            hasher.putString(message.getMessageType().name(), StandardCharsets.UTF_8).putByte((byte) 0);
+            putText(hasher, message.getText());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 生成请求的上下文Key：只包含模型与系统指令，用于语义缓存按上下文分区
+     * @param prompt 发送给模型的Prompt
+     * @param defaultModel Prompt未指定模型时使用的默认模型
+     * @return 上下文Key
+     */
+    public static String contextKey(Prompt prompt, String defaultModel) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(resolveModel(prompt, defaultModel), StandardCharsets.UTF_8).putByte((byte) 0);
+        for (Message message : prompt.getInstructions()) {
+            if (message.getMessageType() == MessageType.SYSTEM) {
+                putText(hasher, message.getText());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 提取Prompt中全部用户消息文本
+     */
+    public static String userText(Prompt prompt) {
+        StringBuilder text = new StringBuilder();
+        for (Message message : prompt.getInstructions()) {
+            if (message.getMessageType() == MessageType.USER && message.getText() != null) {
+                if (!text.isEmpty()) {
+                    text.append('\n');
+                }
+                text.append(message.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 解析本次请求实际使用的模型
+     */
+    public static String resolveModel(Prompt prompt, String defaultModel) {
+        ChatOptions options = prompt.getOptions();
+        if (options != null && StringUtils.hasText(options.getModel())) {
+            return options.getModel();
+        }
+        return defaultModel;
+    }
+
+    private static void putText(Hasher hasher, String text) {
+        hasher.putString(text == null ? "" : text, StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.ResilienceProperties;
+import com.learn.springailearn.resilience.CircuitBreaker;
+import com.learn.springailearn.resilience.CircuitBreakerOpenException;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 模型调用熔断Advisor
+ * 位于并发上限之外，熔断打开时直接拒绝而不占用并发名额；
+ * 只有可重试类异常（超时、429、5xx等）计为上游失败，参数错误和本地限流不影响熔断状态
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class CircuitBreakerAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final int ORDER = ConcurrencyLimitAdvisor.ORDER - 500;
+
+    private final boolean enabled;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter rejectedCounter;
+
+    public CircuitBreakerAdvisor(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getCircuitBreaker().isEnabled();
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreaker());
+        this.rejectedCounter = Counter.builder("ai.circuit.breaker.rejected")
+                .description("熔断打开时被直接拒绝的调用次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("熔断状态：0关闭，1打开，2半开")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!enabled) {
+            return chain.nextCall(request);
+        }
+        acquire();
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            circuitBreaker.onSuccess();
+            return response;
+        } catch (RuntimeException | Error e) {
+            record(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        if (!enabled) {
+            return chain.nextStream(request);
+        }
+        return Flux.defer(() -> {
+            acquire();
+            return chain.nextStream(request)
+                    .doOnError(this::record)
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_ERROR) {
+                            circuitBreaker.onSuccess();
+                        }
+                    });
+        });
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public String getName() {
+        return "CircuitBreakerAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void acquire() {
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CircuitBreakerOpenException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+
+    private void record(Throwable error) {
+        if (LlmErrorClassifier.isRetryable(error)) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onIgnore();
+        }
+    }
+}
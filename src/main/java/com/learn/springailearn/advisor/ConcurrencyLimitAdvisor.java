@@ -0,0 +1,121 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.RateLimitProperties;
+import com.learn.springailearn.limiter.AdaptiveConcurrencyLimiter;
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局自适应并发上限Advisor
+ * 位于Advisor链最内层，只有缓存未命中、未被合并、真正发往DashScope的调用才占用并发名额；
+ * 超出上限立即拒绝，根据调用耗时、429和超时自动调整上限，避免超出上游配额后被重试放大
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimitAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+    private final RateLimitProperties.Concurrency properties;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter rejectedCounter;
+
+    public ConcurrencyLimitAdvisor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getConcurrency();
+        this.limiter = new AdaptiveConcurrencyLimiter(this.properties);
+        this.rejectedCounter = Counter.builder("ai.rate.limit.rejected")
+                .tag("scope", "global")
+                .description("被限流拒绝的请求次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("当前全局并发上限")
+                .register(meterRegistry);
+        Gauge.builder("ai.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("进行中的模型调用数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.nextCall(request);
+        }
+        acquire();
+        long start = System.nanoTime();
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            limiter.onSuccess(System.nanoTime() - start);
+            return response;
+        } catch (RuntimeException | Error e) {
+            release(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.nextStream(request);
+        }
+        return Flux.defer(() -> {
+            acquire();
+            long start = System.nanoTime();
+            // 流式调用总耗时取决于回答长度，以首个片段的到达时间作为上游负载信号
+            AtomicLong firstChunkLatency = new AtomicLong(-1L);
+            return chain.nextStream(request)
+                    .doOnNext(response -> firstChunkLatency.compareAndSet(-1L, System.nanoTime() - start))
+                    .doOnError(this::release)
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_ERROR) {
+                            long latency = firstChunkLatency.get();
+                            limiter.onSuccess(latency < 0 ? System.nanoTime() - start : latency);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "ConcurrencyLimitAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void acquire() {
+        if (!limiter.tryAcquire()) {
+            rejectedCounter.increment();
+            log.warn("模型调用并发已达上限{}，请求被拒绝", limiter.getLimit());
+            throw new RateLimitExceededException("服务繁忙，请稍后重试", properties.getRetryAfter().toSeconds());
+        }
+    }
+
+    private void release(Throwable error) {
+        if (LlmErrorClassifier.isOverload(error)) {
+            limiter.onDropped();
+            log.warn("模型调用出现过载信号，并发上限收缩为{}：{}", limiter.getLimit(), error.getMessage());
+        } else {
+            limiter.onIgnore();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.ObservabilityProperties;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
+import com.learn.springailearn.routing.ModelRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 模型调用指标Advisor
+ * 紧贴模型调用（位于并发上限之内），只统计真正发往模型的调用：总耗时、流式首个片段耗时（TTFT）、
+ * 按模型区分的输入/输出token数，并按采样比例输出一行结构化调用摘要代替提问/回答原文日志；
+ * 同时把调用结果反馈给{@link ModelRouter}作为模型健康度的依据
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ModelMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final int ORDER = ConcurrencyLimitAdvisor.ORDER + 500;
+
+    private final ObservabilityProperties.CallLog callLog;
+    private final MeterRegistry meterRegistry;
+    private final ModelRouter modelRouter;
+    private final String defaultModel;
+
+    public ModelMetricsAdvisor(ObservabilityProperties properties,
+                               MeterRegistry meterRegistry,
+                               ModelRouter modelRouter,
+                               @Value("${spring.ai.alibaba.qwen.model:qwen-turbo}") String defaultModel) {
+        this.callLog = properties.getCallLog();
+        this.meterRegistry = meterRegistry;
+        this.modelRouter = modelRouter;
+        this.defaultModel = defaultModel;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String requestedModel = ChatRequestKeys.resolveModel(request.prompt(), defaultModel);
+        long start = System.nanoTime();
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            ChatResponse chatResponse = response.chatResponse();
+            record(request, "call", requestedModel, model(chatResponse, requestedModel), null, start, -1L,
+                    usage(chatResponse));
+            return response;
+        } catch (RuntimeException | Error e) {
+            record(request, "call", requestedModel, requestedModel, e, start, -1L, null);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        String requestedModel = ChatRequestKeys.resolveModel(request.prompt(), defaultModel);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong firstChunkLatency = new AtomicLong(-1L);
+            // 流式响应的token用量和实际模型只出现在（最后的）部分片段的元数据中
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            AtomicReference<String> model = new AtomicReference<>(requestedModel);
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        firstChunkLatency.compareAndSet(-1L, System.nanoTime() - start);
+                        ChatResponse chatResponse = response.chatResponse();
+                        Usage chunkUsage = usage(chatResponse);
+                        if (chunkUsage != null) {
+                            usage.set(chunkUsage);
+                        }
+                        model.set(model(chatResponse, model.get()));
+                    })
+                    // 在终止信号传给下游之前记录，调用方拿到完整回答时指标已经可见
+                    .doOnComplete(() -> record(request, "stream", requestedModel, model.get(), null, start,
+                            firstChunkLatency.get(), usage.get()))
+                    .doOnError(e -> record(request, "stream", requestedModel, model.get(), e, start,
+                            firstChunkLatency.get(), null))
+                    .doOnCancel(() -> recordCancel(model.get(), start));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "ModelMetricsAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void record(ChatClientRequest request, String type, String requestedModel, String model, Throwable error,
+                        long start, long firstChunkNanos, Usage usage) {
+        long elapsed = System.nanoTime() - start;
+        String outcome = outcome(error);
+        // 健康度按请求的模型统计；客户端错误（参数非法等）与模型健康无关，不计入
+        if (error == null || LlmErrorClassifier.isRetryable(error)) {
+            modelRouter.record(requestedModel, firstChunkNanos >= 0 ? firstChunkNanos : elapsed, error != null);
+        }
+        Timer.builder("ai.model.latency")
+                .description("模型调用总耗时")
+                .tags("model", model, "type", type, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (firstChunkNanos >= 0) {
+            Timer.builder("ai.model.ttft")
+                    .description("流式调用首个片段到达耗时（time to first token）")
+                    .tag("model", model)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(firstChunkNanos, TimeUnit.NANOSECONDS);
+        }
+        int promptTokens = tokens(usage == null ? null : usage.getPromptTokens());
+        int completionTokens = tokens(usage == null ? null : usage.getCompletionTokens());
+        if (promptTokens > 0) {
+            tokenCounter(model, "input").increment(promptTokens);
+        }
+        if (completionTokens > 0) {
+            tokenCounter(model, "output").increment(completionTokens);
+        }
+        logCall(request, type, model, outcome, error, elapsed, firstChunkNanos, promptTokens, completionTokens);
+    }
+
+    private void recordCancel(String model, long start) {
+        Timer.builder("ai.model.latency")
+                .description("模型调用总耗时")
+                .tags("model", model, "type", "stream", "outcome", "cancelled")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter tokenCounter(String model, String tokenType) {
+        return Counter.builder("ai.model.tokens")
+                .description("模型调用消耗的token数")
+                .baseUnit("tokens")
+                .tags("model", model, "token.type", tokenType)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 输出一行key=value格式的调用摘要：失败和慢调用总是输出，成功调用按比例采样
+     */
+    private void logCall(ChatClientRequest request, String type, String model, String outcome, Throwable error,
+                         long elapsedNanos, long firstChunkNanos, int promptTokens, int completionTokens) {
+        if (!callLog.isEnabled() || !log.isInfoEnabled()) {
+            return;
+        }
+        boolean slow = elapsedNanos >= callLog.getSlowThreshold().toNanos();
+        if (error == null && !slow && ThreadLocalRandom.current().nextDouble() >= callLog.getSampleRate()) {
+            return;
+        }
+        Object endpoint = request.context().get(ChatEndpoints.CONTEXT_KEY);
+        String message = "event=llm_call type={} endpoint={} model={} outcome={} latency_ms={} ttft_ms={} "
+                + "prompt_tokens={} completion_tokens={} error={}";
+        Object[] args = {type, endpoint == null ? "-" : endpoint, model, outcome,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                firstChunkNanos < 0 ? "-" : TimeUnit.NANOSECONDS.toMillis(firstChunkNanos),
+                promptTokens, completionTokens, error == null ? "-" : error.getClass().getSimpleName()};
+        if (error != null || slow) {
+            log.warn(message, args);
+        } else {
+            log.info(message, args);
+        }
+    }
+
+    private String outcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        if (LlmErrorClassifier.isTooManyRequests(error)) {
+            return "throttled";
+        }
+        if (LlmErrorClassifier.isTimeout(error)) {
+            return "timeout";
+        }
+        return "error";
+    }
+
+    private static Usage usage(ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getMetadata() == null) {
+            return null;
+        }
+        Usage usage = chatResponse.getMetadata().getUsage();
+        return usage == null || tokens(usage.getTotalTokens()) == 0 ? null : usage;
+    }
+
+    private static String model(ChatResponse chatResponse, String fallback) {
+        if (chatResponse != null && chatResponse.getMetadata() != null
+                && StringUtils.hasText(chatResponse.getMetadata().getModel())) {
+            return chatResponse.getMetadata().getModel();
+        }
+        return fallback;
+    }
+
+    private static int tokens(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
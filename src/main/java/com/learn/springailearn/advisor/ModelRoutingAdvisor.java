@@ -0,0 +1,127 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.ModelRoutingProperties;
+import com.learn.springailearn.routing.ModelRouter;
+import com.learn.springailearn.routing.RouteDecision;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+/**
+ * 多模型路由Advisor
+ * 位于缓存和请求合并之外，按{@link ModelRouter}的选择改写本次请求的模型，
+ * 使缓存Key、指标和并发控制都基于实际调用的模型；选中的模型写入请求上下文供调用方记录
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ModelRoutingAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * 请求上下文中调用方的模型提示：模型名、fast或best
+     */
+    public static final String MODEL_HINT = "model_hint";
+
+    /**
+     * 响应上下文中本次请求实际路由到的模型
+     */
+    public static final String ROUTED_MODEL = "routed_model";
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 750;
+
+    private final ModelRoutingProperties properties;
+    private final ModelRouter modelRouter;
+
+    public ModelRoutingAdvisor(ModelRoutingProperties properties, ModelRouter modelRouter) {
+        this.properties = properties;
+        this.modelRouter = modelRouter;
+    }
+
+    /**
+     * 解析一次调用实际使用的模型：优先使用模型返回的元数据，其次是路由结果，最后是默认模型
+     * @param response ChatClient响应
+     * @param defaultModel 默认模型
+     * @return 模型名
+     */
+    public static String modelUsed(ChatClientResponse response, String defaultModel) {
+        if (response == null) {
+            return defaultModel;
+        }
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse != null && chatResponse.getMetadata() != null
+                && StringUtils.hasText(chatResponse.getMetadata().getModel())) {
+            return chatResponse.getMetadata().getModel();
+        }
+        Object routed = response.context().get(ROUTED_MODEL);
+        return routed == null ? defaultModel : routed.toString();
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        return chain.nextCall(route(request));
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> chain.nextStream(route(request)));
+    }
+
+    @Override
+    public String getName() {
+        return "ModelRoutingAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private ChatClientRequest route(ChatClientRequest request) {
+        if (!properties.isEnabled()) {
+            return request;
+        }
+        Prompt prompt = request.prompt();
+        int promptChars = 0;
+        for (Message message : prompt.getInstructions()) {
+            promptChars += message.getText() == null ? 0 : message.getText().length();
+        }
+        Object hint = request.context().get(MODEL_HINT);
+        RouteDecision decision = modelRouter.route(hint == null ? null : hint.toString(),
+                ChatRequestKeys.userText(prompt), promptChars);
+        log.debug("请求路由到模型{}，原因：{}，提示词字符数：{}", decision.model(), decision.reason(), promptChars);
+        return request.mutate()
+                .prompt(prompt.mutate().chatOptions(withModel(prompt.getOptions(), decision.model())).build())
+                .context(ROUTED_MODEL, decision.model())
+                .build();
+    }
+
+    /**
+     * 复制模型选项并替换模型名，保留温度等其他默认选项
+     */
+    private ChatOptions withModel(ChatOptions options, String model) {
+        if (options != null) {
+            ChatOptions copy = options.copy();
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(copy);
+            if (wrapper.isWritableProperty("model")) {
+                wrapper.setPropertyValue("model", model);
+                return copy;
+            }
+        }
+        return ChatOptions.builder().model(model).build();
+    }
+}
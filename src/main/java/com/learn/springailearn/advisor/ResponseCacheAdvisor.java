@@ -0,0 +1,183 @@
+package com.learn.springailearn.advisor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.learn.springailearn.config.ResponseCacheProperties;
+import com.learn.springailearn.shared.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 模型响应缓存Advisor
+ * 以模型+系统指令+用户消息为Key缓存同步调用结果，按接口（{@link ChatEndpoints#CONTEXT_KEY}）显式开启；
+ * 可选的语义模式在精确未命中时用向量相似度查找已缓存的相似问题；
+ * 共享状态为多节点存储时本地缓存作为近端缓存，本地未命中再查共享存储，写入时同时写入共享存储，使任一节点的回答可被其他节点复用
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ResponseCacheAdvisor implements CallAdvisor {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 1000;
+
+    private static final String SHARED_KEY_PREFIX = "ai:response:";
+
+    private final ResponseCacheProperties properties;
+    private final String defaultModel;
+    private final Cache<String, ChatResponse> cache;
+    private final SharedStateStore sharedStore;
+    private final SemanticResponseIndex semanticIndex;
+    private final Counter semanticHitCounter;
+    private final Counter sharedHitCounter;
+
+    public ResponseCacheAdvisor(ResponseCacheProperties properties,
+                                ObjectProvider<EmbeddingModel> embeddingModelProvider,
+                                SharedStateStore sharedStateStore,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.ai.alibaba.qwen.model:qwen-turbo}") String defaultModel) {
+        this.properties = properties;
+        this.defaultModel = defaultModel;
+        this.sharedStore = sharedStateStore.isShared() ? sharedStateStore : null;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "ai.response.cache");
+        this.semanticHitCounter = Counter.builder("ai.response.cache.semantic.hits")
+                .description("语义相似命中的次数")
+                .register(meterRegistry);
+        this.sharedHitCounter = Counter.builder("ai.response.cache.shared.hits")
+                .description("本地未命中、由其他节点写入的共享缓存命中的次数")
+                .register(meterRegistry);
+
+        ResponseCacheProperties.Semantic semantic = properties.getSemantic();
+        EmbeddingModel embeddingModel = semantic.isEnabled() ? embeddingModelProvider.getIfUnique() : null;
+        if (semantic.isEnabled() && embeddingModel == null) {
+            log.warn("已开启语义缓存但未找到唯一的EmbeddingModel，仅使用精确匹配");
+        }
+        this.semanticIndex = embeddingModel == null ? null
+                : new SemanticResponseIndex(embeddingModel, semantic.getSimilarityThreshold(), semantic.getMaximumEntries());
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!isCacheable(request)) {
+            return chain.nextCall(request);
+        }
+        Prompt prompt = request.prompt();
+        String requestKey = ChatRequestKeys.requestKey(prompt, defaultModel);
+        ChatResponse cached = cache.getIfPresent(requestKey);
+        if (cached != null) {
+            log.debug("模型响应缓存命中，Key：{}", requestKey);
+            return ChatClientResponse.builder().chatResponse(cached).context(request.context()).build();
+        }
+        ChatResponse shared = getShared(requestKey);
+        if (shared != null) {
+            sharedHitCounter.increment();
+            cache.put(requestKey, shared);
+            log.debug("模型响应共享缓存命中，Key：{}", requestKey);
+            return ChatClientResponse.builder().chatResponse(shared).context(request.context()).build();
+        }
+
+        String contextKey = null;
+        float[] embedding = null;
+        if (semanticIndex != null) {
+            try {
+                contextKey = ChatRequestKeys.contextKey(prompt, defaultModel);
+                embedding = semanticIndex.embed(ChatRequestKeys.userText(prompt));
+                String similarKey = semanticIndex.findSimilar(contextKey, embedding, key -> cache.asMap().containsKey(key));
+                ChatResponse similar = similarKey == null ? null : cache.asMap().get(similarKey);
+                if (similar != null) {
+                    semanticHitCounter.increment();
+                    log.debug("模型响应语义缓存命中，Key：{}，相似Key：{}", requestKey, similarKey);
+                    return ChatClientResponse.builder().chatResponse(similar).context(request.context()).build();
+                }
+            } catch (Exception e) {
+                log.warn("语义缓存检索失败，跳过语义匹配：{}", e.getMessage());
+                embedding = null;
+            }
+        }
+
+        ChatClientResponse response = chain.nextCall(request);
+        if (isCacheable(response.chatResponse())) {
+            cache.put(requestKey, response.chatResponse());
+            putShared(requestKey, response.chatResponse());
+            if (embedding != null) {
+                semanticIndex.add(contextKey, requestKey, embedding);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 清空本节点的缓存（共享存储中的条目按过期时间淘汰）
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String getName() {
+        return "ResponseCacheAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private ChatResponse getShared(String requestKey) {
+        if (sharedStore == null) {
+            return null;
+        }
+        try {
+            String value = sharedStore.get(SHARED_KEY_PREFIX + requestKey);
+            return value == null ? null : SharedChatResponses.decode(value);
+        } catch (Exception e) {
+            log.warn("读取共享响应缓存失败，按未命中处理：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putShared(String requestKey, ChatResponse chatResponse) {
+        if (sharedStore == null) {
+            return;
+        }
+        try {
+            sharedStore.set(SHARED_KEY_PREFIX + requestKey, SharedChatResponses.encode(chatResponse), properties.getTtl());
+        } catch (Exception e) {
+            log.warn("写入共享响应缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private boolean isCacheable(ChatClientRequest request) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        Object endpoint = request.context().get(ChatEndpoints.CONTEXT_KEY);
+        return endpoint != null && properties.getEndpoints().contains(endpoint.toString());
+    }
+
+    private boolean isCacheable(ChatResponse chatResponse) {
+        return chatResponse != null
+                && chatResponse.getResult() != null
+                && !chatResponse.hasToolCalls()
+                && StringUtils.hasText(chatResponse.getResult().getOutput().getText());
+    }
+}
@@ -0,0 +1,99 @@
+package com.learn.springailearn.advisor;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * 本地语义向量索引，用于把相似的用户问题映射到已缓存的请求Key
+ * 条目数量有界，超出上限时淘汰最早写入的条目；检索为线性扫描，适用于数千条以内的热点问题
+ * @author ken
+ * @date 2026-01-21
+ */
+public class SemanticResponseIndex {
+
+    private final EmbeddingModel embeddingModel;
+    private final double similarityThreshold;
+    private final int maximumEntries;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    public SemanticResponseIndex(EmbeddingModel embeddingModel, double similarityThreshold, int maximumEntries) {
+        this.embeddingModel = embeddingModel;
+        this.similarityThreshold = similarityThreshold;
+        this.maximumEntries = maximumEntries;
+    }
+
+    /**
+     * 计算文本向量
+     */
+    public float[] embed(String text) {
+        return embeddingModel.embed(text);
+    }
+
+    /**
+     * 在同一上下文中查找最相似且仍然有效的请求Key
+     * @param contextKey 上下文Key（模型+系统指令）
+     * @param embedding 用户问题向量
+     * @param alive 判断请求Key对应的缓存是否仍存在，失效条目顺带清理
+     * @return 命中的请求Key，未命中返回null
+     */
+    public synchronized String findSimilar(String contextKey, float[] embedding, Predicate<String> alive) {
+        String bestKey = null;
+        double bestScore = similarityThreshold;
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.contextKey.equals(contextKey)) {
+                continue;
+            }
+            if (!alive.test(entry.requestKey)) {
+                iterator.remove();
+                continue;
+            }
+            double score = cosine(embedding, entry.embedding);
+            if (score >= bestScore) {
+                bestScore = score;
+                bestKey = entry.requestKey;
+            }
+        }
+        return bestKey;
+    }
+
+    /**
+     * 写入一条索引
+     */
+    public synchronized void add(String contextKey, String requestKey, float[] embedding) {
+        while (entries.size() >= maximumEntries) {
+            entries.pollFirst();
+        }
+        entries.addLast(new Entry(contextKey, requestKey, embedding));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0D;
+        }
+        double dot = 0D;
+        double normA = 0D;
+        double normB = 0D;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0D || normB == 0D) {
+            return 0D;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    private record Entry(String contextKey, String requestKey, float[] embedding) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.learn.springailearn.advisor;
+
+import com.alibaba.fastjson2.JSON;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.util.List;
+
+/**
+ * 模型响应与共享状态存储中字符串值之间的转换
+ * 只保留回答文本、模型名和token用量（缓存、去重只处理不含工具调用的纯文本回答）
+ * @author ken
+ * @date 2026-01-21
+ */
+final class SharedChatResponses {
+
+    private SharedChatResponses() {
+    }
+
+    static String encode(ChatResponse chatResponse) {
+        ChatResponseMetadata metadata = chatResponse.getMetadata();
+        Usage usage = metadata.getUsage();
+        return JSON.toJSONString(new Payload(chatResponse.getResult().getOutput().getText(),
+                metadata.getModel(),
+                usage == null ? null : usage.getPromptTokens(),
+                usage == null ? null : usage.getCompletionTokens()));
+    }
+
+    static ChatResponse decode(String value) {
+        Payload payload = JSON.parseObject(value, Payload.class);
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder();
+        if (payload.model() != null) {
+            metadata.model(payload.model());
+        }
+        if (payload.promptTokens() != null || payload.completionTokens() != null) {
+            metadata.usage(new DefaultUsage(payload.promptTokens(), payload.completionTokens()));
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(payload.text()))), metadata.build());
+    }
+
+    private record Payload(String text, String model, Integer promptTokens, Integer completionTokens) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.SharedStateProperties;
+import com.learn.springailearn.resilience.CallScope;
+import com.learn.springailearn.shared.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 并发相同请求合并（single-flight）Advisor
+ * 同一时刻Key相同（模型+系统指令+用户消息）的请求只有第一个（leader）真正调用模型，
+ * 其余请求（follower）等待并共享leader的结果或异常；leader被取消时follower各自重新发起调用，
+ * 等待时长不超过锁租期和调用方的剩余截止时间，超时（leader卡住）后follower自行调用模型。
+ * 共享状态为多节点存储时，各节点的本地leader再通过共享存储中的请求锁竞争集群级leader：
+ * 抢到锁的节点调用模型并把结果写入共享存储后广播完成通知，其他节点等待通知（轮询兜底）后读取结果；
+ * 集群级leader调用失败时其他节点各自调用一次，等待超过同样的时长（leader节点宕机）时也自行调用；
+ * 集群级leader被取消时只释放请求锁、不写入结果，其他节点重新竞争锁，不会因一个客户端取消而各自调用模型
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class SingleFlightAdvisor implements CallAdvisor {
+
+    /**
+     * 设置为true时跳过合并，例如对冲请求需要真正发出第二次调用
+     */
+    public static final String BYPASS = "single_flight_bypass";
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 2000;
+
+    private static final String LOCK_KEY_PREFIX = "ai:single-flight:lock:";
+    private static final String RESULT_KEY_PREFIX = "ai:single-flight:result:";
+    private static final String DONE_CHANNEL = "ai:single-flight:done";
+    /**
+     * 集群级leader调用失败时写入的结果标记（正常结果为JSON）
+     */
+    private static final String FAILED = "-";
+
+    private final boolean enabled;
+    private final String defaultModel;
+    private final SharedStateStore sharedStore;
+    private final SharedStateProperties.SingleFlight sharedProperties;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, CompletableFuture<ChatResponse>> inFlight = new ConcurrentHashMap<>();
+    /**
+     * 本节点正在等待其他节点调用结果的请求Key，收到完成通知时唤醒
+     */
+    private final Map<String, CompletableFuture<Void>> remoteWaiters = new ConcurrentHashMap<>();
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+    private final Counter remoteCounter;
+
+    public SingleFlightAdvisor(@Value("${app.ai.single-flight.enabled:true}") boolean enabled,
+                               @Value("${spring.ai.alibaba.qwen.model:qwen-turbo}") String defaultModel,
+                               SharedStateStore sharedStateStore,
+                               SharedStateProperties sharedStateProperties,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultModel = defaultModel;
+        this.sharedStore = enabled && sharedStateStore.isShared() ? sharedStateStore : null;
+        this.sharedProperties = sharedStateProperties.getSingleFlight();
+        this.leaderCounter = Counter.builder("ai.single.flight.calls")
+                .tag("role", "leader")
+                .description("实际发往模型的调用次数")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("ai.single.flight.calls")
+                .tag("role", "coalesced")
+                .description("被合并到进行中调用的请求次数")
+                .register(meterRegistry);
+        this.remoteCounter = Counter.builder("ai.single.flight.calls")
+                .tag("role", "remote")
+                .description("共享其他节点调用结果的次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.single.flight.in.flight", inFlight, Map::size)
+                .description("进行中的去重调用数量")
+                .register(meterRegistry);
+        if (sharedStore != null) {
+            sharedStore.subscribe(DONE_CHANNEL, this::onRemoteDone);
+        }
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!enabled || Boolean.TRUE.equals(request.context().get(BYPASS))) {
+            return chain.nextCall(request);
+        }
+        String key = ChatRequestKeys.requestKey(request.prompt(), defaultModel);
+        while (true) {
+            CompletableFuture<ChatResponse> promise = new CompletableFuture<>();
+            CompletableFuture<ChatResponse> existing = inFlight.putIfAbsent(key, promise);
+            if (existing == null) {
+                return lead(key, promise, request, chain);
+            }
+            coalescedCounter.increment();
+            try {
+                ChatResponse shared = await(existing, waitNanos());
+                log.debug("请求已合并到进行中的模型调用，Key：{}", key);
+                return ChatClientResponse.builder().chatResponse(shared).context(request.context()).build();
+            } catch (CancellationException e) {
+                // leader被取消不代表本请求也被取消，重新竞争leader
+                log.debug("进行中的模型调用已被取消，重新发起，Key：{}", key);
+            } catch (TimeoutException e) {
+                log.warn("等待进行中的模型调用超时，由本请求直接调用，Key：{}", key);
+                return call(request, chain);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "SingleFlightAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private ChatClientResponse lead(String key, CompletableFuture<ChatResponse> promise,
+                                    ChatClientRequest request, CallAdvisorChain chain) {
+        try {
+            ChatClientResponse response = sharedStore == null ? call(request, chain) : callAcrossNodes(key, request, chain);
+            promise.complete(response.chatResponse());
+            return response;
+        } catch (RuntimeException | Error e) {
+            if (isCancelled()) {
+                promise.cancel(false);
+            } else {
+                promise.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    private ChatClientResponse call(ChatClientRequest request, CallAdvisorChain chain) {
+        leaderCounter.increment();
+        return chain.nextCall(request);
+    }
+
+    /**
+     * 跨节点去重：抢到请求锁则调用模型并发布结果，否则等待持有锁的节点完成
+     */
+    private ChatClientResponse callAcrossNodes(String key, ChatClientRequest request, CallAdvisorChain chain) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        String resultKey = RESULT_KEY_PREFIX + key;
+        long deadline = System.nanoTime() + waitNanos();
+        while (true) {
+            boolean locked;
+            try {
+                locked = sharedStore.setIfAbsent(lockKey, nodeId, sharedProperties.getLease());
+            } catch (Exception e) {
+                log.warn("共享请求锁不可用，直接调用模型，Key：{}，异常信息：{}", key, e.getMessage());
+                return call(request, chain);
+            }
+            if (locked) {
+                return leadAcrossNodes(key, lockKey, resultKey, request, chain);
+            }
+            String result = awaitRemote(key, resultKey, lockKey, deadline);
+            if (result == null) {
+                // 锁已释放但没有结果（结果已过期或leader未写入），重新竞争
+                continue;
+            }
+            if (FAILED.equals(result)) {
+                log.debug("其他节点的模型调用失败或等待超时，由本节点调用，Key：{}", key);
+                return call(request, chain);
+            }
+            remoteCounter.increment();
+            log.debug("请求已共享其他节点的模型调用结果，Key：{}", key);
+            return ChatClientResponse.builder().chatResponse(SharedChatResponses.decode(result)).context(request.context()).build();
+        }
+    }
+
+    private ChatClientResponse leadAcrossNodes(String key, String lockKey, String resultKey,
+                                               ChatClientRequest request, CallAdvisorChain chain) {
+        String result = FAILED;
+        try {
+            ChatClientResponse response = call(request, chain);
+            if (isShareable(response.chatResponse())) {
+                result = SharedChatResponses.encode(response.chatResponse());
+            }
+            return response;
+        } catch (RuntimeException | Error e) {
+            if (isCancelled()) {
+                // 不写入结果：等待的节点看到锁已释放且没有结果后重新竞争
+                log.debug("集群级leader的模型调用被取消，释放请求锁，Key：{}", key);
+                result = null;
+            }
+            throw e;
+        } finally {
+            try {
+                if (result != null) {
+                    sharedStore.set(resultKey, result, sharedProperties.getResultTtl());
+                }
+                sharedStore.delete(lockKey);
+                sharedStore.publish(DONE_CHANNEL, key);
+            } catch (Exception e) {
+                // 其他节点等到锁租期结束后自行调用
+                log.warn("发布共享调用结果失败，Key：{}，异常信息：{}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 等待持有锁的节点完成
+     * @return 调用结果（JSON或失败标记）；锁已释放但没有结果时返回null；等待超时返回失败标记
+     */
+    private String awaitRemote(String key, String resultKey, String lockKey, long deadline) {
+        long pollNanos = sharedProperties.getPollInterval().toNanos();
+        try {
+            while (true) {
+                // 先登记再检查，避免检查之后、等待之前到达的完成通知丢失
+                CompletableFuture<Void> done = remoteWaiters.computeIfAbsent(key, k -> new CompletableFuture<>());
+                String result = sharedStore.get(resultKey);
+                if (result != null) {
+                    return result;
+                }
+                if (sharedStore.get(lockKey) == null) {
+                    return null;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return FAILED;
+                }
+                try {
+                    done.get(Math.min(pollNanos, remaining), TimeUnit.NANOSECONDS);
+                    remoteWaiters.remove(key, done);
+                } catch (TimeoutException | ExecutionException e) {
+                    // 完成通知可能丢失，按轮询间隔重新检查
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待其他节点的模型调用结果时线程被中断", e);
+        } catch (RuntimeException e) {
+            log.warn("读取共享调用结果失败，由本节点调用，Key：{}，异常信息：{}", key, e.getMessage());
+            return FAILED;
+        } finally {
+            remoteWaiters.remove(key);
+        }
+    }
+
+    private void onRemoteDone(String key) {
+        CompletableFuture<Void> waiter = remoteWaiters.get(key);
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /**
+     * 调用失败是否源于本请求被取消（客户端断开、截止时间到达），而不是上游失败
+     */
+    private static boolean isCancelled() {
+        return Thread.currentThread().isInterrupted() || CallScope.isCurrentCancelled();
+    }
+
+    private boolean isShareable(ChatResponse chatResponse) {
+        return chatResponse != null
+                && chatResponse.getResult() != null
+                && !chatResponse.hasToolCalls()
+                && chatResponse.getResult().getOutput().getText() != null;
+    }
+
+    /**
+     * follower等待其他调用结果的最长时间：锁租期，且不超过当前调用尝试的剩余截止时间
+     */
+    private long waitNanos() {
+        long lease = sharedProperties.getLease().toNanos();
+        CallScope scope = CallScope.current();
+        Duration remaining = scope == null ? null : scope.remaining();
+        return remaining == null ? lease : Math.min(lease, remaining.toNanos());
+    }
+
+    private ChatResponse await(CompletableFuture<ChatResponse> future, long timeoutNanos) throws TimeoutException {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待合并请求结果时线程被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.RateLimitProperties;
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import com.learn.springailearn.limiter.SharedUserRateLimiter;
+import com.learn.springailearn.limiter.UserRateLimiter;
+import com.learn.springailearn.shared.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * 按用户限流Advisor
+ * 位于Advisor链最外层，请求携带用户ID（{@link #USER_ID}）时先从该用户的令牌桶取令牌，取不到立即拒绝；
+ * 共享状态为多节点存储时改用共享的滑动窗口计数，使限额对整个集群生效，共享存储不可用时退化为本节点令牌桶
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class UserRateLimitAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * 请求上下文中的用户ID参数，未携带时不做按用户限流
+     */
+    public static final String USER_ID = "chat_user_id";
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 500;
+
+    private final RateLimitProperties.User properties;
+    private final UserRateLimiter limiter;
+    private final SharedUserRateLimiter sharedLimiter;
+    private final Counter rejectedCounter;
+
+    public UserRateLimitAdvisor(RateLimitProperties properties, SharedStateStore sharedStateStore, MeterRegistry meterRegistry) {
+        this.properties = properties.getUser();
+        this.limiter = new UserRateLimiter(this.properties);
+        this.sharedLimiter = sharedStateStore.isShared() && this.properties.isEnabled()
+                ? new SharedUserRateLimiter(this.properties, sharedStateStore) : null;
+        this.rejectedCounter = Counter.builder("ai.rate.limit.rejected")
+                .tag("scope", "user")
+                .description("被限流拒绝的请求次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.rate.limit.users", limiter, UserRateLimiter::size)
+                .description("持有令牌桶的用户数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        acquire(request);
+        return chain.nextCall(request);
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            acquire(request);
+            return chain.nextStream(request);
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "UserRateLimitAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void acquire(ChatClientRequest request) {
+        Object userId = request.context().get(USER_ID);
+        if (!properties.isEnabled() || userId == null) {
+            return;
+        }
+        try {
+            acquire(userId.toString());
+        } catch (RateLimitExceededException e) {
+            rejectedCounter.increment();
+            log.warn("用户请求过于频繁已被限流，用户ID：{}，建议{}秒后重试", userId, e.getRetryAfterSeconds());
+            throw e;
+        }
+    }
+
+    private void acquire(String userId) {
+        if (sharedLimiter == null) {
+            limiter.acquire(userId);
+            return;
+        }
+        try {
+            sharedLimiter.acquire(userId);
+        } catch (RateLimitExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("共享限流计数不可用，改用本节点令牌桶，用户ID：{}，异常信息：{}", userId, e.getMessage());
+            limiter.acquire(userId);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.learn.springailearn.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.learn.springailearn.config.ChatHistoryCacheProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 用户对话记录列表缓存（read-through）
+ * 按用户缓存完整的历史记录列表，记录写入和删除后失效，并通过{@link HistoryInvalidationChannel}广播给其他节点。
+ * 失效与加载并发时，加载开始前后失效版本号不一致的结果不写入缓存，避免把失效前读到的旧数据写回
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ChatHistoryCache {
+
+    private static final int STRIPES = 64;
+
+    private final ChatHistoryCacheProperties properties;
+    private final Cache<String, List<ChatRecord>> cache;
+    private final HistoryInvalidationChannel channel;
+    /**
+     * 按用户ID分段的失效版本号
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public ChatHistoryCache(ChatHistoryCacheProperties properties,
+                            ObjectProvider<HistoryInvalidationChannel> channelProvider,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getMaximumRecords())
+                .<String, List<ChatRecord>>weigher((userId, records) -> Math.max(1, records.size()))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "chat.history.cache");
+        this.channel = channelProvider.getIfAvailable();
+        if (channel != null) {
+            channel.subscribe(this::invalidateLocal);
+            log.info("对话记录缓存已接入失效通知通道：{}", channel.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * 读取用户的对话记录列表，未命中时加载并写入缓存
+     * @param userId 用户ID
+     * @param loader 从数据库加载的逻辑
+     * @return 对话记录列表（只读）
+     */
+    public List<ChatRecord> get(String userId, Supplier<List<ChatRecord>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        List<ChatRecord> cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        List<ChatRecord> records = List.copyOf(loader.get());
+        if (versions.get(stripe) == version) {
+            cache.put(userId, records);
+        }
+        return records;
+    }
+
+    /**
+     * 失效用户的缓存并广播给其他节点
+     * @param userId 用户ID
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidateLocal(userId);
+        if (channel != null) {
+            try {
+                channel.publish(userId);
+            } catch (Exception e) {
+                // 广播失败时其他节点依靠过期时间兜底
+                log.warn("对话记录缓存失效广播失败，用户ID：{}，异常信息：{}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private void invalidateLocal(String userId) {
+        versions.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    private int stripe(String userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
@@ -0,0 +1,25 @@
+package com.learn.springailearn.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 对话记录缓存失效通知通道
+ * 多实例部署时通过该通道把某个用户的缓存失效广播到其他节点（如Redis Pub/Sub、消息队列）；
+ * 未提供实现时只在本节点失效
+ * @author ken
+ * @date 2026-01-21
+ */
+public interface HistoryInvalidationChannel {
+
+    /**
+     * 广播用户的缓存失效
+     * @param userId 用户ID
+     */
+    void publish(String userId);
+
+    /**
+     * 订阅其他节点广播的缓存失效
+     * @param listener 收到失效通知时的回调，参数为用户ID
+     */
+    void subscribe(Consumer<String> listener);
+}
@@ -1,7 +1,9 @@
 package com.learn.springailearn.config;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,8 +16,13 @@ public class AiConfig {
         this.chatModel = chatModel;
     }
 
+    /**
+     * 容器中的Advisor（缓存等）按order顺序挂载为ChatClient的默认Advisor
+     */
     @Bean
-    public ChatClient chatClient() {
-        return ChatClient.builder(chatModel).build();
+    public ChatClient chatClient(ObjectProvider<Advisor> advisors) {
+        return ChatClient.builder(chatModel)
+                .defaultAdvisors(advisors.orderedStream().toList())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 批量文本生成配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.batch")
+public class BatchGenerateProperties {
+
+    /**
+     * 单个批次的默认并行度
+     */
+    private int defaultParallelism = 4;
+
+    /**
+     * 单个批次的最大并行度（应小于全局并发上限，避免批量任务挤占在线请求）
+     */
+    private int maxParallelism = 8;
+
+    /**
+     * 同步流式返回时单个批次的最大条目数
+     */
+    private int maxItems = 1000;
+
+    /**
+     * 异步任务单个批次的最大条目数
+     */
+    private int maxJobItems = 10000;
+
+    /**
+     * 同时保留的异步任务数
+     */
+    private long maxJobs = 100;
+
+    /**
+     * 异步任务结果的保留时长
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+
+    /**
+     * 单个条目的时间预算（含重试）
+     */
+    private Duration itemTimeout = Duration.ofSeconds(120);
+
+    /**
+     * 单次轮询最多返回的条目结果数
+     */
+    private int maxPollResults = 500;
+}
@@ -0,0 +1,54 @@
+package com.learn.springailearn.config;
+
+import com.learn.springailearn.resilience.CallScope;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用作用域拦截器
+ * 在模型调用尝试中发出的请求（见{@link CallScope}）：连接/读取/写入超时不超过截止时间前的剩余时间，
+ * 并把请求的取消登记到作用域中，尝试被取消时直接取消HTTP请求（关闭Socket），而不是等待读取超时
+ * @author ken
+ * @date 2026-01-21
+ */
+public class CallScopeInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        CallScope scope = CallScope.current();
+        if (scope == null) {
+            return chain.proceed(chain.request());
+        }
+        Call call = chain.call();
+        scope.onCancel(call::cancel);
+        if (call.isCanceled()) {
+            throw new InterruptedIOException("模型调用已取消");
+        }
+        Duration remaining = scope.remaining();
+        if (remaining == null) {
+            return chain.proceed(chain.request());
+        }
+        if (remaining.isZero()) {
+            throw new InterruptedIOException("模型调用截止时间已到");
+        }
+        int remainingMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, remaining.toMillis()));
+        return chain
+                .withConnectTimeout(cap(chain.connectTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS)
+                .withReadTimeout(cap(chain.readTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS)
+                .withWriteTimeout(cap(chain.writeTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS)
+                .proceed(chain.request());
+    }
+
+    /**
+     * 0表示不超时，同样按剩余时间限制
+     */
+    private static int cap(int timeoutMillis, int remainingMillis) {
+        return timeoutMillis == 0 ? remainingMillis : Math.min(timeoutMillis, remainingMillis);
+    }
+}
@@ -0,0 +1,33 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户对话记录列表缓存配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.chat-record.history-cache")
+public class ChatHistoryCacheProperties {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存的对话记录总条数上限（按每个用户的记录条数计权重，超出后按LRU淘汰）
+     */
+    private long maximumRecords = 100_000;
+
+    /**
+     * 写入后的过期时间，作为失效通知丢失时的兜底
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+}
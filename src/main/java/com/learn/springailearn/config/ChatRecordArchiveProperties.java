@@ -0,0 +1,58 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 对话记录冷热分层（归档）配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.chat-record.archive")
+public class ChatRecordArchiveProperties {
+
+    /**
+     * 是否启用定时归档
+     */
+    private boolean enabled = true;
+
+    /**
+     * 归档任务的cron表达式（默认每天凌晨3点半，避开业务高峰）
+     */
+    private String cron = "0 30 3 * * *";
+
+    /**
+     * 创建时间超过该时长的记录迁移到归档表
+     */
+    private Duration archiveAfter = Duration.ofDays(90);
+
+    /**
+     * 每批迁移的记录数，控制单个事务的大小和锁持有时间
+     */
+    private int batchSize = 500;
+
+    /**
+     * 两批之间的停顿，限制归档对数据库的压力
+     */
+    private Duration batchPause = Duration.ofMillis(200);
+
+    /**
+     * 单次任务的最长运行时间，超出后留到下一次继续
+     */
+    private Duration maxRunTime = Duration.ofHours(1);
+
+    /**
+     * 是否物理清除已逻辑删除的记录（热表中直接删除而不归档，归档表中的已删除记录一并清除）
+     */
+    private boolean purgeDeleted = false;
+
+    /**
+     * 归档表中保留的提问摘要长度
+     */
+    private int previewLength = 255;
+}
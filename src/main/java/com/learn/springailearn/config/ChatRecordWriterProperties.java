@@ -0,0 +1,46 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对话记录异步批量写入配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.chat-record.writer")
+public class ChatRecordWriterProperties {
+
+    /**
+     * 是否启用异步批量写入，关闭后对话记录在请求线程中同步插入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 写入队列容量（内存上限）
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单次批量INSERT的最大行数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 收到第一条记录后最多等待多久凑批（毫秒）
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * 队列满时入队最长等待时间（毫秒），超时后在调用线程同步写入
+     */
+    private long offerTimeoutMs = 50;
+
+    /**
+     * 停机时等待队列刷盘的最长时间（毫秒）
+     */
+    private long shutdownTimeoutMs = 30000;
+}
@@ -0,0 +1,67 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 多轮对话会话记忆配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.chat.memory")
+public class ConversationMemoryProperties {
+
+    /**
+     * 是否启用多轮对话记忆，关闭后每次只发送当前提问
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存中最多保留的活跃会话数，超出后按LRU淘汰
+     */
+    private long maximumSessions = 10000;
+
+    /**
+     * 会话空闲多久后从内存中淘汰
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 每个会话在内存中最多保留的轮数
+     */
+    private int maximumTurns = 20;
+
+    /**
+     * 会话未命中时从数据库回填的轮数
+     */
+    private int loadTurnsOnMiss = 10;
+
+    /**
+     * 发送给模型的历史消息token预算（不含当前提问）
+     */
+    private int tokenBudget = 2000;
+
+    /**
+     * 超出预算的早期对话压缩摘要配置
+     */
+    private Summary summary = new Summary();
+
+    @Data
+    public static class Summary {
+
+        /**
+         * 是否对移出窗口的早期对话生成摘要（会额外产生一次模型调用，异步执行）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 摘要的最大字数
+         */
+        private int maximumLength = 300;
+    }
+}
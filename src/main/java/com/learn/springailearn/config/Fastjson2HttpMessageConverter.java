@@ -0,0 +1,91 @@
+package com.learn.springailearn.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONWriter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * 基于fastjson2的JSON消息转换器
+ * 只处理本项目domain包下的请求/响应类型（及其集合），其余类型（actuator、springdoc等）仍交给Jackson；
+ * 输出格式与Jackson默认配置保持一致：保留null字段、时间为ISO-8601格式
+ * @author ken
+ * @date 2026-01-21
+ */
+public class Fastjson2HttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private static final String DOMAIN_PACKAGE = "com.learn.springailearn.domain.";
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private static final JSONWriter.Feature[] WRITE_FEATURES = {JSONWriter.Feature.WriteNulls};
+
+    public Fastjson2HttpMessageConverter() {
+        super(new MediaType("application", "json", StandardCharsets.UTF_8), MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz.getName().startsWith(DOMAIN_PACKAGE);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isDomainType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (isDomainType(type) || supports(clazz)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return JSON.parseObject(inputMessage.getBody().readAllBytes(), type);
+        } catch (JSONException e) {
+            throw new HttpMessageNotReadableException("JSON解析失败：" + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            OutputStream body = outputMessage.getBody();
+            body.write(JSON.toJSONBytes(object, DATE_FORMAT, WRITE_FEATURES));
+        } catch (JSONException e) {
+            throw new HttpMessageNotWritableException("JSON序列化失败：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 判断是否为domain包下的类型，集合按元素类型判断（如List&lt;ChatRecord&gt;）
+     */
+    private boolean isDomainType(Type type) {
+        if (type == null) {
+            return false;
+        }
+        ResolvableType resolvable = ResolvableType.forType(type);
+        if (Collection.class.isAssignableFrom(resolvable.toClass())) {
+            resolvable = resolvable.asCollection().getGeneric(0);
+        }
+        return supports(resolvable.toClass());
+    }
+}
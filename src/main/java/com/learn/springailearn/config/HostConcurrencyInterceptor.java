@@ -0,0 +1,145 @@
+package com.learn.springailearn.config;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单主机并发限制拦截器
+ * OkHttp Dispatcher的maxRequestsPerHost只约束异步调用，RestClient走的同步调用需要由该拦截器限流；
+ * 许可在响应体关闭（或读取完毕）时释放，限制的是同时占用上游连接的请求数，包括正在读取响应体的请求；
+ * 请求失败或响应没有响应体时立即释放
+ * @author ken
+ * @date 2026-01-21
+ */
+public class HostConcurrencyInterceptor implements Interceptor {
+
+    private final int maxRequestsPerHost;
+    private final long acquireTimeoutNanos;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public HostConcurrencyInterceptor(int maxRequestsPerHost, Duration acquireTimeout) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        Semaphore semaphore = permits.computeIfAbsent(host, key -> new Semaphore(maxRequestsPerHost));
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new InterruptedIOException("等待主机并发许可超时：" + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待主机并发许可时被中断：" + host);
+        }
+        Runnable release = releaseOnce(semaphore);
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException | Error e) {
+            release.run();
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            release.run();
+            return response;
+        }
+        return response.newBuilder().body(new PermitReleasingBody(body, release)).build();
+    }
+
+    private static Runnable releaseOnce(Semaphore semaphore) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        };
+    }
+
+    /**
+     * 指定主机当前正在执行的请求数
+     */
+    public int inFlight(String host) {
+        Semaphore semaphore = permits.get(host);
+        return semaphore == null ? 0 : maxRequestsPerHost - semaphore.availablePermits();
+    }
+
+    /**
+     * 全部主机当前正在执行的请求数
+     */
+    public int inFlight() {
+        return permits.values().stream().mapToInt(semaphore -> maxRequestsPerHost - semaphore.availablePermits()).sum();
+    }
+
+    /**
+     * 关闭或读取完毕时释放许可的响应体
+     */
+    private static final class PermitReleasingBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        PermitReleasingBody(ResponseBody delegate, Runnable release) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        release.run();
+                        throw e;
+                    }
+                    if (read == -1) {
+                        release.run();
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
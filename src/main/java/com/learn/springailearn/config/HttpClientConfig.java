@@ -1,44 +1,164 @@
 package com.learn.springailearn.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * HTTP客户端配置，主要用于设置AI服务调用的超时参数
+ * HTTP客户端配置，统一管理AI服务调用的连接池、并发、超时与指标
+ * 同步调用（RestClient）使用共享的OkHttpClient，流式调用（WebClient）使用JDK HttpClient，两者均支持HTTP/2
  * @author ken
  * @date 2024-01-21
  */
+@Slf4j
 @Configuration
 public class HttpClientConfig {
 
     /**
-     * 自定义RestClient的请求工厂，设置连接和读取超时
+     * 是否启用虚拟线程（与Spring Boot的Tomcat虚拟线程开关保持一致）
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /**
+     * DashScope调用共享的OkHttpClient，整个应用只维护一个连接池和调度器
+     */
+    @Bean
+    public OkHttpClient dashScopeOkHttpClient(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        // Dispatcher的线程池只执行异步调用（enqueue），RestClient走的是同步调用，在调用线程上执行，
+        // 是否使用虚拟线程取决于调用线程（Tomcat请求线程、模型调用执行器），因此这里保持默认
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(properties.getDispatcher().getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(properties.getDispatcher().getMaxRequestsPerHost());
+
+        ConnectionPool connectionPool = new ConnectionPool(
+                properties.getPool().getMaxIdleConnections(),
+                properties.getPool().getKeepAlive().toMillis(),
+                TimeUnit.MILLISECONDS);
+        HostConcurrencyInterceptor hostConcurrencyInterceptor = new HostConcurrencyInterceptor(
+                properties.getDispatcher().getMaxRequestsPerHost(),
+                properties.getDispatcher().getAcquireTimeout());
+
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .connectTimeout(properties.getConnectTimeout())
+                .readTimeout(properties.getReadTimeout())
+                .writeTimeout(properties.getWriteTimeout())
+                .callTimeout(properties.getCallTimeout())
+                .retryOnConnectionFailure(properties.isRetryOnConnectionFailure())
+                .protocols(properties.isHttp2Enabled()
+                        ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : List.of(Protocol.HTTP_1_1))
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .addInterceptor(new CallScopeInterceptor())
+                .addInterceptor(hostConcurrencyInterceptor)
+                .eventListener(OkHttpMetricsEventListener.builder(meterRegistry, "okhttp.requests")
+                        .uriMapper(request -> request.url().encodedPath())
+                        .build())
+                .build();
+
+        Gauge.builder("okhttp.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .tag("state", "total").register(meterRegistry);
+        Gauge.builder("okhttp.pool.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle").register(meterRegistry);
+        Gauge.builder("okhttp.dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+                .tag("state", "running").register(meterRegistry);
+        Gauge.builder("okhttp.dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+                .tag("state", "queued").register(meterRegistry);
+        Gauge.builder("okhttp.host.in.flight", hostConcurrencyInterceptor, HostConcurrencyInterceptor::inFlight)
+                .register(meterRegistry);
+        return okHttpClient;
+    }
+
+    /**
+     * 自定义RestClient的请求工厂，复用共享的OkHttpClient
+     * 默认不缓冲响应体，响应按流读取，避免大响应整体复制到堆内存
      */
     @Bean
-    public RestClientCustomizer restClientCustomizer() {
+    public RestClientCustomizer restClientCustomizer(OkHttpClient dashScopeOkHttpClient, HttpClientProperties properties) {
         return restClientBuilder -> {
-            // 创建OkHttpClient，配置各种超时时间
-            OkHttpClient okHttpClient = new OkHttpClient.Builder()
-                    .connectTimeout(60, TimeUnit.SECONDS)      // 连接超时
-                    .readTimeout(120, TimeUnit.SECONDS)        // 读取超时
-                    .writeTimeout(60, TimeUnit.SECONDS)        // 写入超时
-                    .callTimeout(180, TimeUnit.SECONDS)        // 调用总超时
-                    .retryOnConnectionFailure(true)            // 连接失败时重试
-                    .build();
-
-            // 使用OkHttp3ClientHttpRequestFactory
-            OkHttp3ClientHttpRequestFactory requestFactory = new OkHttp3ClientHttpRequestFactory(okHttpClient);
-            
-            // 设置缓冲以便能够多次读取响应体
-            BufferingClientHttpRequestFactory bufferingFactory = new BufferingClientHttpRequestFactory(requestFactory);
-            
-            restClientBuilder.requestFactory(bufferingFactory);
+            ClientHttpRequestFactory requestFactory = new OkHttp3ClientHttpRequestFactory(dashScopeOkHttpClient);
+            if (properties.isBufferResponses()) {
+                // 设置缓冲以便能够多次读取响应体
+                requestFactory = new BufferingClientHttpRequestFactory(requestFactory);
+            }
+            restClientBuilder.requestFactory(requestFactory);
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * 自定义WebClient（流式调用）的连接器：HTTP/2 + 连接超时 + 可选虚拟线程执行器
+     * JDK HttpClient的空闲连接保活时间只能通过JVM系统属性配置（jdk.httpclient.keepalive.timeout，单位秒，默认1200），
+     * 属于整个JVM的全局设置，需要时在启动参数中指定，不在应用内修改
+     */
+    @Bean
+    public WebClientCustomizer webClientCustomizer(HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(properties.isHttp2Enabled() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .executor(streamingExecutor()::execute)
+                .build();
+        return webClientBuilder -> webClientBuilder.clientConnector(new JdkClientHttpConnector(httpClient));
+    }
+
+    /**
+     * 流式调用（JDK HttpClient）的执行器，应用关闭时随容器销毁
+     * 不以ExecutorService类型注册，避免Spring Boot因存在Executor类型的Bean而不再创建applicationTaskExecutor
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public StreamingHttpExecutor streamingExecutor() {
+        return new StreamingHttpExecutor(VirtualThreadSupport.executor(virtualThreadsEnabled, "jdk-http-",
+                () -> Executors.newCachedThreadPool(daemonThreadFactory("jdk-http-"))));
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 流式调用执行器的包装，只暴露任务提交和关闭（不实现Executor接口，原因见{@link #streamingExecutor()}）
+     */
+    public static final class StreamingHttpExecutor {
+
+        private final ExecutorService delegate;
+
+        StreamingHttpExecutor(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        public void execute(Runnable command) {
+            delegate.execute(command);
+        }
+
+        public void shutdownNow() {
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * DashScope调用的HTTP客户端配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.http-client")
+public class HttpClientProperties {
+
+    /**
+     * 连接超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 读取超时（两次读取之间的最大间隔，流式响应按片段计算）
+     */
+    private Duration readTimeout = Duration.ofSeconds(120);
+
+    /**
+     * 写入超时
+     */
+    private Duration writeTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 调用总超时
+     */
+    private Duration callTimeout = Duration.ofSeconds(180);
+
+    /**
+     * 连接失败时是否重试
+     */
+    private boolean retryOnConnectionFailure = true;
+
+    /**
+     * 是否启用HTTP/2（多路复用，同一主机的并发请求共享连接）
+     */
+    private boolean http2Enabled = true;
+
+    /**
+     * 是否把响应体完整缓冲到内存，仅在需要多次读取响应体（如调试日志）时开启
+     */
+    private boolean bufferResponses = false;
+
+    /**
+     * 连接池配置
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * 并发调度配置
+     */
+    private Dispatcher dispatcher = new Dispatcher();
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 最大空闲连接数
+         */
+        private int maxIdleConnections = 32;
+
+        /**
+         * 空闲连接保活时间
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Dispatcher {
+
+        /**
+         * 最大并发请求数
+         */
+        private int maxRequests = 256;
+
+        /**
+         * 单个主机的最大并发请求数（同步与异步调用均生效）
+         */
+        private int maxRequestsPerHost = 128;
+
+        /**
+         * 单主机并发已满时等待许可的最长时间
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+}
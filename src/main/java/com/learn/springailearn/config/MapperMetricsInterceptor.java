@@ -0,0 +1,85 @@
+package com.learn.springailearn.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper语句耗时统计插件
+ * 在Executor层按语句（如ChatRecordMapper.insertBatch）记录执行耗时，包含获取连接、执行SQL和结果映射，
+ * 用于替代逐条打印SQL的stdout日志定位慢查询
+ * @author ken
+ * @date 2026-01-21
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    /**
+     * 语句ID到短名称的缓存，避免每次执行都做字符串截取
+     */
+    private final Map<String, String> statementNames = new ConcurrentHashMap<>();
+
+    public MapperMetricsInterceptor(MeterRegistry meterRegistry, ObservabilityProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.getDb().isEnabled();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            Timer.builder("db.mapper.statement")
+                    .description("Mapper语句执行耗时")
+                    .tags("statement", statementName(statement.getId()),
+                            "command", statement.getSqlCommandType().name().toLowerCase(),
+                            "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * com.learn.springailearn.mapper.ChatRecordMapper.insertBatch -> ChatRecordMapper.insertBatch
+     */
+    private String statementName(String id) {
+        return statementNames.computeIfAbsent(id, key -> {
+            int method = key.lastIndexOf('.');
+            int type = method > 0 ? key.lastIndexOf('.', method - 1) : -1;
+            return key.substring(type + 1);
+        });
+    }
+}
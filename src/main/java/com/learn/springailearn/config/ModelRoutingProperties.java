@@ -0,0 +1,84 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多模型路由配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.routing")
+public class ModelRoutingProperties {
+
+    /**
+     * 是否启用按请求选择模型，关闭后使用模型的默认配置
+     */
+    private boolean enabled = true;
+
+    /**
+     * 候选模型，按成本/能力从低到高排列；降级时优先选择更便宜、更快的模型
+     */
+    private List<String> models = new ArrayList<>(List.of("qwen-turbo", "qwen-plus", "qwen-max"));
+
+    /**
+     * 提示词（含历史消息）达到该字符数时至少使用第二档模型
+     */
+    private int mediumPromptChars = 1000;
+
+    /**
+     * 提示词（含历史消息）达到该字符数时使用最高档模型
+     */
+    private int largePromptChars = 6000;
+
+    /**
+     * 用户消息包含这些关键词时视为复杂任务，模型提升一档
+     */
+    private List<String> complexKeywords = new ArrayList<>(List.of("代码", "推理", "证明", "算法", "架构", "step by step"));
+
+    /**
+     * 模型健康度判断
+     */
+    private Health health = new Health();
+
+    @Data
+    public static class Health {
+
+        /**
+         * 统计时间窗口，窗口外的调用不再参与统计（无流量的模型会随时间自动恢复）
+         */
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * 每个模型最多保留的调用样本数
+         */
+        private int maxSamples = 200;
+
+        /**
+         * 窗口内调用数低于该值时不判定为不健康
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 失败率超过该值视为不健康
+         */
+        private double maxErrorRate = 0.3;
+
+        /**
+         * P95耗时（流式调用为首个片段耗时）超过该值视为不健康
+         */
+        private Duration maxP95Latency = Duration.ofSeconds(20);
+
+        /**
+         * 重新计算健康状态的间隔，路由时使用最近一次计算的结果
+         */
+        private Duration refreshInterval = Duration.ofSeconds(1);
+    }
+}
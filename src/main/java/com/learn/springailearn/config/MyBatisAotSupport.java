@@ -0,0 +1,55 @@
+package com.learn.springailearn.config;
+
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+
+/**
+ * MyBatis Mapper扫描的Spring AOT适配（mvn package -Paot）
+ * 1. 构建期已把扫描结果生成为MapperFactoryBean定义，运行时不再执行MapperScannerConfigurer，否则会重复注册同名Bean；
+ * 2. 把Mapper接口显式设为构造参数和泛型目标类型，生成的代码才能实例化MapperFactoryBean并按Mapper接口类型注入
+ * @author ken
+ * @date 2026-01-21
+ */
+@Configuration(proxyBeanMethods = false)
+public class MyBatisAotSupport {
+
+    @Bean
+    static MergedBeanDefinitionPostProcessor mapperFactoryBeanTypeResolver() {
+        return new MapperFactoryBeanTypeResolver();
+    }
+
+    /**
+     * 构建期排除MapperScannerConfigurer（通过META-INF/spring/aot.factories注册）
+     */
+    static class MapperScannerExcludeFilter implements BeanRegistrationExcludeFilter {
+
+        @Override
+        public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+            return MapperScannerConfigurer.class == registeredBean.getBeanClass();
+        }
+    }
+
+    static class MapperFactoryBeanTypeResolver implements MergedBeanDefinitionPostProcessor {
+
+        @Override
+        public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+            if (!MapperFactoryBean.class.isAssignableFrom(beanType)) {
+                return;
+            }
+            if (beanDefinition.getPropertyValues().get("mapperInterface") instanceof Class<?> mapperInterface) {
+                ConstructorArgumentValues arguments = new ConstructorArgumentValues();
+                arguments.addIndexedArgumentValue(0, mapperInterface);
+                beanDefinition.setConstructorArgumentValues(arguments);
+                beanDefinition.setTargetType(ResolvableType.forClassWithGenerics(beanType, mapperInterface));
+            }
+        }
+    }
+}
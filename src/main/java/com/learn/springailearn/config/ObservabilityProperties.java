@@ -0,0 +1,56 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模型调用与数据库访问的可观测性配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.observability")
+public class ObservabilityProperties {
+
+    /**
+     * 模型调用结构化日志（每次调用一行摘要，不含提问和回答原文）
+     */
+    private CallLog callLog = new CallLog();
+
+    /**
+     * 数据库访问指标
+     */
+    private Db db = new Db();
+
+    @Data
+    public static class CallLog {
+
+        /**
+         * 是否输出模型调用摘要日志
+         */
+        private boolean enabled = true;
+
+        /**
+         * 成功调用的采样比例（0~1），失败和慢调用总是输出
+         */
+        private double sampleRate = 1.0;
+
+        /**
+         * 超过该耗时的调用视为慢调用，不参与采样
+         */
+        private Duration slowThreshold = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Db {
+
+        /**
+         * 是否统计Mapper语句耗时
+         */
+        private boolean enabled = true;
+    }
+}
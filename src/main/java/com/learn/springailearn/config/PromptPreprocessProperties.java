@@ -0,0 +1,72 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户提示词发送前预处理配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.prompt-preprocess")
+public class PromptPreprocessProperties {
+
+    /**
+     * 是否启用预处理（关闭后提示词原样发送，也不做上下文长度检查）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否规范化空白：统一换行、去掉行尾空白和零宽字符、合并行内连续空格和多余空行（代码块内只去行尾空白）
+     */
+    private boolean normalizeWhitespace = true;
+
+    /**
+     * 是否去掉重复的段落（以空行分隔，只保留第一次出现）
+     */
+    private boolean dedupeParagraphs = true;
+
+    /**
+     * 参与去重的最短段落长度，避免误删"好的"、代码中的"}"等常见短段落
+     */
+    private int dedupeMinLength = 32;
+
+    /**
+     * 用户提示词的token上限，超出时按溢出策略处理，0表示不限制
+     */
+    private int maxInputTokens = 6000;
+
+    /**
+     * 超出token上限时的处理策略
+     */
+    private OverflowStrategy overflowStrategy = OverflowStrategy.HEAD_TAIL;
+
+    /**
+     * 模型上下文长度（token），提示词+历史/系统指令+预留回答超出时直接拒绝，0表示不检查；
+     * 模型由路由在调用时选择，按候选模型中最小的上下文长度配置
+     */
+    private int maxContextTokens = 32768;
+
+    /**
+     * 为模型回答预留的token数
+     */
+    private int reservedCompletionTokens = 2048;
+
+    public enum OverflowStrategy {
+        /**
+         * 保留开头，截掉结尾
+         */
+        HEAD,
+        /**
+         * 保留开头和结尾（约2:1），省略中间部分，适合"资料+问题"形式的长提示词
+         */
+        HEAD_TAIL,
+        /**
+         * 直接拒绝
+         */
+        REJECT
+    }
+}
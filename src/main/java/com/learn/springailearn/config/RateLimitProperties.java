@@ -0,0 +1,96 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模型调用限流配置：按用户的令牌桶 + 全局自适应并发上限
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 按用户限流
+     */
+    private User user = new User();
+
+    /**
+     * 全局自适应并发上限
+     */
+    private Concurrency concurrency = new Concurrency();
+
+    @Data
+    public static class User {
+
+        /**
+         * 是否启用按用户限流
+         */
+        private boolean enabled = true;
+
+        /**
+         * 令牌桶容量，即单个用户允许的突发请求数
+         */
+        private int capacity = 10;
+
+        /**
+         * 每秒补充的令牌数，即单个用户的持续请求速率
+         */
+        private double refillPerSecond = 0.5;
+
+        /**
+         * 内存中最多保留的用户令牌桶数量
+         */
+        private long maximumUsers = 100000;
+
+        /**
+         * 用户空闲多久后释放令牌桶（应不小于令牌桶从空到满所需时间）
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Concurrency {
+
+        /**
+         * 是否启用全局自适应并发上限
+         */
+        private boolean enabled = true;
+
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 20;
+
+        /**
+         * 并发上限的下界
+         */
+        private int minLimit = 2;
+
+        /**
+         * 并发上限的上界（不应超过DashScope账号的并发配额）
+         */
+        private int maxLimit = 200;
+
+        /**
+         * 调用耗时超过该值视为上游过载，与429、超时一样触发降低上限
+         */
+        private Duration latencyThreshold = Duration.ofSeconds(30);
+
+        /**
+         * 过载时上限的乘性收缩系数
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 超出全局并发上限被拒绝时建议的重试等待时间
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
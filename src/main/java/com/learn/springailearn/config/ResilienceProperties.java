@@ -0,0 +1,165 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模型调用容错配置：重试、截止时间预算、熔断、对冲请求
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.resilience")
+public class ResilienceProperties {
+
+    /**
+     * 重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 截止时间预算配置
+     */
+    private Deadline deadline = new Deadline();
+
+    /**
+     * 熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 对冲请求配置
+     */
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 最大尝试次数（含首次调用）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 首次重试的基础退避时间
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        /**
+         * 退避时间上限
+         */
+        private Duration maxBackoff = Duration.ofSeconds(5);
+
+        /**
+         * 退避时间的指数增长系数
+         */
+        private double multiplier = 2.0;
+    }
+
+    @Data
+    public static class Deadline {
+
+        /**
+         * 未传请求头时的默认时间预算
+         */
+        private Duration defaultTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 时间预算上限，客户端传入的值超过该值时按该值截断
+         */
+        private Duration maxTimeout = Duration.ofSeconds(180);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计失败率的滑动窗口大小（最近N次调用）
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * 窗口内至少有多少次调用才计算失败率
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 失败率达到该值时打开熔断（0~1）
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 熔断打开后多久进入半开状态试探
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态允许的试探调用数，全部成功后关闭熔断
+         */
+        private int halfOpenPermittedCalls = 3;
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否启用对冲请求（仅对endpoints中配置的接口生效）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 对冲调用数占首次调用数的比例上限，限制对上游额外增加的负载
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * 预算可累积的最大对冲次数，允许短时间的突发
+         */
+        private int budgetBurst = 10;
+
+        /**
+         * 每个接口保留的最近耗时样本数
+         */
+        private int maxSamples = 512;
+
+        /**
+         * 样本数达到该值前不发起对冲（无法可靠估计分位数）
+         */
+        private int minSamples = 20;
+
+        /**
+         * 按接口（chat_endpoint）开启对冲及其延迟配置
+         */
+        private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 首次调用超过该分位数耗时仍未返回时发起对冲调用（0~1）
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲延迟下限，避免对本就很快的调用加倍请求
+         */
+        private Duration minDelay = Duration.ofMillis(500);
+
+        /**
+         * 对冲延迟上限
+         */
+        private Duration maxDelay = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,64 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 模型响应缓存配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存的最大条目数
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 缓存条目写入后的存活时间
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 开启缓存的接口标识，未列出的接口不读写缓存
+     */
+    private Set<String> endpoints = new HashSet<>();
+
+    /**
+     * 语义相似缓存配置
+     */
+    private Semantic semantic = new Semantic();
+
+    @Data
+    public static class Semantic {
+
+        /**
+         * 是否启用语义相似匹配（需要容器中存在EmbeddingModel）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 余弦相似度阈值，达到该值视为同一问题
+         */
+        private double similarityThreshold = 0.95;
+
+        /**
+         * 向量索引的最大条目数
+         */
+        private int maximumEntries = 2000;
+    }
+}
@@ -0,0 +1,60 @@
+package com.learn.springailearn.config;
+
+import com.learn.springailearn.cache.HistoryInvalidationChannel;
+import com.learn.springailearn.shared.InMemorySharedStateStore;
+import com.learn.springailearn.shared.RedisSharedStateStore;
+import com.learn.springailearn.shared.SharedStateInvalidationChannel;
+import com.learn.springailearn.shared.SharedStateStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 节点间共享状态存储配置
+ * 默认使用节点内存（单节点）；app.shared-state.type=redis 时改用Redis，并通过Redis发布/订阅广播对话记录缓存失效。
+ * Redis自动配置在启动类上排除，只在redis模式下导入，内存模式不会创建Lettuce连接工厂和Redis模板
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class SharedStateConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.shared-state", name = "type", havingValue = "memory", matchIfMissing = true)
+    public SharedStateStore inMemorySharedStateStore(SharedStateProperties properties) {
+        return new InMemorySharedStateStore(properties.getMemory().getMaximumEntries());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "app.shared-state", name = "type", havingValue = "redis")
+    @Import(RedisAutoConfiguration.class)
+    static class RedisSharedStateConfig {
+
+        @Bean
+        public RedisMessageListenerContainer sharedStateListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        @Bean
+        public SharedStateStore redisSharedStateStore(StringRedisTemplate redisTemplate,
+                                                      RedisMessageListenerContainer sharedStateListenerContainer,
+                                                      SharedStateProperties properties) {
+            log.info("共享状态使用Redis存储，键前缀：{}", properties.getKeyPrefix());
+            return new RedisSharedStateStore(redisTemplate, sharedStateListenerContainer, properties.getKeyPrefix());
+        }
+
+        @Bean
+        public HistoryInvalidationChannel sharedStateInvalidationChannel(SharedStateStore redisSharedStateStore) {
+            return new SharedStateInvalidationChannel(redisSharedStateStore);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 节点间共享状态配置（响应缓存、用户限流计数、进行中请求去重）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.shared-state")
+public class SharedStateProperties {
+
+    /**
+     * 存储类型：memory（单节点，状态保存在本节点内存）、redis（多节点共享，连接配置见spring.data.redis）
+     */
+    private Type type = Type.MEMORY;
+
+    /**
+     * Redis中所有键和频道的前缀，多个应用共用同一个Redis时用于隔离
+     */
+    private String keyPrefix = "spring-ai-learn:";
+
+    /**
+     * 内存存储
+     */
+    private Memory memory = new Memory();
+
+    /**
+     * 跨节点的进行中请求去重
+     */
+    private SingleFlight singleFlight = new SingleFlight();
+
+    public enum Type {
+        MEMORY,
+        REDIS
+    }
+
+    @Data
+    public static class Memory {
+
+        /**
+         * 最多保存的键数量，超出时先清理已过期的键，仍超出则淘汰任意键
+         */
+        private int maximumEntries = 100000;
+    }
+
+    @Data
+    public static class SingleFlight {
+
+        /**
+         * leader节点持有请求锁的时长，应大于单次模型调用的最长耗时（app.ai.resilience.deadline.max-timeout），
+         * 也是follower等待进行中调用的上限：leader卡住或节点宕机时，本节点和其他节点的follower最多等待该时长
+         * （且不超过调用方的剩余截止时间）后自行调用
+         */
+        private Duration lease = Duration.ofSeconds(200);
+
+        /**
+         * leader写入的调用结果保留时长，只需覆盖其他节点收到完成通知后读取结果的时间
+         */
+        private Duration resultTtl = Duration.ofSeconds(10);
+
+        /**
+         * 等待其他节点调用结果时的轮询间隔（完成通知丢失时的兜底）
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+    }
+}
@@ -0,0 +1,24 @@
+package com.learn.springailearn.config;
+
+import com.learn.springailearn.service.ChatRecordArchiveService;
+import com.learn.springailearn.usage.TokenUsageTracker;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动相关配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    /**
+     * 开启懒加载（prod）时仍需在启动时创建的Bean：定时任务只有在Bean创建后才会注册
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerInitializedBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ChatRecordArchiveService.class, TokenUsageTracker.class);
+    }
+}
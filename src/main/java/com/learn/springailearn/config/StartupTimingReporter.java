@@ -0,0 +1,86 @@
+package com.learn.springailearn.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 启动耗时报告
+ * 应用就绪后从{@link BufferingApplicationStartup}的时间线中统计各启动阶段和最慢的Bean实例化（含依赖的Bean）并输出日志；
+ * 完整时间线可通过/actuator/startup获取
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class StartupTimingReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * 时间线缓冲容量，超出后的启动步骤不再记录
+     */
+    public static final int TIMELINE_CAPACITY = 4096;
+
+    private static final String BEAN_INSTANTIATE_STEP = "spring.beans.instantiate";
+
+    private final int topSteps;
+
+    public StartupTimingReporter(@Value("${app.startup.report.top-steps:10}") int topSteps) {
+        this.topSteps = topSteps;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (topSteps <= 0
+                || !(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        log.info("应用启动完成，总耗时：{}ms\n{}", event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis(),
+                report(startup.getBufferedTimeline(), topSteps));
+    }
+
+    /**
+     * 生成启动耗时报告：顶层阶段耗时 + 最慢的N个Bean实例化
+     * @param timeline 启动时间线
+     * @param topSteps 列出的Bean数量
+     * @return 报告文本
+     */
+    public static String report(StartupTimeline timeline, int topSteps) {
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+        StringBuilder report = new StringBuilder("启动阶段：");
+        events.stream()
+                .filter(event -> event.getStartupStep().getParentId() == null)
+                .forEach(event -> report.append("\n  ").append(format(event.getDuration()))
+                        .append(' ').append(event.getStartupStep().getName()));
+        List<StartupTimeline.TimelineEvent> beans = events.stream()
+                .filter(event -> BEAN_INSTANTIATE_STEP.equals(event.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .toList();
+        report.append("\n实例化Bean：").append(beans.size()).append("个，最慢的").append(Math.min(topSteps, beans.size()))
+                .append("个（含依赖）：");
+        beans.stream().limit(topSteps).forEach(event -> report.append("\n  ").append(format(event.getDuration()))
+                .append(' ').append(tag(event.getStartupStep(), "beanName")));
+        return report.toString();
+    }
+
+    private static String format(Duration duration) {
+        return String.format("%6dms", duration.toMillis());
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
@@ -0,0 +1,49 @@
+package com.learn.springailearn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * token用量统计与每日额度配置
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.usage")
+public class TokenUsageProperties {
+
+    /**
+     * 内存中的用量增量合并写入汇总表的间隔（同时刷新其他节点产生的用量）
+     */
+    private Duration flushInterval = Duration.ofSeconds(10);
+
+    /**
+     * 每日额度
+     */
+    private Quota quota = new Quota();
+
+    @Data
+    public static class Quota {
+
+        /**
+         * 是否在调用模型前检查每日额度
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个用户每日可用的token数（输入+输出），0表示不限制
+         */
+        private long dailyTokens = 0;
+
+        /**
+         * 按用户覆盖的每日token数（用户ID -> 额度，0表示不限制）
+         */
+        private Map<String, Long> userDailyTokens = new HashMap<>();
+    }
+}
@@ -0,0 +1,70 @@
+package com.learn.springailearn.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * 虚拟线程支持工具
+ * 项目默认以Java 17编译，虚拟线程相关API通过反射获取，运行在Java 21及以上时才真正启用
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+public final class VirtualThreadSupport {
+
+    private VirtualThreadSupport() {
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    public static boolean isAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * @param namePrefix 线程名前缀
+     * @return 虚拟线程执行器
+     * @throws IllegalStateException 当前JVM不支持虚拟线程时抛出
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("当前JVM版本不支持虚拟线程：" + Runtime.version());
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+
+    /**
+     * 按开关创建执行器：开启且JVM支持时使用虚拟线程，否则使用给定的平台线程执行器
+     * @param virtualEnabled 是否开启虚拟线程
+     * @param namePrefix 线程名前缀
+     * @param platformFallback 平台线程执行器工厂
+     * @return 执行器
+     */
+    public static ExecutorService executor(boolean virtualEnabled, String namePrefix,
+                                           Supplier<ExecutorService> platformFallback) {
+        if (virtualEnabled && isAvailable()) {
+            log.info("执行器[{}]使用虚拟线程", namePrefix);
+            return newVirtualThreadPerTaskExecutor(namePrefix);
+        }
+        if (virtualEnabled) {
+            log.warn("已开启虚拟线程但当前JVM版本为{}，执行器[{}]退回平台线程", Runtime.version().feature(), namePrefix);
+        }
+        return platformFallback.get();
+    }
+}
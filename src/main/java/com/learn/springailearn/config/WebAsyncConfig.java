@@ -0,0 +1,54 @@
+package com.learn.springailearn.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * 异步请求超时配置
+ * 问答接口返回CompletableFuture，超时由调用截止时间（app.ai.resilience.deadline）控制并返回504；
+ * Servlet容器的异步超时（Tomcat默认30秒）必须晚于最长截止时间，否则慢调用或重试中的请求会先被容器以503中断。
+ * SSE流式接口同样经过MVC异步处理，整段回答生成完才保存对话记录，超时被截断时记录也会丢失，其时长上限由app.web.stream-timeout控制。
+ * 因此异步超时取（截止时间上限 + 余量）与流式时长上限中的较大者，spring.mvc.async.request-timeout配置得更大时以配置为准
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    /**
+     * 截止时间到达后还需要完成取消、生成504响应，留出的余量
+     */
+    private static final Duration MARGIN = Duration.ofSeconds(10);
+
+    private final Duration timeout;
+
+    public WebAsyncConfig(ResilienceProperties resilienceProperties,
+                          @Value("${app.web.stream-timeout:10m}") Duration streamTimeout,
+                          @Value("${spring.mvc.async.request-timeout:0s}") Duration configuredTimeout) {
+        Duration derived = max(resilienceProperties.getDeadline().getMaxTimeout().plus(MARGIN), streamTimeout);
+        this.timeout = max(derived, configuredTimeout);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeout.toMillis());
+        log.debug("异步请求超时：{}ms", timeout.toMillis());
+    }
+
+    /**
+     * 生效的异步请求超时
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    private static Duration max(Duration first, Duration second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+}
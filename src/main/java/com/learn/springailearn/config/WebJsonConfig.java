@@ -0,0 +1,32 @@
+package com.learn.springailearn.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 可选的fastjson2消息转换器（app.web.fastjson2.enabled=true时启用）
+ * 插入在Jackson转换器之前，使String、byte[]等转换器的优先级保持不变
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.web.fastjson2", name = "enabled", havingValue = "true")
+public class WebJsonConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        int index = 0;
+        while (index < converters.size() && !(converters.get(index) instanceof MappingJackson2HttpMessageConverter)) {
+            index++;
+        }
+        converters.add(index, new Fastjson2HttpMessageConverter());
+        log.info("已启用fastjson2消息转换器处理接口请求/响应");
+    }
+}
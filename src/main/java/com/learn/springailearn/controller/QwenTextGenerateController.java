@@ -1,19 +1,32 @@
 package com.learn.springailearn.controller;
 
+import com.learn.springailearn.domain.BatchGenerateRequest;
+import com.learn.springailearn.domain.BatchItemResult;
+import com.learn.springailearn.domain.BatchJobStatus;
+import com.learn.springailearn.domain.SystemPromptGenerateRequest;
+import com.learn.springailearn.domain.TemplateRegisterRequest;
+import com.learn.springailearn.domain.TextGenerateRequest;
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import com.learn.springailearn.resilience.CircuitBreakerOpenException;
 import com.learn.springailearn.service.QwenTextGenerateService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.Map;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @RestController
@@ -28,19 +41,22 @@ public class QwenTextGenerateController {
 
     /**
      * 基础文本生成接口
-     * @param request 请求参数，包含userPrompt字段
+     * @param request 文本生成请求
      * @return 生成的文本内容
      */
     @PostMapping("/generate")
     @Operation(summary = "基础文本生成", description = "传入用户提示词，返回通义千问生成的文本")
-    public ResponseEntity<String> generateText(@RequestBody Map<String, String> request) {
-        String userPrompt = request.get("userPrompt");
+    public ResponseEntity<String> generateText(@Valid @RequestBody TextGenerateRequest request) {
         try {
-            String result = qwenTextGenerateService.generateText(userPrompt);
+            String result = qwenTextGenerateService.generateText(request.getUserPrompt());
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             log.error("文本生成失败：{}", e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RateLimitExceededException e) {
+            return RejectionResponses.tooManyRequests(e, e.getMessage());
+        } catch (CircuitBreakerOpenException e) {
+            return RejectionResponses.serviceUnavailable(e, e.getMessage());
         } catch (Exception e) {
             log.error("文本生成异常", e);
             return new ResponseEntity<>("服务器内部错误", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -49,26 +65,162 @@ public class QwenTextGenerateController {
 
     /**
      * 带系统指令的文本生成接口
-     * @param request 请求参数，包含systemPrompt、userPrompt、params字段
+     * @param request 带系统指令的文本生成请求（systemPrompt或已注册的templateId二选一）
      * @return 生成的文本内容
      */
     @PostMapping("/generate-with-system")
-    @Operation(summary = "带系统指令的文本生成", description = "传入系统指令、用户提示词和动态参数，返回标准化的生成文本")
-    public ResponseEntity<String> generateTextWithSystemPrompt(@RequestBody Map<String, Object> request) {
-        String systemPrompt = (String) request.get("systemPrompt");
-        String userPrompt = (String) request.get("userPrompt");
-        Map<String, Object> params = (Map<String, Object>) request.get("params");
+    @Operation(summary = "带系统指令的文本生成", description = "传入系统指令（或已注册的模板ID）、用户提示词和动态参数，返回标准化的生成文本")
+    public ResponseEntity<String> generateTextWithSystemPrompt(@Valid @RequestBody SystemPromptGenerateRequest request) {
         try {
-            String result = qwenTextGenerateService.generateTextWithSystemPrompt(systemPrompt, userPrompt, params);
+            String result = request.getTemplateId() != null
+                    ? qwenTextGenerateService.generateTextWithTemplate(request.getTemplateId(),
+                    request.getUserPrompt(), request.getParams())
+                    : qwenTextGenerateService.generateTextWithSystemPrompt(request.getSystemPrompt(),
+                    request.getUserPrompt(), request.getParams());
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             log.error("带系统指令的文本生成失败：{}", e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RateLimitExceededException e) {
+            return RejectionResponses.tooManyRequests(e, e.getMessage());
+        } catch (CircuitBreakerOpenException e) {
+            return RejectionResponses.serviceUnavailable(e, e.getMessage());
         } catch (Exception e) {
             log.error("带系统指令的文本生成异常", e);
             return new ResponseEntity<>("服务器内部错误", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * 注册系统指令模板
+     * @param request 模板注册请求
+     * @return 注册结果
+     */
+    @PostMapping("/templates")
+    @Operation(summary = "注册系统指令模板", description = "按ID注册系统指令模板，之后生成接口可以只传templateId和params")
+    public ResponseEntity<String> registerTemplate(@Valid @RequestBody TemplateRegisterRequest request) {
+        try {
+            qwenTextGenerateService.registerSystemTemplate(request.getTemplateId(), request.getTemplate());
+            return new ResponseEntity<>(request.getTemplateId(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("注册系统指令模板失败：{}", e.getMessage(), e);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("注册系统指令模板异常", e);
+            return new ResponseEntity<>("服务器内部错误", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 流式文本生成接口（SSE）
+     * @param request 文本生成请求
+     * @return 生成文本片段的事件流
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式文本生成", description = "传入用户提示词，以SSE方式逐段推送通义千问生成的文本")
+    public ResponseEntity<Flux<String>> generateTextStream(@Valid @RequestBody TextGenerateRequest request) {
+        try {
+            Flux<String> result = qwenTextGenerateService.generateTextStream(request.getUserPrompt());
+            return new ResponseEntity<>(RejectionResponses.onRejected(result), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("流式文本生成失败：{}", e.getMessage(), e);
+            return new ResponseEntity<>(Flux.just(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("流式文本生成异常", e);
+            return new ResponseEntity<>(Flux.just("服务器内部错误"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 带系统指令的流式文本生成接口（SSE）
+     * @param request 带系统指令的文本生成请求（systemPrompt或已注册的templateId二选一）
+     * @return 生成文本片段的事件流
+     */
+    @PostMapping(value = "/generate-with-system/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "带系统指令的流式文本生成", description = "传入系统指令（或已注册的模板ID）、用户提示词和动态参数，以SSE方式逐段推送生成文本")
+    public ResponseEntity<Flux<String>> generateTextWithSystemPromptStream(
+            @Valid @RequestBody SystemPromptGenerateRequest request) {
+        try {
+            Flux<String> result = request.getTemplateId() != null
+                    ? qwenTextGenerateService.generateTextWithTemplateStream(request.getTemplateId(),
+                    request.getUserPrompt(), request.getParams())
+                    : qwenTextGenerateService.generateTextWithSystemPromptStream(request.getSystemPrompt(),
+                    request.getUserPrompt(), request.getParams());
+            return new ResponseEntity<>(RejectionResponses.onRejected(result), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("带系统指令的流式文本生成失败：{}", e.getMessage(), e);
+            return new ResponseEntity<>(Flux.just(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("带系统指令的流式文本生成异常", e);
+            return new ResponseEntity<>(Flux.just("服务器内部错误"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 批量文本生成接口（NDJSON流），每完成一个条目推送一行结果
+     * @param request 批量请求，包含systemPrompt、params、items、parallelism字段
+     * @return 条目结果流，按完成顺序返回，用index对应请求条目
+     */
+    @PostMapping(value = "/generate-batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "批量文本生成", description = "多条提示词共享系统指令模板，有限并行调用模型，以NDJSON逐条返回结果，单条失败不影响其余条目")
+    public ResponseEntity<Flux<BatchItemResult>> generateBatch(@Valid @RequestBody BatchGenerateRequest request) {
+        try {
+            Flux<BatchItemResult> result = qwenTextGenerateService.generateBatch(request);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("批量文本生成参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("批量文本生成异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
+    /**
+     * 提交批量文本生成异步任务
+     * @param request 批量请求
+     * @return 任务ID及初始状态
+     */
+    @PostMapping("/generate-batch/jobs")
+    @Operation(summary = "提交批量文本生成任务", description = "适用于条目很多的离线任务，立即返回任务ID，通过查询接口轮询结果")
+    public ResponseEntity<BatchJobStatus> submitBatchJob(@Valid @RequestBody BatchGenerateRequest request) {
+        try {
+            String jobId = qwenTextGenerateService.submitBatchJob(request);
+            return new ResponseEntity<>(qwenTextGenerateService.getBatchJob(jobId, 0), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            log.error("提交批量文本生成任务参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("提交批量文本生成任务异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 查询批量文本生成任务状态
+     * @param jobId 任务ID
+     * @param offset 已读取的结果数
+     * @return 任务状态及offset之后完成的条目结果
+     */
+    @GetMapping("/generate-batch/jobs/{jobId}")
+    @Operation(summary = "查询批量文本生成任务", description = "返回任务进度及offset之后新完成的条目结果")
+    public ResponseEntity<BatchJobStatus> getBatchJob(
+            @Parameter(description = "任务ID", required = true)
+            @PathVariable String jobId,
+            @Parameter(description = "已读取的结果数，首次查询传0")
+            @RequestParam(defaultValue = "0") int offset) {
+        try {
+            BatchJobStatus status = qwenTextGenerateService.getBatchJob(jobId, offset);
+            if (status == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(status, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("查询批量文本生成任务参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("查询批量文本生成任务异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package com.learn.springailearn.controller;
+
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import com.learn.springailearn.resilience.CircuitBreakerOpenException;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 限流、熔断、超时等拒绝类响应的构建
+ * @author ken
+ * @date 2026-01-21
+ */
+final class RejectionResponses {
+
+    private RejectionResponses() {
+    }
+
+    /**
+     * 同步接口：HTTP 429 + Retry-After
+     */
+    static <T> ResponseEntity<T> tooManyRequests(RateLimitExceededException e, T body) {
+        return withRetryAfter(HttpStatus.TOO_MANY_REQUESTS, e.getRetryAfterSeconds(), body);
+    }
+
+    /**
+     * 同步接口：HTTP 503 + Retry-After
+     */
+    static <T> ResponseEntity<T> serviceUnavailable(CircuitBreakerOpenException e, T body) {
+        return withRetryAfter(HttpStatus.SERVICE_UNAVAILABLE, e.getRetryAfterSeconds(), body);
+    }
+
+    /**
+     * 异步接口的失败映射：参数错误400、限流429、熔断503、超出时间预算504，其余为null交由调用方处理
+     */
+    static ResponseEntity<String> rejection(Throwable error) {
+        Throwable cause = LlmErrorClassifier.unwrap(error);
+        if (cause instanceof IllegalArgumentException) {
+            return new ResponseEntity<>(cause.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        if (cause instanceof RateLimitExceededException rateLimited) {
+            return tooManyRequests(rateLimited, rateLimited.getMessage());
+        }
+        if (cause instanceof CircuitBreakerOpenException circuitOpen) {
+            return serviceUnavailable(circuitOpen, circuitOpen.getMessage());
+        }
+        if (cause instanceof TimeoutException) {
+            return new ResponseEntity<>("模型调用超出请求时间预算", HttpStatus.GATEWAY_TIMEOUT);
+        }
+        return null;
+    }
+
+    /**
+     * 流式接口：限流和熔断发生在订阅时，此时SSE响应头已发出，改为推送一条提示后结束流
+     */
+    static Flux<String> onRejected(Flux<String> stream) {
+        return stream
+                .onErrorResume(RateLimitExceededException.class,
+                        e -> Flux.just(e.getMessage() + "（请" + e.getRetryAfterSeconds() + "秒后重试）"))
+                .onErrorResume(CircuitBreakerOpenException.class,
+                        e -> Flux.just(e.getMessage() + "（请" + e.getRetryAfterSeconds() + "秒后重试）"));
+    }
+
+    private static <T> ResponseEntity<T> withRetryAfter(HttpStatus status, long retryAfterSeconds, T body) {
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(body);
+    }
+}
@@ -0,0 +1,36 @@
+package com.learn.springailearn.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * 请求体声明式校验失败的统一响应：HTTP 400 + 纯文本错误信息（与各接口参数错误的响应格式一致）
+ * 校验在反序列化之后、进入Controller之前完成，超限请求不会触发模型调用
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@RestControllerAdvice
+public class RequestValidationAdvice {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<String> handleInvalidRequest(MethodArgumentNotValidException e) {
+        String message = e.getBindingResult().getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .collect(Collectors.joining("；"));
+        log.warn("请求参数校验失败：{}", message);
+        // 显式指定纯文本，SSE/NDJSON接口的校验失败也能正常返回
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(message);
+    }
+}
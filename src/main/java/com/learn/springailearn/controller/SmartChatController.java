@@ -1,17 +1,26 @@
 package com.learn.springailearn.controller;
 
 import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordPage;
+import com.learn.springailearn.domain.ChatRecordSearchPage;
+import com.learn.springailearn.domain.SmartChatRequest;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
 import com.learn.springailearn.service.SmartChatService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 智能问答接口
@@ -28,23 +37,55 @@ public class SmartChatController {
 
     /**
      * 智能问答并保存记录
-     * @param request 请求参数：userId（用户ID）、userPrompt（提问内容）
+     * 异步返回，模型调用及重试退避期间不占用Servlet线程
+     * @param request 智能问答请求
+     * @param requestTimeoutMs 客户端剩余时间预算（毫秒），重试不会超出该预算
      * @return AI回答内容
      */
     @PostMapping("/chat")
     @Operation(summary = "智能问答", description = "提交用户提问，返回AI回答并保存对话记录")
-    public ResponseEntity<String> chat(@RequestBody Map<String, String> request) {
-        String userId = request.get("userId");
-        String userPrompt = request.get("userPrompt");
+    public CompletableFuture<ResponseEntity<String>> chat(
+            @Valid @RequestBody SmartChatRequest request,
+            @Parameter(description = "客户端剩余时间预算（毫秒）")
+            @RequestHeader(value = LlmCallExecutor.DEADLINE_HEADER, required = false) Long requestTimeoutMs) {
         try {
-            String result = smartChatService.chatAndSaveRecord(userId, userPrompt);
-            return new ResponseEntity<>(result, HttpStatus.OK);
+            return smartChatService.chatAndSaveRecord(request.getUserId(), request.getUserPrompt(),
+                            request.getSessionId(), request.getModel(), requestTimeoutMs)
+                    .thenApply(result -> new ResponseEntity<>(result, HttpStatus.OK))
+                    .exceptionally(e -> {
+                        ResponseEntity<String> rejection = RejectionResponses.rejection(e);
+                        if (rejection != null) {
+                            return rejection;
+                        }
+                        // 失败只在这里记录一次，服务层不再重复打印
+                        log.error("智能问答处理异常，用户ID：{}", request.getUserId(), LlmErrorClassifier.unwrap(e));
+                        return new ResponseEntity<>("智能问答处理失败：" + LlmErrorClassifier.unwrap(e).getMessage(),
+                                HttpStatus.INTERNAL_SERVER_ERROR);
+                    });
         } catch (IllegalArgumentException e) {
             log.error("智能问答参数错误：{}", e.getMessage(), e);
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+        }
+    }
+
+    /**
+     * 流式智能问答（SSE），回答片段实时推送，流结束后保存对话记录
+     * @param request 智能问答请求
+     * @return AI回答片段的事件流
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式智能问答", description = "以SSE方式推送AI回答片段，完整回答生成后保存对话记录")
+    public ResponseEntity<Flux<String>> chatStream(@Valid @RequestBody SmartChatRequest request) {
+        try {
+            Flux<String> result = smartChatService.chatStreamAndSaveRecord(request.getUserId(), request.getUserPrompt(),
+                    request.getSessionId(), request.getModel());
+            return new ResponseEntity<>(RejectionResponses.onRejected(result), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("流式智能问答参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(Flux.just(e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
-            log.error("智能问答处理异常", e);
-            return new ResponseEntity<>("智能问答处理失败：" + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            log.error("流式智能问答处理异常", e);
+            return new ResponseEntity<>(Flux.just("智能问答处理失败：" + e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
@@ -70,6 +111,93 @@ public class SmartChatController {
         }
     }
 
+    /**
+     * 游标分页查询用户对话记录摘要
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    @GetMapping("/history/{userId}")
+    @Operation(summary = "分页查询对话历史", description = "按创建时间倒序游标分页，仅返回记录摘要")
+    public ResponseEntity<ChatRecordPage> queryChatHistory(
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "上一页返回的游标，首页不传")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            ChatRecordPage page = smartChatService.queryChatRecordPage(userId, cursor, size);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("分页查询对话历史参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("分页查询对话历史异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 全文检索对话记录
+     * @param userId 用户ID
+     * @param keyword 检索关键词
+     * @param page 页码
+     * @param size 每页条数
+     * @return 检索结果
+     */
+    @GetMapping("/history/{userId}/search")
+    @Operation(summary = "全文检索对话历史", description = "在提问和回答中检索关键词，按相关度倒序分页，多个关键词以空格分隔")
+    public ResponseEntity<ChatRecordSearchPage> searchChatHistory(
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "检索关键词", required = true)
+            @RequestParam String keyword,
+            @Parameter(description = "页码，从1开始")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "每页条数")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            ChatRecordSearchPage result = smartChatService.searchChatRecords(userId, keyword, page, size);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("全文检索对话历史参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("全文检索对话历史异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 查询单条对话记录详情
+     * @param userId 用户ID
+     * @param recordId 记录ID
+     * @return 对话记录详情
+     */
+    @GetMapping("/history/{userId}/{recordId}")
+    @Operation(summary = "查询对话记录详情", description = "根据用户ID和记录ID查询完整的对话内容")
+    public ResponseEntity<ChatRecord> queryChatRecordDetail(
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "对话记录ID", required = true)
+            @PathVariable Long recordId) {
+        try {
+            ChatRecord record = smartChatService.queryChatRecordDetail(userId, recordId);
+            if (record == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(record, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("查询对话记录详情参数错误：{}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("查询对话记录详情异常", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 删除对话记录（逻辑删除）
      * @param recordId 记录ID
@@ -0,0 +1,53 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量文本生成请求：多条用户提示词共享同一系统指令模板
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "BatchGenerateRequest", description = "批量文本生成请求")
+public class BatchGenerateRequest {
+    /**
+     * 共享的系统指令模板，与templateId二选一
+     */
+    @Size(max = RequestLimits.MAX_SYSTEM_PROMPT_LENGTH, message = "系统指令长度不能超过{max}")
+    @Schema(description = "共享的系统指令模板，与templateId二选一")
+    private String systemPrompt;
+
+    /**
+     * 已注册的系统指令模板ID，优先于systemPrompt
+     */
+    @Size(max = RequestLimits.MAX_ID_LENGTH, message = "模板ID长度不能超过{max}")
+    @Schema(description = "已注册的系统指令模板ID，优先于systemPrompt")
+    private String templateId;
+
+    /**
+     * 所有条目共用的模板参数，条目自身的参数优先
+     */
+    @Size(max = RequestLimits.MAX_PARAMS, message = "模板参数个数不能超过{max}")
+    @Schema(description = "所有条目共用的模板参数，条目自身的参数优先")
+    private Map<String, Object> params;
+
+    /**
+     * 待生成的条目
+     */
+    @NotEmpty(message = "批量条目不能为空")
+    @Schema(description = "待生成的条目", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<@Valid BatchPromptItem> items;
+
+    /**
+     * 期望的并行度，超过服务端上限时按上限执行
+     */
+    @Schema(description = "期望的并行度，超过服务端上限时按上限执行")
+    private Integer parallelism;
+}
@@ -0,0 +1,49 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 批量文本生成中单个条目的结果
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "BatchItemResult", description = "批量文本生成条目结果")
+public class BatchItemResult {
+    /**
+     * 条目在请求中的下标（结果按完成顺序返回，用下标对应请求）
+     */
+    @Schema(description = "条目在请求中的下标")
+    private int index;
+
+    /**
+     * 调用方自定义的条目标识
+     */
+    @Schema(description = "调用方自定义的条目标识")
+    private String id;
+
+    /**
+     * 是否生成成功
+     */
+    @Schema(description = "是否生成成功")
+    private boolean success;
+
+    /**
+     * 生成的文本内容
+     */
+    @Schema(description = "生成的文本内容")
+    private String content;
+
+    /**
+     * 失败原因
+     */
+    @Schema(description = "失败原因")
+    private String error;
+
+    /**
+     * 条目耗时（毫秒）
+     */
+    @Schema(description = "条目耗时（毫秒）")
+    private long latencyMs;
+}
@@ -0,0 +1,64 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量文本生成异步任务的状态快照
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "BatchJobStatus", description = "批量文本生成异步任务状态")
+public class BatchJobStatus {
+    /**
+     * 任务ID
+     */
+    @Schema(description = "任务ID")
+    private String jobId;
+
+    /**
+     * 任务状态：RUNNING、COMPLETED
+     */
+    @Schema(description = "任务状态：RUNNING、COMPLETED")
+    private String status;
+
+    /**
+     * 条目总数
+     */
+    @Schema(description = "条目总数")
+    private int total;
+
+    /**
+     * 成功条目数
+     */
+    @Schema(description = "成功条目数")
+    private int succeeded;
+
+    /**
+     * 失败条目数
+     */
+    @Schema(description = "失败条目数")
+    private int failed;
+
+    /**
+     * 创建时间
+     */
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    /**
+     * 从offset开始的已完成条目结果（按完成顺序）
+     */
+    @Schema(description = "从offset开始的已完成条目结果（按完成顺序）")
+    private List<BatchItemResult> results;
+
+    /**
+     * 下次轮询应传入的offset
+     */
+    @Schema(description = "下次轮询应传入的offset")
+    private int nextOffset;
+}
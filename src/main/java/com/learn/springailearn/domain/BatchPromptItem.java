@@ -0,0 +1,36 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 批量文本生成中的单个条目
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "BatchPromptItem", description = "批量文本生成条目")
+public class BatchPromptItem {
+    /**
+     * 调用方自定义的条目标识，原样返回
+     */
+    @Schema(description = "调用方自定义的条目标识，原样返回")
+    private String id;
+
+    /**
+     * 用户提示词（为空时仅该条目失败，不拒绝整批）
+     */
+    @Size(max = RequestLimits.MAX_PROMPT_LENGTH, message = "用户提示词长度不能超过{max}")
+    @Schema(description = "用户提示词", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String userPrompt;
+
+    /**
+     * 条目自身的模板参数
+     */
+    @Size(max = RequestLimits.MAX_PARAMS, message = "模板参数个数不能超过{max}")
+    @Schema(description = "条目自身的模板参数")
+    private Map<String, Object> params;
+}
@@ -1,5 +1,6 @@
 package com.learn.springailearn.domain;
 
+import com.alibaba.fastjson2.annotation.JSONField;
 import com.baomidou.mybatisplus.annotation.*;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -29,6 +30,13 @@ public class ChatRecord {
     @Schema(description = "用户ID")
     private String userId;
 
+    /**
+     * 会话ID（同一用户的多轮对话上下文）
+     */
+    @TableField("session_id")
+    @Schema(description = "会话ID")
+    private String sessionId;
+
     /**
      * 用户提问内容
      */
@@ -50,6 +58,35 @@ public class ChatRecord {
     @Schema(description = "使用的大模型版本")
     private String model;
 
+    /**
+     * 输入token数（模型未返回用量时为估算值）
+     */
+    @TableField("prompt_tokens")
+    @Schema(description = "输入token数")
+    private Integer promptTokens;
+
+    /**
+     * 输出token数（模型未返回用量时为估算值）
+     */
+    @TableField("completion_tokens")
+    @Schema(description = "输出token数")
+    private Integer completionTokens;
+
+    /**
+     * 模型调用耗时（毫秒，含重试）
+     */
+    @TableField("latency_ms")
+    @Schema(description = "模型调用耗时（毫秒）")
+    private Integer latencyMs;
+
+    /**
+     * 全文检索词（按用户隔离的二元分词，见ChatRecordSearchTerms），只在写入时使用，查询时不加载
+     */
+    @TableField(value = "search_terms", select = false)
+    @JSONField(serialize = false)
+    @Schema(hidden = true)
+    private String searchTerms;
+
     /**
      * 创建时间
      */
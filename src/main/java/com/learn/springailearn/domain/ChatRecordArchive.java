@@ -0,0 +1,98 @@
+package com.learn.springailearn.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档的对话记录实体类（提问和回答内容为gzip压缩字节）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@TableName("chat_record_archive")
+public class ChatRecordArchive {
+    /**
+     * 原chat_record主键ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private String userId;
+
+    /**
+     * 会话ID
+     */
+    @TableField("session_id")
+    private String sessionId;
+
+    /**
+     * 提问内容摘要（截断明文，历史列表直接使用，无需解压）
+     */
+    @TableField("prompt_preview")
+    private String promptPreview;
+
+    /**
+     * 用户提问内容（gzip压缩）
+     */
+    @TableField("user_prompt_gz")
+    private byte[] userPromptGz;
+
+    /**
+     * AI回答内容（gzip压缩）
+     */
+    @TableField("ai_response_gz")
+    private byte[] aiResponseGz;
+
+    /**
+     * 使用的模型
+     */
+    @TableField("model")
+    private String model;
+
+    /**
+     * 输入token数
+     */
+    @TableField("prompt_tokens")
+    private Integer promptTokens;
+
+    /**
+     * 输出token数
+     */
+    @TableField("completion_tokens")
+    private Integer completionTokens;
+
+    /**
+     * 模型调用耗时（毫秒，含重试）
+     */
+    @TableField("latency_ms")
+    private Integer latencyMs;
+
+    /**
+     * 原记录创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+
+    /**
+     * 归档时间
+     */
+    @TableField("archive_time")
+    private LocalDateTime archiveTime;
+
+    /**
+     * 逻辑删除（0-未删除，1-已删除）
+     */
+    @TableLogic
+    @TableField("is_deleted")
+    private Integer isDeleted;
+}
@@ -0,0 +1,37 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 对话记录游标分页结果
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "ChatRecordPage", description = "对话记录游标分页结果")
+public class ChatRecordPage {
+    /**
+     * 当前页的记录摘要
+     */
+    @Schema(description = "当前页的记录摘要")
+    private List<ChatRecordSummary> records;
+
+    /**
+     * 下一页游标，没有更多数据时为空
+     */
+    @Schema(description = "下一页游标，没有更多数据时为空")
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    @Schema(description = "是否还有更多数据")
+    private boolean hasMore;
+}
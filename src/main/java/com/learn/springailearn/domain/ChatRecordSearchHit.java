@@ -0,0 +1,45 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对话记录全文检索命中项
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "ChatRecordSearchHit", description = "对话记录全文检索命中项")
+public class ChatRecordSearchHit {
+    /**
+     * 主键ID
+     */
+    @Schema(description = "主键ID")
+    private Long id;
+
+    /**
+     * 创建时间
+     */
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    /**
+     * 截断后的用户提问内容
+     */
+    @Schema(description = "截断后的用户提问内容")
+    private String promptPreview;
+
+    /**
+     * 使用的模型
+     */
+    @Schema(description = "使用的大模型版本")
+    private String model;
+
+    /**
+     * 相关度得分，越大越相关
+     */
+    @Schema(description = "相关度得分，越大越相关")
+    private Double score;
+}
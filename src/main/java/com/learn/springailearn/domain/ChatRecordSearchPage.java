@@ -0,0 +1,37 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 对话记录全文检索分页结果（按相关度排序）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "ChatRecordSearchPage", description = "对话记录全文检索分页结果")
+public class ChatRecordSearchPage {
+    /**
+     * 当前页的命中记录
+     */
+    @Schema(description = "当前页的命中记录")
+    private List<ChatRecordSearchHit> records;
+
+    /**
+     * 当前页码（从1开始）
+     */
+    @Schema(description = "当前页码（从1开始）")
+    private int page;
+
+    /**
+     * 是否还有更多数据
+     */
+    @Schema(description = "是否还有更多数据")
+    private boolean hasMore;
+}
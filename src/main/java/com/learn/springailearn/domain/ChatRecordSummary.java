@@ -0,0 +1,39 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对话记录摘要（历史列表投影，不含完整的提问和回答内容）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "ChatRecordSummary", description = "对话记录摘要")
+public class ChatRecordSummary {
+    /**
+     * 主键ID
+     */
+    @Schema(description = "主键ID")
+    private Long id;
+
+    /**
+     * 创建时间
+     */
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    /**
+     * 截断后的用户提问内容
+     */
+    @Schema(description = "截断后的用户提问内容")
+    private String promptPreview;
+
+    /**
+     * 使用的模型
+     */
+    @Schema(description = "使用的大模型版本")
+    private String model;
+}
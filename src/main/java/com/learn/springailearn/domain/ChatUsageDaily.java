@@ -0,0 +1,61 @@
+package com.learn.springailearn.domain;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户每日token用量汇总实体类（主键为user_id + usage_date）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@TableName("chat_usage_daily")
+@Schema(name = "ChatUsageDaily", description = "用户每日token用量")
+public class ChatUsageDaily {
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    @Schema(description = "用户ID")
+    private String userId;
+
+    /**
+     * 用量日期
+     */
+    @TableField("usage_date")
+    @Schema(description = "用量日期")
+    private LocalDate usageDate;
+
+    /**
+     * 输入token数
+     */
+    @TableField("prompt_tokens")
+    @Schema(description = "输入token数")
+    private Long promptTokens;
+
+    /**
+     * 输出token数
+     */
+    @TableField("completion_tokens")
+    @Schema(description = "输出token数")
+    private Long completionTokens;
+
+    /**
+     * 模型调用次数
+     */
+    @TableField("request_count")
+    @Schema(description = "模型调用次数")
+    private Long requestCount;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    @Schema(description = "更新时间")
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,40 @@
+package com.learn.springailearn.domain;
+
+/**
+ * 接口请求参数的长度上限，在反序列化后、调用模型前由声明式校验拦截超限请求
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class RequestLimits {
+
+    /**
+     * 用户ID/会话ID最大长度（与chat_record表字段长度一致）
+     */
+    public static final int MAX_ID_LENGTH = 64;
+
+    /**
+     * 模型名称/模型提示最大长度
+     */
+    public static final int MAX_MODEL_LENGTH = 32;
+
+    /**
+     * 用户提示词最大长度
+     * 只是防止超大请求体的粗粒度拦截，应明显高于预处理的token上限（app.ai.prompt-preprocess.max-input-tokens），
+     * 否则超长提示词在到达预处理前就被拒绝，截断策略永远不会生效：
+     * 按汉字约0.7个token估算，20000字约14000 token，同时保证未截断时utf8mb4仍写得进TEXT字段
+     */
+    public static final int MAX_PROMPT_LENGTH = 20000;
+
+    /**
+     * 系统指令（模板）最大长度
+     */
+    public static final int MAX_SYSTEM_PROMPT_LENGTH = 8000;
+
+    /**
+     * 模板参数最大个数
+     */
+    public static final int MAX_PARAMS = 50;
+
+    private RequestLimits() {
+    }
+}
@@ -0,0 +1,45 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 智能问答请求
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "SmartChatRequest", description = "智能问答请求")
+public class SmartChatRequest {
+    /**
+     * 用户ID
+     */
+    @NotBlank(message = "用户ID不能为空")
+    @Size(max = RequestLimits.MAX_ID_LENGTH, message = "用户ID长度不能超过{max}")
+    @Schema(description = "用户ID", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String userId;
+
+    /**
+     * 用户提问内容
+     */
+    @NotBlank(message = "用户提问内容不能为空")
+    @Size(max = RequestLimits.MAX_PROMPT_LENGTH, message = "用户提问内容长度不能超过{max}")
+    @Schema(description = "用户提问内容", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String userPrompt;
+
+    /**
+     * 会话ID，为空时使用用户的默认会话
+     */
+    @Size(max = RequestLimits.MAX_ID_LENGTH, message = "会话ID长度不能超过{max}")
+    @Schema(description = "会话ID，为空时使用用户的默认会话")
+    private String sessionId;
+
+    /**
+     * 模型提示：模型名、fast或best
+     */
+    @Size(max = RequestLimits.MAX_MODEL_LENGTH, message = "模型提示长度不能超过{max}")
+    @Schema(description = "模型提示：模型名、fast或best")
+    private String model;
+}
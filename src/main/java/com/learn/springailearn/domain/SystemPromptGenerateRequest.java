@@ -0,0 +1,46 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 带系统指令的文本生成请求
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "SystemPromptGenerateRequest", description = "带系统指令的文本生成请求")
+public class SystemPromptGenerateRequest {
+    /**
+     * 系统指令模板，与templateId二选一
+     */
+    @Size(max = RequestLimits.MAX_SYSTEM_PROMPT_LENGTH, message = "系统指令长度不能超过{max}")
+    @Schema(description = "系统指令模板，与templateId二选一")
+    private String systemPrompt;
+
+    /**
+     * 已注册的系统指令模板ID，优先于systemPrompt
+     */
+    @Size(max = RequestLimits.MAX_ID_LENGTH, message = "模板ID长度不能超过{max}")
+    @Schema(description = "已注册的系统指令模板ID，优先于systemPrompt")
+    private String templateId;
+
+    /**
+     * 用户提示词
+     */
+    @NotBlank(message = "用户提示词不能为空")
+    @Size(max = RequestLimits.MAX_PROMPT_LENGTH, message = "用户提示词长度不能超过{max}")
+    @Schema(description = "用户提示词", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String userPrompt;
+
+    /**
+     * 模板参数
+     */
+    @Size(max = RequestLimits.MAX_PARAMS, message = "模板参数个数不能超过{max}")
+    @Schema(description = "模板参数")
+    private Map<String, Object> params;
+}
@@ -0,0 +1,31 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 系统指令模板注册请求
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "TemplateRegisterRequest", description = "系统指令模板注册请求")
+public class TemplateRegisterRequest {
+    /**
+     * 模板ID
+     */
+    @NotBlank(message = "模板ID不能为空")
+    @Size(max = RequestLimits.MAX_ID_LENGTH, message = "模板ID长度不能超过{max}")
+    @Schema(description = "模板ID", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String templateId;
+
+    /**
+     * 系统指令模板
+     */
+    @NotBlank(message = "系统指令模板不能为空")
+    @Size(max = RequestLimits.MAX_SYSTEM_PROMPT_LENGTH, message = "系统指令模板长度不能超过{max}")
+    @Schema(description = "系统指令模板", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String template;
+}
@@ -0,0 +1,23 @@
+package com.learn.springailearn.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 基础文本生成请求
+ * @author ken
+ * @date 2026-01-21
+ */
+@Data
+@Schema(name = "TextGenerateRequest", description = "基础文本生成请求")
+public class TextGenerateRequest {
+    /**
+     * 用户提示词
+     */
+    @NotBlank(message = "用户提示词不能为空")
+    @Size(max = RequestLimits.MAX_PROMPT_LENGTH, message = "用户提示词长度不能超过{max}")
+    @Schema(description = "用户提示词", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String userPrompt;
+}
@@ -0,0 +1,100 @@
+package com.learn.springailearn.limiter;
+
+import com.learn.springailearn.config.RateLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * 全局自适应并发上限（AIMD）
+ * 调用正常且并发接近上限时上限加性增长（每轮约+1），出现429、超时或耗时超过阈值时乘性收缩；
+ * 在途计数与上限均为无锁原子变量，超出上限的请求立即拒绝而不是排队
+ * @author ken
+ * @date 2026-01-21
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final RateLimitProperties.Concurrency properties;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /**
+     * 当前上限（double的位表示），允许小数以实现平滑的加性增长
+     */
+    private final AtomicLong limitBits;
+
+    public AdaptiveConcurrencyLimiter(RateLimitProperties.Concurrency properties) {
+        if (properties.getMinLimit() < 1 || properties.getMaxLimit() < properties.getMinLimit()) {
+            throw new IllegalArgumentException("并发上限配置不合法：min-limit必须不小于1且不大于max-limit");
+        }
+        this.properties = properties;
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        double initial = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), properties.getInitialLimit()));
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initial));
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     * @return 是否占用成功，成功后必须调用且只调用一次onSuccess/onDropped/onIgnore释放
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 调用成功，根据耗时调整上限
+     * @param latencyNanos 调用耗时
+     */
+    public void onSuccess(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (current * 2 >= getLimit()) {
+            // 只有并发确实用到一半以上时才增长，避免低负载时上限无意义地膨胀
+            increase();
+        }
+    }
+
+    /**
+     * 上游过载（429、超时），释放名额并收缩上限
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        decrease();
+    }
+
+    /**
+     * 与负载无关的失败（如参数错误），只释放名额
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void increase() {
+        update(limit -> Math.min(properties.getMaxLimit(), limit + 1D / limit));
+    }
+
+    private void decrease() {
+        update(limit -> Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio()));
+    }
+
+    private void update(DoubleUnaryOperator operator) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(operator.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,19 @@
+package com.learn.springailearn.limiter;
+
+import lombok.Getter;
+
+/**
+ * 请求被限流时抛出，携带建议的重试等待秒数（对应HTTP Retry-After）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1L, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,75 @@
+package com.learn.springailearn.limiter;
+
+import com.learn.springailearn.config.RateLimitProperties;
+import com.learn.springailearn.shared.SharedStateStore;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 多节点共享的按用户限流器（滑动窗口计数）
+ * 窗口长度取令牌桶从空到满所需的时间（capacity / refillPerSecond），窗口内允许capacity次请求，与本地令牌桶的平均速率一致；
+ * 当前窗口计数用INCRBY累加，再按时间比例叠加上一个窗口的计数估算滑动窗口内的请求数，避免窗口边界处的双倍突发。
+ * 只依赖计数器自增，不需要Lua脚本；被拒绝的请求会把计数减回去，不占用额度
+ * @author ken
+ * @date 2026-01-21
+ */
+public class SharedUserRateLimiter {
+
+    private static final String KEY_PREFIX = "ai:rate-limit:";
+
+    private final RateLimitProperties.User properties;
+    private final SharedStateStore store;
+    private final LongSupplier epochMillisClock;
+    private final long windowMillis;
+    private final Duration counterTtl;
+
+    public SharedUserRateLimiter(RateLimitProperties.User properties, SharedStateStore store) {
+        this(properties, store, System::currentTimeMillis);
+    }
+
+    /**
+     * @param properties 按用户限流配置
+     * @param store 共享状态存储
+     * @param epochMillisClock 时间源（毫秒时间戳，各节点需时钟同步）
+     */
+    public SharedUserRateLimiter(RateLimitProperties.User properties, SharedStateStore store, LongSupplier epochMillisClock) {
+        if (properties.getCapacity() < 1 || properties.getRefillPerSecond() <= 0) {
+            throw new IllegalArgumentException("限流容量必须不小于1且补充速率必须大于0");
+        }
+        this.properties = properties;
+        this.store = store;
+        this.epochMillisClock = epochMillisClock;
+        this.windowMillis = Math.max(1L, Math.round(properties.getCapacity() / properties.getRefillPerSecond() * 1000D));
+        // 计数器要在下一个窗口里作为"上一个窗口"继续被读取，因此保留两个窗口
+        this.counterTtl = Duration.ofMillis(windowMillis * 2);
+    }
+
+    /**
+     * 为用户获取一个请求许可
+     * @param userId 用户ID
+     * @throws RateLimitExceededException 用户请求过于频繁时抛出
+     */
+    public void acquire(String userId) {
+        long now = epochMillisClock.getAsLong();
+        long window = now / windowMillis;
+        double elapsedRatio = (double) (now - window * windowMillis) / windowMillis;
+        String currentKey = key(userId, window);
+
+        long current = store.increment(currentKey, 1L, counterTtl);
+        String previousValue = store.get(key(userId, window - 1));
+        long previous = previousValue == null ? 0L : Long.parseLong(previousValue);
+        double estimated = previous * (1D - elapsedRatio) + current;
+        if (estimated <= properties.getCapacity()) {
+            return;
+        }
+        store.increment(currentKey, -1L, counterTtl);
+        // 上一个窗口的计数随时间线性衰减，按持续速率估算超出部分被消化所需的时间
+        long retryAfterSeconds = (long) Math.ceil((estimated - properties.getCapacity()) / properties.getRefillPerSecond());
+        throw new RateLimitExceededException("请求过于频繁，请稍后重试", retryAfterSeconds);
+    }
+
+    private String key(String userId, long window) {
+        return KEY_PREFIX + userId + ":" + window;
+    }
+}
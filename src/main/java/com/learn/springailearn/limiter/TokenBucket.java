@@ -0,0 +1,53 @@
+package com.learn.springailearn.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无锁令牌桶
+ * 状态为不可变对象，通过CAS整体替换，按时间差惰性补充令牌，不依赖后台线程
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    /**
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param refillPerSecond 每秒补充的令牌数
+     * @param nowNanos 当前时间（System.nanoTime()）
+     */
+    public TokenBucket(double capacity, double refillPerSecond, long nowNanos) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("令牌桶容量必须不小于1且补充速率必须大于0");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    /**
+     * 尝试获取一个令牌
+     * @param nowNanos 当前时间（System.nanoTime()）
+     * @return 0表示获取成功，否则为距离下一个令牌可用的纳秒数
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            long timestamp = Math.max(current.timestamp, nowNanos);
+            double tokens = Math.min(capacity, current.tokens + (timestamp - current.timestamp) * tokensPerNano);
+            if (tokens < 1D) {
+                return (long) Math.ceil((1D - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1D, timestamp))) {
+                return 0L;
+            }
+        }
+    }
+
+    private record State(double tokens, long timestamp) {
+    }
+}
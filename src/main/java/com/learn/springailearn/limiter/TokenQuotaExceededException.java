@@ -0,0 +1,13 @@
+package com.learn.springailearn.limiter;
+
+/**
+ * 用户当日token额度用完时抛出，按限流处理（HTTP 429），建议在次日额度重置后重试
+ * @author ken
+ * @date 2026-01-21
+ */
+public class TokenQuotaExceededException extends RateLimitExceededException {
+
+    public TokenQuotaExceededException(String message, long retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,57 @@
+package com.learn.springailearn.limiter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.learn.springailearn.config.RateLimitProperties;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户的令牌桶限流器
+ * 令牌桶保存在分段加锁的Guava缓存中（仅创建时加锁），取令牌本身为无锁CAS，空闲用户的令牌桶自动释放
+ * @author ken
+ * @date 2026-01-21
+ */
+public class UserRateLimiter {
+
+    private final RateLimitProperties.User properties;
+    private final Cache<String, TokenBucket> buckets;
+
+    public UserRateLimiter(RateLimitProperties.User properties) {
+        this.properties = properties;
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumUsers())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    /**
+     * 为用户获取一个请求许可
+     * @param userId 用户ID
+     * @throws RateLimitExceededException 用户请求过于频繁时抛出
+     */
+    public void acquire(String userId) {
+        long now = System.nanoTime();
+        TokenBucket bucket;
+        try {
+            bucket = buckets.get(userId,
+                    () -> new TokenBucket(properties.getCapacity(), properties.getRefillPerSecond(), now));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("创建用户令牌桶失败", e.getCause());
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            throw new RateLimitExceededException("请求过于频繁，请稍后重试", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * 当前持有令牌桶的用户数
+     */
+    public long size() {
+        return buckets.size();
+    }
+}
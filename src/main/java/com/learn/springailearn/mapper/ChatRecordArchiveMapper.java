@@ -0,0 +1,62 @@
+package com.learn.springailearn.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.learn.springailearn.domain.ChatRecordArchive;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 对话记录归档Mapper接口
+ * @author ken
+ * @date 2026-01-21
+ */
+@Mapper
+public interface ChatRecordArchiveMapper extends BaseMapper<ChatRecordArchive> {
+
+    /**
+     * 多行VALUES批量写入归档记录，主键已存在时忽略（归档任务中断后重跑保持幂等）
+     * @param records 归档记录
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO chat_record_archive (id, user_id, session_id, prompt_preview, user_prompt_gz, ai_response_gz,",
+            "model, prompt_tokens, completion_tokens, latency_ms, create_time, archive_time, is_deleted) VALUES",
+            "<foreach collection='records' item='r' separator=','>",
+            "(#{r.id}, #{r.userId}, #{r.sessionId}, #{r.promptPreview}, #{r.userPromptGz}, #{r.aiResponseGz},",
+            "#{r.model}, #{r.promptTokens}, #{r.completionTokens}, #{r.latencyMs}, #{r.createTime}, #{r.archiveTime}, #{r.isDeleted})",
+            "</foreach>",
+            "</script>"})
+    int insertIgnoreBatch(@Param("records") List<ChatRecordArchive> records);
+
+    /**
+     * 按(create_time, id)游标倒序查询归档记录摘要，与热表的分页查询条件一致
+     */
+    @Select({"<script>",
+            "SELECT id, create_time, LEFT(prompt_preview, #{previewLength}) AS prompt_preview, model FROM chat_record_archive",
+            "WHERE user_id = #{userId} AND is_deleted = 0",
+            "<if test='cursorTime != null'>",
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND id &lt; #{cursorId}))",
+            "</if>",
+            "ORDER BY create_time DESC, id DESC LIMIT #{limit}",
+            "</script>"})
+    List<ChatRecordSummary> selectSummaryPage(@Param("userId") String userId,
+                                              @Param("cursorTime") LocalDateTime cursorTime,
+                                              @Param("cursorId") Long cursorId,
+                                              @Param("previewLength") int previewLength,
+                                              @Param("limit") int limit);
+
+    /**
+     * 物理删除已逻辑删除的归档记录
+     * @param limit 单次删除上限
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM chat_record_archive WHERE is_deleted = 1 LIMIT #{limit}")
+    int purgeDeleted(@Param("limit") int limit);
+}
@@ -2,7 +2,17 @@ package com.learn.springailearn.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordSearchHit;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 对话记录Mapper接口
@@ -12,4 +22,149 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface ChatRecordMapper extends BaseMapper<ChatRecord> {
     // MyBatisPlus BaseMapper已封装CRUD，无需额外编写基础方法
-}
\ No newline at end of file
+
+    /**
+     * 多行VALUES批量插入对话记录
+     * 自定义SQL不经过字段自动填充，createTime/updateTime需由调用方赋值
+     * @param records 待插入的对话记录
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO chat_record (user_id, session_id, user_prompt, ai_response, model, prompt_tokens, completion_tokens,",
+            "latency_ms, search_terms, create_time, update_time, is_deleted) VALUES",
+            "<foreach collection='records' item='r' separator=','>",
+            "(#{r.userId}, #{r.sessionId}, #{r.userPrompt}, #{r.aiResponse}, #{r.model}, IFNULL(#{r.promptTokens}, 0),",
+            "IFNULL(#{r.completionTokens}, 0), IFNULL(#{r.latencyMs}, 0), #{r.searchTerms}, #{r.createTime}, #{r.updateTime}, 0)",
+            "</foreach>",
+            "</script>"})
+    int insertBatch(@Param("records") List<ChatRecord> records);
+
+    /**
+     * 按(create_time, id)游标倒序查询用户的对话记录摘要
+     * 走(user_id, is_deleted, create_time, id)联合索引，只读取截断后的提问内容
+     * @param userId 用户ID
+     * @param cursorTime 上一页最后一条记录的创建时间，为空表示第一页
+     * @param cursorId 上一页最后一条记录的ID
+     * @param previewLength 提问内容截断长度
+     * @param limit 查询条数
+     * @return 记录摘要列表
+     */
+    @Select({"<script>",
+            "SELECT id, create_time, LEFT(user_prompt, #{previewLength}) AS prompt_preview, model FROM chat_record",
+            "WHERE user_id = #{userId} AND is_deleted = 0",
+            "<if test='cursorTime != null'>",
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND id &lt; #{cursorId}))",
+            "</if>",
+            "ORDER BY create_time DESC, id DESC LIMIT #{limit}",
+            "</script>"})
+    List<ChatRecordSummary> selectSummaryPage(@Param("userId") String userId,
+                                              @Param("cursorTime") LocalDateTime cursorTime,
+                                              @Param("cursorId") Long cursorId,
+                                              @Param("previewLength") int previewLength,
+                                              @Param("limit") int limit);
+
+    /**
+     * 全文检索用户的对话记录（提问和回答），按相关度倒序
+     * 依赖search_terms列上的FULLTEXT索引ft_search_terms：检索词带用户前缀，只读取该用户的倒排列表，
+     * user_id条件只用于排除前缀散列冲突的其他用户记录
+     * @param userId 用户ID
+     * @param query BOOLEAN MODE检索式（见ChatRecordSearchTerms#booleanQuery）
+     * @param previewLength 提问内容截断长度
+     * @param offset 偏移量
+     * @param limit 查询条数
+     * @return 命中记录
+     */
+    @Select({"<script>",
+            "SELECT id, create_time, LEFT(user_prompt, #{previewLength}) AS prompt_preview, model,",
+            "MATCH(search_terms) AGAINST(#{query} IN BOOLEAN MODE) AS score FROM chat_record",
+            "WHERE MATCH(search_terms) AGAINST(#{query} IN BOOLEAN MODE)",
+            "AND user_id = #{userId} AND is_deleted = 0",
+            "ORDER BY score DESC, id DESC LIMIT #{offset}, #{limit}",
+            "</script>"})
+    List<ChatRecordSearchHit> searchByKeyword(@Param("userId") String userId,
+                                              @Param("query") String query,
+                                              @Param("previewLength") int previewLength,
+                                              @Param("offset") int offset,
+                                              @Param("limit") int limit);
+
+    /**
+     * 按主键顺序查询尚未生成检索词的记录（升级前写入的旧记录），用于回填search_terms
+     * @param afterId 上一批最后一条记录的ID
+     * @param limit 单批条数
+     * @return 对话记录（仅包含ID、用户ID、提问和回答）
+     */
+    @Select("SELECT id, user_id, user_prompt, ai_response FROM chat_record "
+            + "WHERE id > #{afterId} AND search_terms IS NULL ORDER BY id LIMIT #{limit}")
+    List<ChatRecord> selectSearchTermsBackfill(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 写入单条记录的检索词
+     * @param id 记录ID
+     * @param searchTerms 检索词
+     * @return 影响行数
+     */
+    @Update("UPDATE chat_record SET search_terms = #{searchTerms} WHERE id = #{id}")
+    int updateSearchTerms(@Param("id") Long id, @Param("searchTerms") String searchTerms);
+
+    /**
+     * 查询会话最近的若干轮对话（按时间倒序），用于会话记忆未命中时回填
+     * 走(user_id, session_id, is_deleted, create_time, id)联合索引，倒序扫描limit条即可，不读取用户的其他会话
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @param limit 查询轮数
+     * @return 对话记录（仅包含提问、回答和创建时间）
+     */
+    @Select("SELECT id, user_prompt, ai_response, create_time FROM chat_record "
+            + "WHERE user_id = #{userId} AND session_id = #{sessionId} AND is_deleted = 0 "
+            + "ORDER BY create_time DESC, id DESC LIMIT #{limit}")
+    List<ChatRecord> selectRecentTurns(@Param("userId") String userId,
+                                       @Param("sessionId") String sessionId,
+                                       @Param("limit") int limit);
+
+    /**
+     * 按(create_time, id)游标顺序查询创建时间早于截止时间的待归档记录
+     * 走idx_create_time索引（二级索引隐含主键id），每批只扫描limit条；
+     * 自定义SQL不经过逻辑删除过滤，其中已删除的记录同样会被查出
+     * @param before 创建时间截止值
+     * @param cursorTime 上一批最后一条记录的创建时间，为空表示第一批
+     * @param cursorId 上一批最后一条记录的ID
+     * @param limit 单批条数
+     * @return 完整的对话记录
+     */
+    @Select({"<script>",
+            "SELECT id, user_id, session_id, user_prompt, ai_response, model, prompt_tokens, completion_tokens, latency_ms,",
+            "create_time, is_deleted FROM chat_record",
+            "WHERE create_time &lt; #{before}",
+            "<if test='cursorTime != null'>",
+            "AND (create_time &gt; #{cursorTime} OR (create_time = #{cursorTime} AND id &gt; #{cursorId}))",
+            "</if>",
+            "ORDER BY create_time, id LIMIT #{limit}",
+            "</script>"})
+    List<ChatRecord> selectExpiredArchiveCandidates(@Param("before") LocalDateTime before,
+                                                    @Param("cursorTime") LocalDateTime cursorTime,
+                                                    @Param("cursorId") Long cursorId,
+                                                    @Param("limit") int limit);
+
+    /**
+     * 按主键顺序查询保留期内但已逻辑删除的待归档记录
+     * 走(is_deleted, id)联合索引，只读取已删除的记录，不扫描热表的其余部分
+     * @param afterId 上一批最后一条记录的ID，从该ID之后继续扫描
+     * @param limit 单批条数
+     * @return 完整的对话记录
+     */
+    @Select("SELECT id, user_id, session_id, user_prompt, ai_response, model, prompt_tokens, completion_tokens, latency_ms, "
+            + "create_time, is_deleted FROM chat_record "
+            + "WHERE is_deleted = 1 AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<ChatRecord> selectDeletedArchiveCandidates(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按主键物理删除（BaseMapper的删除方法受@TableLogic影响只做逻辑删除）
+     * @param ids 记录ID
+     * @return 删除行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM chat_record WHERE id IN",
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int physicalDeleteByIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,51 @@
+package com.learn.springailearn.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.learn.springailearn.domain.ChatUsageDaily;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户每日token用量Mapper接口
+ * @author ken
+ * @date 2026-01-21
+ */
+@Mapper
+public interface ChatUsageDailyMapper extends BaseMapper<ChatUsageDaily> {
+
+    /**
+     * 多行VALUES批量累加用量：记录不存在时插入，已存在时在原值上加上本次增量
+     * @param records 用量增量（不是累计值）
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO chat_usage_daily (user_id, usage_date, prompt_tokens, completion_tokens, request_count, update_time) VALUES",
+            "<foreach collection='records' item='r' separator=','>",
+            "(#{r.userId}, #{r.usageDate}, #{r.promptTokens}, #{r.completionTokens}, #{r.requestCount}, #{r.updateTime})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE prompt_tokens = prompt_tokens + VALUES(prompt_tokens),",
+            "completion_tokens = completion_tokens + VALUES(completion_tokens),",
+            "request_count = request_count + VALUES(request_count), update_time = VALUES(update_time)",
+            "</script>"})
+    int upsertIncrementBatch(@Param("records") List<ChatUsageDaily> records);
+
+    /**
+     * 查询指定日期一批用户的累计用量（走主键）
+     * @param usageDate 用量日期
+     * @param userIds 用户ID
+     * @return 已有用量记录，没有用量的用户不返回
+     */
+    @Select({"<script>",
+            "SELECT user_id, usage_date, prompt_tokens, completion_tokens, request_count FROM chat_usage_daily",
+            "WHERE usage_date = #{usageDate} AND user_id IN",
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>",
+            "</script>"})
+    List<ChatUsageDaily> selectByDateAndUserIds(@Param("usageDate") LocalDate usageDate,
+                                                @Param("userIds") Collection<String> userIds);
+}
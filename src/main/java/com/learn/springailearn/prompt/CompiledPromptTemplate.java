@@ -0,0 +1,158 @@
+package com.learn.springailearn.prompt;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenStream;
+import org.stringtemplate.v4.AutoIndentWriter;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STErrorListener;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.compiler.FormalArgument;
+import org.stringtemplate.v4.compiler.STException;
+import org.stringtemplate.v4.compiler.STLexer;
+import org.stringtemplate.v4.misc.STMessage;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的系统指令模板（StringTemplate，分隔符为{}，与SystemPromptTemplate一致）
+ * 模板只在创建时解析编译一次，变量预先声明为形参；渲染时基于原型复制出新实例填充参数，不再重复词法/语法分析
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class CompiledPromptTemplate {
+
+    private final String template;
+    private final ST prototype;
+    private final Set<String> variables;
+
+    private CompiledPromptTemplate(String template, ST prototype, Set<String> variables) {
+        this.template = template;
+        this.prototype = prototype;
+        this.variables = variables;
+    }
+
+    /**
+     * 解析并编译模板
+     * @param template 模板文本
+     * @return 编译后的模板
+     * @throws IllegalArgumentException 模板为空或语法错误时抛出
+     */
+    public static CompiledPromptTemplate compile(String template) {
+        if (template == null || template.isEmpty()) {
+            throw new IllegalArgumentException("系统指令模板不能为空");
+        }
+        STGroup group = new STGroup('{', '}');
+        CollectingErrorListener errors = new CollectingErrorListener();
+        group.setListener(errors);
+        ST prototype;
+        try {
+            prototype = new ST(group, template);
+        } catch (STException e) {
+            errors.messages.add(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            prototype = null;
+        }
+        if (prototype == null || !errors.messages.isEmpty()) {
+            throw new IllegalArgumentException("系统指令模板语法错误：" + String.join("；", errors.messages));
+        }
+        Set<String> variables = inputVariables(prototype.impl.tokens);
+        // 预先声明形参：由原型复制的实例直接按下标填充参数，无需在渲染时扩容
+        for (String variable : variables) {
+            if (prototype.impl.formalArguments == null || !prototype.impl.formalArguments.containsKey(variable)) {
+                prototype.impl.addArg(new FormalArgument(variable));
+            }
+        }
+        return new CompiledPromptTemplate(template, prototype, Collections.unmodifiableSet(variables));
+    }
+
+    /**
+     * 渲染模板，只填充模板中出现的变量，多余的参数忽略
+     * @param params 模板参数
+     * @return 渲染结果
+     * @throws IllegalArgumentException 缺少模板变量时抛出
+     */
+    public String render(Map<String, Object> params) {
+        if (variables.isEmpty()) {
+            return template;
+        }
+        ST st = new ST(prototype);
+        List<String> missing = null;
+        for (String variable : variables) {
+            Object value = params == null ? null : params.get(variable);
+            if (value == null) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(variable);
+                continue;
+            }
+            st.add(variable, value);
+        }
+        if (missing != null) {
+            throw new IllegalArgumentException("系统指令模板缺少参数：" + missing);
+        }
+        StringWriter out = new StringWriter(template.length() + 64);
+        try {
+            st.write(new AutoIndentWriter(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("系统指令模板渲染失败", e);
+        }
+        return out.toString();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * 收集模板中以{开头的变量名（属性访问只取根变量名）
+     */
+    private static Set<String> inputVariables(TokenStream tokens) {
+        Set<String> variables = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            Token next = tokens.get(i + 1);
+            if (token.getType() == STLexer.LDELIM && next.getType() == STLexer.ID) {
+                boolean templateCall = i + 2 < tokens.size() && tokens.get(i + 2).getType() == STLexer.LPAREN;
+                if (!templateCall) {
+                    variables.add(next.getText());
+                }
+            }
+        }
+        return variables;
+    }
+
+    private static final class CollectingErrorListener implements STErrorListener {
+
+        private final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void compileTimeError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+
+        @Override
+        public void runTimeError(STMessage msg) {
+        }
+
+        @Override
+        public void IOError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+
+        @Override
+        public void internalError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.learn.springailearn.prompt;
+
+/**
+ * 预处理后的用户提示词
+ * @param text 规范化（及截断）后的提示词
+ * @param estimatedTokens 处理后估算的token数
+ * @param originalTokens 截断前估算的token数
+ * @param truncated 是否被截断
+ * @author ken
+ * @date 2026-01-21
+ */
+public record PreparedPrompt(String text, int estimatedTokens, int originalTokens, boolean truncated) {
+}
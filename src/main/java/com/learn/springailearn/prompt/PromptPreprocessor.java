@@ -0,0 +1,198 @@
+package com.learn.springailearn.prompt;
+
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 用户提示词发送前预处理：空白规范化 -> 重复段落去重 -> token估算与超长截断 -> 模型上下文长度检查
+ * 在调用模型和保存记录之前执行，超长输入不再原样发送给DashScope、也不再原样落库
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class PromptPreprocessor {
+
+    private static final String CODE_FENCE = "```";
+    private static final String OMITTED_MARKER = "\n\n……（中间部分内容过长已省略）……\n\n";
+    private static final int OMITTED_MARKER_TOKENS = QwenTokenEstimator.estimate(OMITTED_MARKER);
+
+    private final PromptPreprocessProperties properties;
+    private final Counter truncatedCounter;
+    private final Counter rejectedCounter;
+
+    public PromptPreprocessor(PromptPreprocessProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.truncatedCounter = Counter.builder("ai.prompt.preprocess")
+                .tag("result", "truncated")
+                .description("提示词预处理结果次数")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ai.prompt.preprocess")
+                .tag("result", "rejected")
+                .description("提示词预处理结果次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 预处理用户提示词
+     * @param userPrompt 用户提示词
+     * @param contextTokens 同一请求中其他内容（历史对话、系统指令）的估算token数
+     * @return 处理后的提示词
+     * @throws IllegalArgumentException 提示词为空、超长且策略为拒绝、或超出模型上下文长度时抛出
+     */
+    public PreparedPrompt prepare(String userPrompt, int contextTokens) {
+        if (!StringUtils.hasText(userPrompt)) {
+            throw new IllegalArgumentException("用户提示词不能为空");
+        }
+        if (!properties.isEnabled()) {
+            int tokens = QwenTokenEstimator.estimate(userPrompt);
+            return new PreparedPrompt(userPrompt, tokens, tokens, false);
+        }
+        String text = normalize(userPrompt);
+        if (!StringUtils.hasText(text)) {
+            throw new IllegalArgumentException("用户提示词不能为空");
+        }
+
+        int originalTokens = QwenTokenEstimator.estimate(text);
+        int tokens = originalTokens;
+        boolean truncated = false;
+        int maxInputTokens = properties.getMaxInputTokens();
+        if (maxInputTokens > 0 && tokens > maxInputTokens) {
+            if (properties.getOverflowStrategy() == PromptPreprocessProperties.OverflowStrategy.REJECT) {
+                rejectedCounter.increment();
+                throw new IllegalArgumentException("提示词过长：约" + tokens + "个token，上限为" + maxInputTokens);
+            }
+            text = truncate(text, tokens, maxInputTokens, properties.getOverflowStrategy());
+            tokens = QwenTokenEstimator.estimate(text);
+            truncated = true;
+            truncatedCounter.increment();
+            log.info("提示词超出token上限已截断，原始约{}个token，截断后约{}个token", originalTokens, tokens);
+        }
+
+        int maxContextTokens = properties.getMaxContextTokens();
+        int required = tokens + Math.max(0, contextTokens) + properties.getReservedCompletionTokens();
+        if (maxContextTokens > 0 && required > maxContextTokens) {
+            rejectedCounter.increment();
+            throw new IllegalArgumentException("请求超出模型上下文长度：约" + required
+                    + "个token（含历史对话/系统指令和预留的回答），上限为" + maxContextTokens);
+        }
+        return new PreparedPrompt(text, tokens, originalTokens, truncated);
+    }
+
+    /**
+     * 空白规范化与段落去重（单遍逐行处理，代码块内保留缩进和空行）
+     */
+    String normalize(String text) {
+        boolean normalizeWhitespace = properties.isNormalizeWhitespace();
+        boolean dedupe = properties.isDedupeParagraphs();
+        if (!normalizeWhitespace && !dedupe) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        StringBuilder paragraph = new StringBuilder();
+        Set<String> seen = dedupe ? new HashSet<>() : null;
+        boolean inFence = false;
+        int start = 0;
+        int length = text.length();
+        while (start <= length) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            String line = text.substring(start, end);
+            start = end + 1;
+            if (normalizeWhitespace) {
+                line = normalizeLine(line, inFence);
+            }
+            boolean fence = line.stripLeading().startsWith(CODE_FENCE);
+            if (!inFence && !fence && line.isBlank()) {
+                appendParagraph(result, paragraph, seen);
+                continue;
+            }
+            if (!paragraph.isEmpty()) {
+                paragraph.append('\n');
+            }
+            paragraph.append(line);
+            if (fence) {
+                inFence = !inFence;
+            }
+        }
+        appendParagraph(result, paragraph, seen);
+        return normalizeWhitespace ? result.toString().strip() : result.toString();
+    }
+
+    private void appendParagraph(StringBuilder result, StringBuilder paragraph, Set<String> seen) {
+        if (paragraph.isEmpty()) {
+            return;
+        }
+        String text = paragraph.toString();
+        paragraph.setLength(0);
+        if (seen != null && text.length() >= properties.getDedupeMinLength() && !seen.add(text.strip())) {
+            log.debug("提示词中的重复段落已去除，长度：{}", text.length());
+            return;
+        }
+        if (!result.isEmpty()) {
+            result.append("\n\n");
+        }
+        result.append(text);
+    }
+
+    /**
+     * 去掉回车、零宽字符和行尾空白；代码块外把缩进之后的连续空格/制表符合并为一个空格
+     */
+    private static String normalizeLine(String line, boolean inFence) {
+        StringBuilder normalized = new StringBuilder(line.length());
+        boolean leading = true;
+        boolean pendingSpace = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\r' || c == '\u200B' || c == '\u200C' || c == '\u200D' || c == '\uFEFF') {
+                continue;
+            }
+            if (c == ' ' || c == '\t') {
+                if (leading || inFence) {
+                    normalized.append(c);
+                } else {
+                    pendingSpace = true;
+                }
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            leading = false;
+            normalized.append(c);
+        }
+        int end = normalized.length();
+        while (end > 0 && Character.isWhitespace(normalized.charAt(end - 1))) {
+            end--;
+        }
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+
+    private static String truncate(String text, int tokens, int maxTokens,
+                                   PromptPreprocessProperties.OverflowStrategy strategy) {
+        if (strategy == PromptPreprocessProperties.OverflowStrategy.HEAD || maxTokens <= OMITTED_MARKER_TOKENS * 3) {
+            return text.substring(0, QwenTokenEstimator.prefixLength(text, maxTokens)).strip();
+        }
+        int available = maxTokens - OMITTED_MARKER_TOKENS;
+        int headTokens = available * 2 / 3;
+        int tailTokens = available - headTokens;
+        String head = text.substring(0, QwenTokenEstimator.prefixLength(text, headTokens));
+        // 结尾部分：跳过估算值约为(总数 - 结尾预算)的前缀，剩余部分即为结尾
+        int tailStart = QwenTokenEstimator.prefixLength(text, tokens - tailTokens);
+        if (tailStart < text.length() && Character.isLowSurrogate(text.charAt(tailStart))) {
+            tailStart++;
+        }
+        return head.strip() + OMITTED_MARKER + text.substring(Math.max(tailStart, head.length())).strip();
+    }
+}
@@ -0,0 +1,139 @@
+package com.learn.springailearn.prompt;
+
+/**
+ * 通义千问token数本地估算
+ * 按Qwen分词器（字节级BPE，约15万词表）的统计特征单遍扫描估算，不加载词表、不分配对象：
+ * 常用汉字/日文/韩文约0.7个token，6个字母以内的英文单词约1个token、更长的单词每多4个字母约多1个token，
+ * 数字逐位切分，标点和符号各1个token，单个空格并入后面的单词，连续空白约1个token，
+ * 其他文字（西里尔、带重音的拉丁字母等）约0.5个token，代理对字符（emoji、扩展汉字）约2个token；
+ * 估算结果用于截断和上下文检查，与实际计费用量会有少量偏差
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class QwenTokenEstimator {
+
+    /**
+     * 内部以0.1个token为单位累加
+     */
+    private static final int UNIT = 10;
+    private static final int CJK_COST = 7;
+    private static final int SHORT_WORD_LETTERS = 6;
+    private static final int OTHER_LETTER_COST = 5;
+
+    private QwenTokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     * @param text 文本，可为空
+     * @return 估算的token数
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int length = text.length();
+        long cost = 0;
+        int i = 0;
+        while (i < length) {
+            long next = next(text, i, length);
+            i += consumed(next);
+            cost += cost(next);
+        }
+        return (int) ((cost + UNIT - 1) / UNIT);
+    }
+
+    /**
+     * 估算token数不超过预算的最长前缀长度，不会切开代理对；过长的英文单词按字母切分
+     * @param text 文本
+     * @param maxTokens token预算
+     * @return 前缀的字符数
+     */
+    public static int prefixLength(CharSequence text, int maxTokens) {
+        int length = text.length();
+        long budget = (long) Math.max(0, maxTokens) * UNIT;
+        long used = 0;
+        int i = 0;
+        while (i < length) {
+            long next = next(text, i, length);
+            int consumed = consumed(next);
+            int cost = cost(next);
+            if (used + cost > budget) {
+                if (isAsciiLetter(text.charAt(i)) && budget - used >= UNIT) {
+                    long letters = SHORT_WORD_LETTERS + (budget - used - UNIT) * 2 / 5;
+                    return i + (int) Math.min(consumed, letters);
+                }
+                return i;
+            }
+            used += cost;
+            i += consumed;
+        }
+        return length;
+    }
+
+    /**
+     * 从位置i开始识别下一个计数单元
+     * @return 高32位为成本，低32位为消耗的字符数
+     */
+    private static long next(CharSequence text, int i, int length) {
+        char c = text.charAt(i);
+        if (isAsciiLetter(c)) {
+            int end = i + 1;
+            while (end < length && isAsciiLetter(text.charAt(end))) {
+                end++;
+            }
+            int letters = end - i;
+            return pack(UNIT + Math.max(0, letters - SHORT_WORD_LETTERS) * 5 / 2, letters);
+        }
+        if (c == ' ' && i + 1 < length && !Character.isWhitespace(text.charAt(i + 1))) {
+            return pack(0, 1);
+        }
+        if (Character.isWhitespace(c)) {
+            int end = i + 1;
+            while (end < length && Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            return pack(UNIT, end - i);
+        }
+        if (c < 0x80) {
+            return pack(UNIT, 1);
+        }
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+            return pack(2 * UNIT, 2);
+        }
+        if (isCjk(c)) {
+            return pack(CJK_COST, 1);
+        }
+        if (Character.isLetter(c)) {
+            return pack(OTHER_LETTER_COST, 1);
+        }
+        return pack(UNIT, 1);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 汉字（含扩展A、兼容汉字）、日文假名和韩文音节，用区间判断代替Character.UnicodeScript的二分查找
+     */
+    private static boolean isCjk(char c) {
+        return (c >= 0x4E00 && c <= 0x9FFF)
+                || (c >= 0x3400 && c <= 0x4DBF)
+                || (c >= 0x3040 && c <= 0x30FF)
+                || (c >= 0xAC00 && c <= 0xD7AF)
+                || (c >= 0xF900 && c <= 0xFAFF);
+    }
+
+    private static long pack(int cost, int consumed) {
+        return ((long) cost << 32) | consumed;
+    }
+
+    private static int cost(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int consumed(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.learn.springailearn.prompt;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 系统指令模板注册表
+ * 按模板文本缓存编译结果（有上限，按LRU淘汰），同时支持按模板ID注册常用模板，调用方只需传ID和参数
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class SystemPromptTemplateRegistry {
+
+    private final int maximumRegistered;
+    private final LoadingCache<String, CompiledPromptTemplate> compiled;
+    private final Map<String, CompiledPromptTemplate> registered = new ConcurrentHashMap<>();
+
+    public SystemPromptTemplateRegistry(@Value("${app.ai.prompt-template.maximum-compiled:1000}") long maximumCompiled,
+                                        @Value("${app.ai.prompt-template.maximum-registered:500}") int maximumRegistered,
+                                        MeterRegistry meterRegistry) {
+        this.maximumRegistered = maximumRegistered;
+        this.compiled = CacheBuilder.newBuilder()
+                .maximumSize(maximumCompiled)
+                .recordStats()
+                .build(CacheLoader.from(CompiledPromptTemplate::compile));
+        GuavaCacheMetrics.monitor(meterRegistry, compiled, "ai.prompt.template.cache");
+        Gauge.builder("ai.prompt.template.registered", registered, Map::size)
+                .description("已注册的系统指令模板数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取模板文本对应的编译结果，首次使用时编译并缓存
+     * @param template 模板文本
+     * @return 编译后的模板
+     * @throws IllegalArgumentException 模板为空或语法错误时抛出
+     */
+    public CompiledPromptTemplate compile(String template) {
+        if (!StringUtils.hasText(template)) {
+            throw new IllegalArgumentException("系统指令模板不能为空");
+        }
+        try {
+            return compiled.getUnchecked(template);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 按ID注册模板，相同ID重复注册时覆盖
+     * @param templateId 模板ID
+     * @param template 模板文本
+     * @return 编译后的模板
+     * @throws IllegalArgumentException 参数为空、模板语法错误或注册数量超过上限时抛出
+     */
+    public CompiledPromptTemplate register(String templateId, String template) {
+        if (!StringUtils.hasText(templateId)) {
+            throw new IllegalArgumentException("模板ID不能为空");
+        }
+        CompiledPromptTemplate compiledTemplate = CompiledPromptTemplate.compile(template);
+        if (!registered.containsKey(templateId) && registered.size() >= maximumRegistered) {
+            throw new IllegalArgumentException("已注册的模板数量超过上限：" + maximumRegistered);
+        }
+        registered.put(templateId, compiledTemplate);
+        log.info("系统指令模板已注册，模板ID：{}，变量：{}", templateId, compiledTemplate.getVariables());
+        return compiledTemplate;
+    }
+
+    /**
+     * 获取已注册的模板
+     * @param templateId 模板ID
+     * @return 编译后的模板
+     * @throws IllegalArgumentException 模板ID为空或未注册时抛出
+     */
+    public CompiledPromptTemplate get(String templateId) {
+        if (!StringUtils.hasText(templateId)) {
+            throw new IllegalArgumentException("模板ID不能为空");
+        }
+        CompiledPromptTemplate compiledTemplate = registered.get(templateId);
+        if (compiledTemplate == null) {
+            throw new IllegalArgumentException("系统指令模板未注册：" + templateId);
+        }
+        return compiledTemplate;
+    }
+}
@@ -0,0 +1,79 @@
+package com.learn.springailearn.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单次模型调用尝试的作用域，在执行尝试的线程上可见
+ * 携带调用的截止时间，并收集HTTP客户端登记的取消动作：尝试被取消（对冲落败或截止时间到达）时
+ * 直接取消底层HTTP请求，而不是依赖线程中断（阻塞在Socket读取上的调用不响应中断）
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class CallScope {
+
+    private static final ThreadLocal<CallScope> CURRENT = new ThreadLocal<>();
+
+    private final Deadline deadline;
+    private final List<Runnable> cancelHooks = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    CallScope(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * 当前线程所在的调用作用域，不在模型调用尝试中时返回null
+     */
+    public static CallScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程所在的调用尝试是否已被取消
+     */
+    public static boolean isCurrentCancelled() {
+        CallScope scope = CURRENT.get();
+        return scope != null && scope.cancelled;
+    }
+
+    /**
+     * 截止时间前的剩余时间，没有截止时间时返回null
+     */
+    public Duration remaining() {
+        return deadline == null ? null : deadline.remaining();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 登记取消动作，作用域已取消时立即执行
+     * @param hook 取消动作，例如取消HTTP请求
+     */
+    public void onCancel(Runnable hook) {
+        cancelHooks.add(hook);
+        if (cancelled && cancelHooks.remove(hook)) {
+            hook.run();
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        for (Runnable hook : cancelHooks) {
+            if (cancelHooks.remove(hook)) {
+                hook.run();
+            }
+        }
+    }
+
+    void enter() {
+        CURRENT.set(this);
+    }
+
+    void exit() {
+        CURRENT.remove();
+    }
+}
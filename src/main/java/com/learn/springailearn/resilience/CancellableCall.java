@@ -0,0 +1,79 @@
+package com.learn.springailearn.resilience;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 可取消的调用任务
+ * CompletableFuture.cancel不会中断正在执行的线程，这里在取消时（直接调用cancel或取消future）：
+ * 取消调用作用域中登记的HTTP请求（见{@link CallScope}），使阻塞在Socket读取上的调用立即结束、不再占用上游；
+ * 同时中断执行线程，使等待在锁或Future上的调用尽早放弃（请求合并Advisor会把中断视为取消而不是失败）。
+ * 开始执行时截止时间已到的任务直接以TimeoutException结束
+ * @author ken
+ * @date 2026-01-21
+ */
+final class CancellableCall<T> implements Runnable {
+
+    private final Supplier<T> call;
+    private final Deadline deadline;
+    private final CallScope scope;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private Thread runner;
+
+    CancellableCall(Supplier<T> call, Deadline deadline) {
+        this.call = call;
+        this.deadline = deadline;
+        this.scope = new CallScope(deadline);
+        future.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                abort();
+            }
+        });
+    }
+
+    CompletableFuture<T> future() {
+        return future;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (future.isDone()) {
+                return;
+            }
+            if (deadline != null && deadline.isExpired()) {
+                future.completeExceptionally(new TimeoutException("调用开始前截止时间已到"));
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        scope.enter();
+        try {
+            future.complete(call.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            scope.exit();
+            synchronized (this) {
+                runner = null;
+                // 清除可能在结束前到达的中断标记，避免影响线程池中的下一个任务
+                Thread.interrupted();
+            }
+        }
+    }
+
+    void cancel() {
+        future.cancel(false);
+    }
+
+    private void abort() {
+        synchronized (this) {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+        scope.cancel();
+    }
+}
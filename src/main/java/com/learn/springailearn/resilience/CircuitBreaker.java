@@ -0,0 +1,131 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.config.ResilienceProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于计数滑动窗口的熔断器
+ * CLOSED：正常放行并统计最近N次调用的失败率，达到阈值后打开；
+ * OPEN：直接拒绝，超过打开时长后进入HALF_OPEN；
+ * HALF_OPEN：只放行少量试探调用，全部成功则关闭，任一失败重新打开
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final ResilienceProperties.CircuitBreaker properties;
+    private final long openDurationNanos;
+    /**
+     * 最近N次调用结果的环形缓冲区，true表示失败
+     */
+    private final boolean[] window;
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(ResilienceProperties.CircuitBreaker properties) {
+        if (properties.getSlidingWindowSize() < 1 || properties.getHalfOpenPermittedCalls() < 1) {
+            throw new IllegalArgumentException("熔断配置不合法：sliding-window-size和half-open-permitted-calls必须大于0");
+        }
+        this.properties = properties;
+        this.openDurationNanos = properties.getOpenDuration().toNanos();
+        this.window = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    /**
+     * 申请一次调用许可
+     * @throws CircuitBreakerOpenException 熔断打开或半开试探名额已用完时抛出
+     */
+    public synchronized void acquirePermission() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN, now);
+        }
+        if (state == State.OPEN) {
+            long remainingNanos = openDurationNanos - (now - openedAt);
+            throw new CircuitBreakerOpenException("模型服务暂时不可用，请稍后重试",
+                    TimeUnit.NANOSECONDS.toSeconds(remainingNanos) + 1);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits <= 0) {
+                throw new CircuitBreakerOpenException("模型服务恢复中，请稍后重试", 1);
+            }
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= properties.getHalfOpenPermittedCalls()) {
+                transitionTo(State.CLOSED, System.nanoTime());
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN, System.nanoTime());
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= properties.getMinimumCalls()
+                && (double) windowFailures / windowCount >= properties.getFailureRateThreshold()) {
+            transitionTo(State.OPEN, System.nanoTime());
+        }
+    }
+
+    /**
+     * 许可已申请但调用结果与上游健康无关（如参数错误），归还半开试探名额
+     */
+    public synchronized void onIgnore() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State target, long now) {
+        log.warn("模型调用熔断状态变更：{} -> {}", state, target);
+        state = target;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        halfOpenSuccesses = 0;
+        halfOpenPermits = target == State.HALF_OPEN ? properties.getHalfOpenPermittedCalls() : 0;
+        if (target == State.OPEN) {
+            openedAt = now;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.learn.springailearn.resilience;
+
+import lombok.Getter;
+
+/**
+ * 熔断打开时抛出，调用不会发往上游
+ * @author ken
+ * @date 2026-01-21
+ */
+@Getter
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public CircuitBreakerOpenException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1L, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,35 @@
+package com.learn.springailearn.resilience;
+
+import java.time.Duration;
+
+/**
+ * 请求截止时间，重试只能在剩余预算内进行
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 从当前时刻起给定时长后到期
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * 剩余时间，已到期时为0
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0L;
+    }
+}
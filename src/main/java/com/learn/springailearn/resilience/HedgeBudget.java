@@ -0,0 +1,38 @@
+package com.learn.springailearn.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲预算：每次首次调用存入ratio份额度，每次对冲消耗1份，额度上限为burst
+ * 保证长期来看对冲调用数不超过首次调用数的ratio倍
+ * @author ken
+ * @date 2026-01-21
+ */
+final class HedgeBudget {
+
+    private static final long UNIT = 1000L;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * UNIT);
+        this.capacity = burst * UNIT;
+    }
+
+    void onPrimary() {
+        balance.accumulateAndGet(deposit, (current, add) -> Math.min(capacity, current + add));
+    }
+
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+package com.learn.springailearn.resilience;
+
+/**
+ * 可对冲的模型调用
+ * 对冲调用需要与首次调用区分：跳过请求合并（否则会合并到首次调用上），且不再消耗用户的限流令牌
+ * @author ken
+ * @date 2026-01-21
+ */
+@FunctionalInterface
+public interface HedgeableCall<T> {
+
+    /**
+     * 执行一次模型调用
+     * @param hedge 是否为对冲调用
+     * @return 调用结果
+     */
+    T call(boolean hedge);
+}
@@ -0,0 +1,49 @@
+package com.learn.springailearn.resilience;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干次调用耗时的分位数估计
+ * 样本保存在环形缓冲区中，分位数在新增一定数量样本后才重新排序计算，读取不排序
+ * @author ken
+ * @date 2026-01-21
+ */
+final class LatencyPercentile {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private long[] sorted = new long[0];
+
+    LatencyPercentile(int maxSamples) {
+        this.samples = new long[maxSamples];
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        sinceRecompute++;
+    }
+
+    /**
+     * @param percentile 分位数（0~1）
+     * @param minSamples 最少样本数
+     * @return 分位数耗时（纳秒），样本不足时返回-1
+     */
+    synchronized long percentile(double percentile, int minSamples) {
+        if (size < minSamples) {
+            return -1L;
+        }
+        if (sinceRecompute >= RECOMPUTE_EVERY || sorted.length != size) {
+            sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            sinceRecompute = 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
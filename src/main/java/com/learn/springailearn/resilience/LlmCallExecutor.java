@@ -0,0 +1,195 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.config.ResilienceProperties;
+import com.learn.springailearn.config.VirtualThreadSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 模型调用执行器：按异常分类重试，带随机抖动的指数退避，整体不超过截止时间预算
+ * 退避等待通过延迟调度实现，等待期间不占用任何线程；每次尝试在独立执行器上运行，
+ * 开启对冲的接口在单次尝试内部还会对慢调用发起对冲（见{@link RequestHedger}）。
+ * 截止时间到达时取消进行中的尝试：底层HTTP请求被取消，释放执行线程、并发许可和上游连接（见{@link CallScope}）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class LlmCallExecutor {
+
+    /**
+     * 客户端传入剩余时间预算（毫秒）的请求头
+     */
+    public static final String DEADLINE_HEADER = "X-Request-Timeout";
+
+    private final ResilienceProperties.Retry retry;
+    private final ResilienceProperties.Deadline deadline;
+    private final ExecutorService executor;
+    private final RequestHedger hedger;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    public LlmCallExecutor(ResilienceProperties properties,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+                           MeterRegistry meterRegistry) {
+        this.retry = properties.getRetry();
+        this.deadline = properties.getDeadline();
+        this.executor = VirtualThreadSupport.executor(virtualThreadsEnabled, "llm-call-",
+                () -> Executors.newCachedThreadPool(daemonThreadFactory()));
+        this.hedger = new RequestHedger(properties.getHedge(), meterRegistry);
+        this.retryCounter = Counter.builder("ai.resilience.retries")
+                .description("模型调用重试次数")
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("ai.resilience.retries.exhausted")
+                .description("重试次数或时间预算耗尽后仍失败的调用次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 根据客户端传入的剩余时间计算截止时间，未传时使用默认预算，超过上限时截断
+     * @param requestedTimeoutMs 客户端剩余时间（毫秒），可为空
+     */
+    public Deadline deadline(Long requestedTimeoutMs) {
+        Duration timeout = requestedTimeoutMs == null || requestedTimeoutMs <= 0
+                ? deadline.getDefaultTimeout()
+                : Duration.ofMillis(requestedTimeoutMs);
+        if (timeout.compareTo(deadline.getMaxTimeout()) > 0) {
+            timeout = deadline.getMaxTimeout();
+        }
+        return Deadline.after(timeout);
+    }
+
+    /**
+     * 异步执行模型调用，失败时按分类重试
+     * 截止时间到达时返回的Future以TimeoutException结束，进行中的尝试随之取消
+     * @param operation 操作名称（用于日志）
+     * @param deadline 截止时间
+     * @param call 模型调用，只应包含可安全重复执行的部分
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> execute(String operation, Deadline deadline, Supplier<T> call) {
+        return execute(operation, deadline, null, hedge -> call.get());
+    }
+
+    /**
+     * 异步执行模型调用，失败时按分类重试；接口开启对冲时单次尝试内会对慢调用发起对冲
+     * @param operation 操作名称（用于日志）
+     * @param deadline 截止时间
+     * @param endpoint 接口标识（{@link com.learn.springailearn.advisor.ChatEndpoints}），为空时不对冲
+     * @param call 模型调用，根据参数区分首次调用和对冲调用
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> execute(String operation, Deadline deadline, String endpoint, HedgeableCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<T> inFlight = current.get();
+            if (error != null && inFlight != null) {
+                inFlight.cancel(false);
+            }
+        });
+        attempt(operation, deadline, endpoint, call, 1, executor, current, result);
+        return result.orTimeout(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 同步执行模型调用，等待期间调用线程阻塞在Future上（开启虚拟线程时不占用平台线程）
+     * @throws RuntimeException 最终失败的原始异常
+     */
+    public <T> T call(String operation, Deadline deadline, Supplier<T> call) {
+        return call(operation, deadline, null, hedge -> call.get());
+    }
+
+    /**
+     * 同步执行可对冲的模型调用
+     * @throws RuntimeException 最终失败的原始异常
+     */
+    public <T> T call(String operation, Deadline deadline, String endpoint, HedgeableCall<T> call) {
+        try {
+            return execute(operation, deadline, endpoint, call).join();
+        } catch (CompletionException e) {
+            Throwable cause = LlmErrorClassifier.unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void attempt(String operation, Deadline deadline, String endpoint, HedgeableCall<T> call, int attempt,
+                             Executor attemptExecutor, AtomicReference<CompletableFuture<T>> current,
+                             CompletableFuture<T> result) {
+        CompletableFuture<T> inFlight = hedger.invoke(endpoint, attemptExecutor, executor, deadline, call);
+        current.set(inFlight);
+        if (result.isDone()) {
+            // 截止时间恰好在发起本次尝试时到达
+            inFlight.cancel(false);
+            return;
+        }
+        inFlight.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = LlmErrorClassifier.unwrap(error);
+            if (result.isDone() || !LlmErrorClassifier.isRetryable(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long backoffMs = backoffMillis(attempt);
+            if (attempt >= retry.getMaxAttempts() || backoffMs >= deadline.remaining().toMillis()) {
+                exhaustedCounter.increment();
+                log.warn("{}第{}次调用失败，重试次数或时间预算已耗尽：{}", operation, attempt, cause.getMessage());
+                result.completeExceptionally(cause);
+                return;
+            }
+            retryCounter.increment();
+            log.warn("{}第{}次调用失败，{}ms后重试：{}", operation, attempt, backoffMs, cause.getMessage());
+            attempt(operation, deadline, endpoint, call, attempt + 1,
+                    CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS, executor), current, result);
+        });
+    }
+
+    /**
+     * 全抖动指数退避：在[0, min(上限, 基础值 × 系数^(n-1))]内随机取值，避免大量请求同时重试
+     */
+    private long backoffMillis(int attempt) {
+        double exponential = retry.getInitialBackoff().toMillis() * Math.pow(retry.getMultiplier(), attempt - 1);
+        long ceiling = (long) Math.min(retry.getMaxBackoff().toMillis(), exponential);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "llm-call-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 模型调用异常分类
+ * 可重试：超时、网络IO异常、HTTP 408/429/5xx、Spring AI的TransientAiException；
+ * 不可重试：参数校验失败、其余4xx（NonTransientAiException）、本地限流与熔断拒绝，以及无法识别的异常
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class LlmErrorClassifier {
+
+    private static final int REQUEST_TIMEOUT = 408;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+
+    private LlmErrorClassifier() {
+    }
+
+    /**
+     * 是否值得重试
+     * @param error 调用异常
+     */
+    public static boolean isRetryable(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof IllegalArgumentException
+                || cause instanceof RateLimitExceededException
+                || cause instanceof CircuitBreakerOpenException) {
+            return false;
+        }
+        int status = statusCode(cause);
+        if (status > 0) {
+            return status == REQUEST_TIMEOUT || status == TOO_MANY_REQUESTS || status >= SERVER_ERROR;
+        }
+        for (Throwable current = cause; current != null; current = nextCause(current)) {
+            if (current instanceof NonTransientAiException) {
+                return false;
+            }
+            if (current instanceof TransientAiException
+                    || current instanceof ResourceAccessException
+                    || current instanceof IOException
+                    || current instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去掉异步执行带来的CompletionException/ExecutionException包装
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * 是否为上游过载信号：HTTP 429或调用超时
+     * @param error 调用异常
+     */
+    public static boolean isOverload(Throwable error) {
+        return isTooManyRequests(error) || isTimeout(error);
+    }
+
+    /**
+     * 异常链中是否包含HTTP 429
+     * Spring AI的错误处理器把HTTP错误转换为AI异常，消息以状态码开头（如 "429 - ..."）
+     */
+    public static boolean isTooManyRequests(Throwable error) {
+        return statusCode(error) == TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * 异常链中是否包含超时
+     */
+    public static boolean isTimeout(Throwable error) {
+        for (Throwable current = error; current != null; current = nextCause(current)) {
+            if (current instanceof TimeoutException
+                    || current instanceof HttpTimeoutException
+                    || current instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从异常链中解析上游HTTP状态码
+     * @return 状态码，无法解析时返回-1
+     */
+    public static int statusCode(Throwable error) {
+        for (Throwable current = error; current != null; current = nextCause(current)) {
+            if (current instanceof RestClientResponseException restClientError) {
+                return restClientError.getStatusCode().value();
+            }
+            if (current instanceof WebClientResponseException webClientError) {
+                return webClientError.getStatusCode().value();
+            }
+            if (current instanceof TransientAiException || current instanceof NonTransientAiException) {
+                int parsed = parseLeadingStatus(current.getMessage());
+                if (parsed > 0) {
+                    return parsed;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int parseLeadingStatus(String message) {
+        if (message == null || message.length() < 3) {
+            return -1;
+        }
+        String prefix = message.startsWith("HTTP ") ? message.substring(5) : message;
+        if (prefix.length() < 3) {
+            return -1;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (!Character.isDigit(prefix.charAt(i))) {
+                return -1;
+            }
+        }
+        if (prefix.length() > 3 && Character.isDigit(prefix.charAt(3))) {
+            return -1;
+        }
+        return Integer.parseInt(prefix.substring(0, 3));
+    }
+
+    private static Throwable nextCause(Throwable current) {
+        Throwable cause = current.getCause();
+        return cause == current ? null : cause;
+    }
+}
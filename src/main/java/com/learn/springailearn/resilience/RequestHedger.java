@@ -0,0 +1,218 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.config.ResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲请求执行器
+ * 首次调用超过接口近期耗时的分位数仍未返回时，再发起一次相同的调用，取先成功的结果并取消另一个
+ * （取消底层HTTP请求，落败的调用不再继续生成和计费）；
+ * 对冲次数受预算限制（不超过首次调用数的固定比例），只有一个调用失败时等待另一个的结果
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+final class RequestHedger {
+
+    private final ResilienceProperties.Hedge properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EndpointState> states = new ConcurrentHashMap<>();
+
+    RequestHedger(ResilienceProperties.Hedge properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 执行一次（可能被对冲的）调用
+     * @param endpoint 接口标识，未配置对冲的接口直接执行首次调用
+     * @param attemptExecutor 首次调用的执行器（重试时带退避延迟）
+     * @param executor 对冲调用和延迟调度使用的执行器
+     * @param deadline 截止时间，限制每个调用的HTTP超时
+     * @param call 模型调用
+     * @return 先成功的调用结果；都失败时以最后一个失败结束。取消该Future会取消进行中的全部调用
+     */
+    <T> CompletableFuture<T> invoke(String endpoint, Executor attemptExecutor, Executor executor, Deadline deadline,
+                                    HedgeableCall<T> call) {
+        ResilienceProperties.Endpoint config = !properties.isEnabled() || endpoint == null
+                ? null : properties.getEndpoints().get(endpoint);
+        if (config == null) {
+            CancellableCall<T> single = new CancellableCall<>(() -> call.call(false), deadline);
+            attemptExecutor.execute(single);
+            return single.future();
+        }
+        EndpointState state = states.computeIfAbsent(endpoint, EndpointState::new);
+        state.budget.onPrimary();
+        state.primaryCounter.increment();
+        HedgedInvocation<T> invocation = new HedgedInvocation<>(state, config, executor, deadline, call);
+        attemptExecutor.execute(invocation.primary);
+        return invocation.result;
+    }
+
+    private final class EndpointState {
+
+        private final LatencyPercentile latency = new LatencyPercentile(properties.getMaxSamples());
+        private final HedgeBudget budget = new HedgeBudget(properties.getBudgetRatio(), properties.getBudgetBurst());
+        private final Counter primaryCounter;
+        private final Counter hedgeCounter;
+        private final Counter winCounter;
+        private final Counter deniedCounter;
+
+        private EndpointState(String endpoint) {
+            this.primaryCounter = Counter.builder("ai.hedge.calls")
+                    .description("开启对冲的接口发起的调用次数")
+                    .tags("endpoint", endpoint, "type", "primary")
+                    .register(meterRegistry);
+            this.hedgeCounter = Counter.builder("ai.hedge.calls")
+                    .description("开启对冲的接口发起的调用次数")
+                    .tags("endpoint", endpoint, "type", "hedge")
+                    .register(meterRegistry);
+            this.winCounter = Counter.builder("ai.hedge.wins")
+                    .description("对冲调用先于首次调用成功的次数")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            this.deniedCounter = Counter.builder("ai.hedge.budget.denied")
+                    .description("因预算不足未发起对冲的次数")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            ResilienceProperties.Endpoint config = properties.getEndpoints().get(endpoint);
+            Gauge.builder("ai.hedge.delay", this, state -> Math.max(0L, state.delayNanos(config)) / 1_000_000.0)
+                    .description("当前的对冲延迟，样本不足（不对冲）时为0")
+                    .baseUnit("milliseconds")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 对冲延迟：近期耗时的分位数，限制在[minDelay, maxDelay]内；样本不足时返回-1
+         */
+        private long delayNanos(ResilienceProperties.Endpoint config) {
+            long percentile = latency.percentile(config.getPercentile(), properties.getMinSamples());
+            if (percentile < 0) {
+                return -1L;
+            }
+            return Math.max(config.getMinDelay().toNanos(), Math.min(config.getMaxDelay().toNanos(), percentile));
+        }
+    }
+
+    private static final class HedgedInvocation<T> {
+
+        private final EndpointState state;
+        private final ResilienceProperties.Endpoint config;
+        private final Executor executor;
+        private final Deadline deadline;
+        private final HedgeableCall<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /**
+         * 尚未结束的调用数，归零时说明全部失败
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CancellableCall<T> primary;
+        private volatile CancellableCall<T> hedge;
+        /**
+         * 首次调用开始执行的时刻，未开始时为0
+         */
+        private volatile long primaryStart;
+
+        private HedgedInvocation(EndpointState state, ResilienceProperties.Endpoint config,
+                                 Executor executor, Deadline deadline, HedgeableCall<T> call) {
+            this.state = state;
+            this.config = config;
+            this.executor = executor;
+            this.deadline = deadline;
+            this.call = call;
+            this.primary = new CancellableCall<>(this::runPrimary, deadline);
+            primary.future().whenComplete((value, error) -> onComplete(false, value, error));
+            result.whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    // 外部取消（如截止时间到达）时取消进行中的全部调用
+                    primary.cancel();
+                    CancellableCall<T> hedgeCall = hedge;
+                    if (hedgeCall != null) {
+                        hedgeCall.cancel();
+                    }
+                }
+            });
+        }
+
+        /**
+         * 首次调用开始执行时才启动对冲计时，重试的退避等待不计入
+         */
+        private T runPrimary() {
+            primaryStart = System.nanoTime();
+            long delay = state.delayNanos(config);
+            if (delay > 0) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor).execute(this::launchHedge);
+            }
+            return call.call(false);
+        }
+
+        /**
+         * 记录首次调用的耗时，作为下一次对冲延迟的依据
+         * 首次调用被取消（对冲先成功或截止时间到达）时记录截至取消的耗时：真实耗时至少这么长（删失样本），
+         * 只记录成功耗时会让慢尾永远进不了样本，分位数越来越低、对冲越来越频繁
+         */
+        private void recordPrimaryLatency() {
+            long start = primaryStart;
+            if (start != 0L) {
+                state.latency.record(System.nanoTime() - start);
+            }
+        }
+
+        private void launchHedge() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!state.budget.tryAcquire()) {
+                state.deniedCounter.increment();
+                return;
+            }
+            pending.incrementAndGet();
+            if (result.isDone()) {
+                // 首次调用恰好在此期间结束
+                pending.decrementAndGet();
+                return;
+            }
+            state.hedgeCounter.increment();
+            CancellableCall<T> hedgeCall = new CancellableCall<>(() -> call.call(true), deadline);
+            hedge = hedgeCall;
+            hedgeCall.future().whenComplete((value, error) -> onComplete(true, value, error));
+            log.debug("首次调用超过对冲延迟仍未返回，发起对冲调用");
+            executor.execute(hedgeCall);
+        }
+
+        private void onComplete(boolean fromHedge, T value, Throwable error) {
+            if (!fromHedge && (error == null || error instanceof CancellationException)) {
+                recordPrimaryLatency();
+            }
+            if (error == null) {
+                if (result.complete(value)) {
+                    if (fromHedge) {
+                        state.winCounter.increment();
+                        primary.cancel();
+                    } else if (hedge != null) {
+                        hedge.cancel();
+                    }
+                }
+                return;
+            }
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.learn.springailearn.routing;
+
+import java.util.Arrays;
+
+/**
+ * 单个模型最近调用的样本环形缓冲区
+ * 样本带时间戳，统计时只使用时间窗口内的样本；健康状态由路由器定时计算后写入，路由时只读取
+ * @author ken
+ * @date 2026-01-21
+ */
+final class ModelHealth {
+
+    private final long[] timestamps;
+    private final long[] latencies;
+    private final boolean[] failures;
+    private int next;
+    private int size;
+    private volatile boolean healthy = true;
+
+    ModelHealth(int maxSamples) {
+        this.timestamps = new long[maxSamples];
+        this.latencies = new long[maxSamples];
+        this.failures = new boolean[maxSamples];
+    }
+
+    synchronized void record(long nowNanos, long latencyNanos, boolean failed) {
+        timestamps[next] = nowNanos;
+        latencies[next] = latencyNanos;
+        failures[next] = failed;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * 统计窗口内的调用数、失败数和P95耗时
+     */
+    synchronized ModelStats snapshot(long nowNanos, long windowNanos) {
+        long[] recent = new long[size];
+        int calls = 0;
+        int failed = 0;
+        for (int i = 0; i < size; i++) {
+            if (nowNanos - timestamps[i] > windowNanos) {
+                continue;
+            }
+            recent[calls++] = latencies[i];
+            if (failures[i]) {
+                failed++;
+            }
+        }
+        if (calls == 0) {
+            return new ModelStats(0, 0, 0L);
+        }
+        Arrays.sort(recent, 0, calls);
+        int p95Index = (int) Math.ceil(calls * 0.95) - 1;
+        return new ModelStats(calls, failed, recent[p95Index]);
+    }
+}
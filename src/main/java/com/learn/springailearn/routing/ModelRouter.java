@@ -0,0 +1,206 @@
+package com.learn.springailearn.routing;
+
+import com.learn.springailearn.config.ModelRoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 多模型路由器
+ * 按调用方提示或提示词规模/复杂度选出首选模型，再结合各模型近期的失败率和P95耗时判断是否需要降级：
+ * 首选模型不健康时优先选择更便宜、更快的模型，其次才是更高档的模型。
+ * 健康状态由定时任务按统计窗口重新计算，路由时只读取计算结果，不在请求路径上排序样本
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    /**
+     * 提示值：使用最便宜、最快的模型
+     */
+    public static final String HINT_FAST = "fast";
+
+    /**
+     * 提示值：使用能力最强的模型
+     */
+    public static final String HINT_BEST = "best";
+
+    /**
+     * 路由原因：调用方提示、启发式选择、降级到其他模型、所有模型都不健康时仍使用首选模型
+     */
+    private static final List<String> REASONS = List.of("hint", "heuristic", "fallback", "degraded");
+
+    private final ModelRoutingProperties properties;
+    private final List<String> models;
+    private final Map<String, ModelHealth> health = new LinkedHashMap<>();
+    private final Map<String, Map<String, Counter>> routeCounters = new HashMap<>();
+
+    public ModelRouter(ModelRoutingProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getModels() == null || properties.getModels().isEmpty()) {
+            throw new IllegalArgumentException("app.ai.routing.models不能为空");
+        }
+        this.properties = properties;
+        this.models = List.copyOf(properties.getModels());
+        for (String model : models) {
+            ModelHealth modelHealth = new ModelHealth(properties.getHealth().getMaxSamples());
+            health.put(model, modelHealth);
+            Gauge.builder("ai.model.route.healthy", modelHealth, h -> h.isHealthy() ? 1 : 0)
+                    .description("模型当前是否健康（1健康，0不健康）")
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Map<String, Counter> counters = new HashMap<>();
+            for (String reason : REASONS) {
+                counters.put(reason, Counter.builder("ai.model.route")
+                        .description("按模型和原因统计的路由次数")
+                        .tags("model", model, "reason", reason)
+                        .register(meterRegistry));
+            }
+            routeCounters.put(model, counters);
+        }
+    }
+
+    /**
+     * 为一次请求选择模型
+     * @param hint 调用方提示：模型名、{@link #HINT_FAST}或{@link #HINT_BEST}，为空时按启发式选择
+     * @param userText 用户消息文本
+     * @param promptChars 整个提示词（含系统指令和历史消息）的字符数
+     * @return 路由结果
+     * @throws IllegalArgumentException 提示的模型不在候选列表中时抛出
+     */
+    public RouteDecision route(String hint, String userText, int promptChars) {
+        int preferred;
+        String reason;
+        if (StringUtils.hasText(hint)) {
+            preferred = resolveHint(hint);
+            reason = "hint";
+        } else {
+            preferred = heuristicTier(userText, promptChars);
+            reason = "heuristic";
+        }
+        RouteDecision decision = new RouteDecision(models.get(preferred), reason);
+        if (!isHealthy(models.get(preferred))) {
+            decision = fallback(preferred);
+        }
+        routeCounters.get(decision.model()).get(decision.reason()).increment();
+        return decision;
+    }
+
+    /**
+     * 记录一次真实发往模型的调用结果
+     * @param model 模型
+     * @param latencyNanos 耗时（流式调用为首个片段耗时）
+     * @param failed 是否为模型侧失败（超时、限流、5xx），参数错误等客户端问题不应计入
+     */
+    public void record(String model, long latencyNanos, boolean failed) {
+        ModelHealth modelHealth = health.get(model);
+        if (modelHealth != null) {
+            modelHealth.record(System.nanoTime(), latencyNanos, failed);
+        }
+    }
+
+    /**
+     * 模型在统计窗口内的调用情况
+     * @throws IllegalArgumentException 模型不在候选列表中时抛出
+     */
+    public ModelStats stats(String model) {
+        ModelHealth modelHealth = health.get(model);
+        if (modelHealth == null) {
+            throw new IllegalArgumentException("不支持的模型：" + model);
+        }
+        return modelHealth.snapshot(System.nanoTime(), properties.getHealth().getWindow().toNanos());
+    }
+
+    /**
+     * 按统计窗口重新计算各模型的健康状态
+     */
+    @Scheduled(fixedDelayString = "#{@modelRoutingProperties.health.refreshInterval.toMillis()}")
+    public void refreshHealth() {
+        ModelRoutingProperties.Health config = properties.getHealth();
+        for (Map.Entry<String, ModelHealth> entry : health.entrySet()) {
+            ModelStats stats = stats(entry.getKey());
+            boolean healthy = stats.calls() < config.getMinimumCalls()
+                    || (stats.errorRate() <= config.getMaxErrorRate()
+                    && stats.p95LatencyNanos() <= config.getMaxP95Latency().toNanos());
+            if (entry.getValue().isHealthy() != healthy) {
+                log.info("模型{}健康状态变为{}，窗口内调用：{}，失败率：{}，P95耗时：{}ms", entry.getKey(),
+                        healthy ? "健康" : "不健康", stats.calls(), stats.errorRate(), stats.p95LatencyNanos() / 1_000_000);
+            }
+            entry.getValue().setHealthy(healthy);
+        }
+    }
+
+    public List<String> getModels() {
+        return models;
+    }
+
+    private boolean isHealthy(String model) {
+        return health.get(model).isHealthy();
+    }
+
+    /**
+     * 先向下寻找更便宜的健康模型，再向上寻找；都不健康时仍使用首选模型
+     */
+    private RouteDecision fallback(int preferred) {
+        for (int i = preferred - 1; i >= 0; i--) {
+            if (isHealthy(models.get(i))) {
+                log.warn("模型{}不健康，降级为{}", models.get(preferred), models.get(i));
+                return new RouteDecision(models.get(i), "fallback");
+            }
+        }
+        for (int i = preferred + 1; i < models.size(); i++) {
+            if (isHealthy(models.get(i))) {
+                log.warn("模型{}不健康，切换为{}", models.get(preferred), models.get(i));
+                return new RouteDecision(models.get(i), "fallback");
+            }
+        }
+        return new RouteDecision(models.get(preferred), "degraded");
+    }
+
+    private int resolveHint(String hint) {
+        if (HINT_FAST.equalsIgnoreCase(hint)) {
+            return 0;
+        }
+        if (HINT_BEST.equalsIgnoreCase(hint)) {
+            return models.size() - 1;
+        }
+        int index = models.indexOf(hint);
+        if (index < 0) {
+            throw new IllegalArgumentException("不支持的模型：" + hint + "，可选：" + models);
+        }
+        return index;
+    }
+
+    private int heuristicTier(String userText, int promptChars) {
+        int tier = 0;
+        if (promptChars >= properties.getLargePromptChars()) {
+            tier = 2;
+        } else if (promptChars >= properties.getMediumPromptChars()) {
+            tier = 1;
+        }
+        if (userText != null && isComplex(userText.toLowerCase(Locale.ROOT))) {
+            tier++;
+        }
+        return Math.min(tier, models.size() - 1);
+    }
+
+    private boolean isComplex(String text) {
+        for (String keyword : properties.getComplexKeywords()) {
+            if (text.contains(keyword.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.learn.springailearn.routing;
+
+/**
+ * 模型在统计窗口内的调用情况
+ * @param calls 调用次数
+ * @param failures 失败次数
+ * @param p95LatencyNanos P95耗时（纳秒）
+ * @author ken
+ * @date 2026-01-21
+ */
+public record ModelStats(int calls, int failures, long p95LatencyNanos) {
+
+    public double errorRate() {
+        return calls == 0 ? 0.0 : (double) failures / calls;
+    }
+}
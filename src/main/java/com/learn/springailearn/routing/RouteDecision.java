@@ -0,0 +1,12 @@
+package com.learn.springailearn.routing;
+
+/**
+ * 路由结果
+ * @param model 本次请求使用的模型
+ * @param reason 选择原因：hint（调用方指定）、heuristic（按提示词规模/复杂度）、
+ *               fallback（首选模型不健康，降级到其他模型）、degraded（所有模型都不健康，仍使用首选模型）
+ * @author ken
+ * @date 2026-01-21
+ */
+public record RouteDecision(String model, String reason) {
+}
@@ -0,0 +1,83 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.domain.BatchItemResult;
+import com.learn.springailearn.domain.BatchJobStatus;
+import reactor.core.Disposable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量文本生成异步任务，结果按完成顺序追加，轮询时按offset增量读取
+ * @author ken
+ * @date 2026-01-21
+ */
+public class BatchJob {
+
+    private final String jobId;
+    private final int total;
+    private final LocalDateTime createTime = LocalDateTime.now();
+    private final List<BatchItemResult> results;
+    private int succeeded;
+    private int failed;
+    private boolean completed;
+    private volatile Disposable subscription;
+
+    public BatchJob(String jobId, int total) {
+        this.jobId = jobId;
+        this.total = total;
+        this.results = new ArrayList<>(total);
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void attach(Disposable subscription) {
+        this.subscription = subscription;
+    }
+
+    /**
+     * 取消尚未完成的条目（任务过期或被淘汰时）
+     */
+    public void cancel() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    public synchronized void add(BatchItemResult result) {
+        results.add(result);
+        if (result.isSuccess()) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+    }
+
+    public synchronized void complete() {
+        completed = true;
+    }
+
+    /**
+     * 生成状态快照
+     * @param offset 起始下标（按完成顺序）
+     * @param limit 最多返回的条目结果数
+     */
+    public synchronized BatchJobStatus snapshot(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), results.size());
+        int to = Math.min(results.size(), from + limit);
+        BatchJobStatus status = new BatchJobStatus();
+        status.setJobId(jobId);
+        status.setStatus(completed ? "COMPLETED" : "RUNNING");
+        status.setTotal(total);
+        status.setSucceeded(succeeded);
+        status.setFailed(failed);
+        status.setCreateTime(createTime);
+        status.setResults(new ArrayList<>(results.subList(from, to)));
+        status.setNextOffset(to);
+        return status;
+    }
+}
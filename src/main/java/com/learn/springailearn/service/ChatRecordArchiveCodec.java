@@ -0,0 +1,105 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordArchive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 对话记录与归档记录之间的转换（提问、回答内容gzip压缩/解压）
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class ChatRecordArchiveCodec {
+
+    private ChatRecordArchiveCodec() {
+    }
+
+    /**
+     * 转换为归档记录
+     * @param record 热表中的对话记录
+     * @param previewLength 提问摘要长度
+     * @param archiveTime 归档时间
+     */
+    public static ChatRecordArchive toArchive(ChatRecord record, int previewLength, LocalDateTime archiveTime) {
+        ChatRecordArchive archive = new ChatRecordArchive();
+        archive.setId(record.getId());
+        archive.setUserId(record.getUserId());
+        archive.setSessionId(record.getSessionId() == null ? "" : record.getSessionId());
+        archive.setPromptPreview(preview(record.getUserPrompt(), previewLength));
+        archive.setUserPromptGz(compress(record.getUserPrompt()));
+        archive.setAiResponseGz(compress(record.getAiResponse()));
+        archive.setModel(record.getModel());
+        archive.setPromptTokens(zeroIfNull(record.getPromptTokens()));
+        archive.setCompletionTokens(zeroIfNull(record.getCompletionTokens()));
+        archive.setLatencyMs(zeroIfNull(record.getLatencyMs()));
+        archive.setCreateTime(record.getCreateTime());
+        archive.setArchiveTime(archiveTime);
+        archive.setIsDeleted(record.getIsDeleted() == null ? 0 : record.getIsDeleted());
+        return archive;
+    }
+
+    /**
+     * 还原为对话记录，更新时间取归档时间
+     */
+    public static ChatRecord toChatRecord(ChatRecordArchive archive) {
+        ChatRecord record = new ChatRecord();
+        record.setId(archive.getId());
+        record.setUserId(archive.getUserId());
+        record.setSessionId(archive.getSessionId());
+        record.setUserPrompt(decompress(archive.getUserPromptGz()));
+        record.setAiResponse(decompress(archive.getAiResponseGz()));
+        record.setModel(archive.getModel());
+        record.setPromptTokens(archive.getPromptTokens());
+        record.setCompletionTokens(archive.getCompletionTokens());
+        record.setLatencyMs(archive.getLatencyMs());
+        record.setCreateTime(archive.getCreateTime());
+        record.setUpdateTime(archive.getArchiveTime());
+        record.setIsDeleted(archive.getIsDeleted());
+        return record;
+    }
+
+    static byte[] compress(String text) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write((text == null ? "" : text).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("压缩对话内容失败", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static String decompress(byte[] data) {
+        if (data == null || data.length == 0) {
+            return "";
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解压归档对话内容失败", e);
+        }
+    }
+
+    private static Integer zeroIfNull(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static String preview(String text, int length) {
+        if (text == null) {
+            return "";
+        }
+        if (text.length() <= length) {
+            return text;
+        }
+        // 不在代理对中间截断（如emoji）
+        int end = Character.isHighSurrogate(text.charAt(length - 1)) ? length - 1 : length;
+        return text.substring(0, end);
+    }
+}
@@ -0,0 +1,262 @@
+package com.learn.springailearn.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.learn.springailearn.config.ChatRecordArchiveProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordArchive;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import com.learn.springailearn.mapper.ChatRecordArchiveMapper;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.shared.SharedStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 对话记录冷热分层服务
+ * 定时把超过保留期或已逻辑删除的记录分批迁移到压缩存储的归档表（或直接物理清除已删除记录），
+ * 保持热表及其索引足够小；同时为查询提供归档表的兜底读取。
+ * 多节点部署时各节点按同一cron触发，定时任务先在共享存储中抢占任务锁，只有抢到锁的节点执行归档
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Service
+public class ChatRecordArchiveService {
+
+    private static final String LOCK_KEY = "chat-record:archive:lock";
+
+    private final ChatRecordMapper chatRecordMapper;
+    private final ChatRecordArchiveMapper archiveMapper;
+    private final ChatRecordArchiveProperties properties;
+    private final PlatformTransactionManager transactionManager;
+    private final SharedStateStore sharedStateStore;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter archivedCounter;
+    private final Counter purgedCounter;
+    private final Timer batchTimer;
+
+    public ChatRecordArchiveService(ChatRecordMapper chatRecordMapper,
+                                    ChatRecordArchiveMapper archiveMapper,
+                                    ChatRecordArchiveProperties properties,
+                                    PlatformTransactionManager transactionManager,
+                                    SharedStateStore sharedStateStore,
+                                    MeterRegistry meterRegistry) {
+        this.chatRecordMapper = chatRecordMapper;
+        this.archiveMapper = archiveMapper;
+        this.properties = properties;
+        this.transactionManager = transactionManager;
+        this.sharedStateStore = sharedStateStore;
+        this.archivedCounter = Counter.builder("chat.record.archive.moved")
+                .description("迁移到归档表的对话记录数")
+                .register(meterRegistry);
+        this.purgedCounter = Counter.builder("chat.record.archive.purged")
+                .description("物理清除的已删除对话记录数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.record.archive.batch")
+                .description("单批归档耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时归档任务
+     * 共享存储为多节点存储时先抢占任务锁，锁的租期为最长运行时间，不主动释放：
+     * 同一cron触发的其他节点直接跳过，租期结束后下一次触发重新竞争
+     */
+    @Scheduled(cron = "${app.chat-record.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            if (sharedStateStore.isShared()
+                    && !sharedStateStore.setIfAbsent(LOCK_KEY, nodeId, properties.getMaxRunTime())) {
+                log.info("其他节点正在执行对话记录归档任务，本节点跳过");
+                return;
+            }
+            archive();
+        } catch (Exception e) {
+            log.error("对话记录归档任务失败：{}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行一次归档：先按创建时间迁移超过保留期的记录，再迁移保留期内已逻辑删除的记录；
+     * 两次扫描都走索引游标分批进行，批间停顿，超过最长运行时间后停止（下次继续）
+     * @return 本次处理（归档或清除）的记录数；已有归档任务在运行时返回0
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("上一次对话记录归档任务仍在运行，本次跳过");
+            return 0;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minus(properties.getArchiveAfter());
+            long runDeadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+            int batchSize = properties.getBatchSize();
+            int processed = moveBatches(runDeadline, last -> last == null
+                    ? chatRecordMapper.selectExpiredArchiveCandidates(before, null, null, batchSize)
+                    : chatRecordMapper.selectExpiredArchiveCandidates(before, last.getCreateTime(), last.getId(), batchSize));
+            processed += moveBatches(runDeadline, last -> chatRecordMapper.selectDeletedArchiveCandidates(
+                    last == null ? 0L : last.getId(), batchSize));
+            if (properties.isPurgeDeleted()) {
+                processed += purgeArchivedDeleted(runDeadline);
+            }
+            log.info("对话记录归档完成，截止时间：{}，处理记录数：{}", before, processed);
+            return processed;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 从归档表分页查询记录摘要（游标语义与热表一致）
+     */
+    public List<ChatRecordSummary> selectSummaryPage(String userId, LocalDateTime cursorTime, Long cursorId,
+                                                     int previewLength, int limit) {
+        return archiveMapper.selectSummaryPage(userId, cursorTime, cursorId, previewLength, limit);
+    }
+
+    /**
+     * 查询用户全部未删除的归档记录（解压后）
+     */
+    public List<ChatRecord> listByUserId(String userId) {
+        LambdaQueryWrapper<ChatRecordArchive> queryWrapper = Wrappers.lambdaQuery(ChatRecordArchive.class)
+                .eq(ChatRecordArchive::getUserId, userId)
+                .orderByDesc(ChatRecordArchive::getCreateTime);
+        List<ChatRecordArchive> archives = archiveMapper.selectList(queryWrapper);
+        List<ChatRecord> records = new ArrayList<>(archives.size());
+        for (ChatRecordArchive archive : archives) {
+            records.add(ChatRecordArchiveCodec.toChatRecord(archive));
+        }
+        return records;
+    }
+
+    /**
+     * 查询单条归档记录（解压后）
+     * @return 对话记录，不存在、已删除或不属于该用户时返回null
+     */
+    public ChatRecord findDetail(String userId, Long recordId) {
+        ChatRecordArchive archive = archiveMapper.selectOne(Wrappers.lambdaQuery(ChatRecordArchive.class)
+                .eq(ChatRecordArchive::getId, recordId)
+                .eq(ChatRecordArchive::getUserId, userId));
+        return archive == null ? null : ChatRecordArchiveCodec.toChatRecord(archive);
+    }
+
+    /**
+     * 查询归档记录所属的用户ID
+     * @return 用户ID，记录不存在或已删除时返回null
+     */
+    public String findOwnerId(Long recordId) {
+        ChatRecordArchive archive = archiveMapper.selectById(recordId);
+        return archive == null ? null : archive.getUserId();
+    }
+
+    /**
+     * 逻辑删除归档记录
+     * @return 影响行数
+     */
+    public int deleteById(Long recordId) {
+        return archiveMapper.deleteById(recordId);
+    }
+
+    /**
+     * 迁移一批记录：写入归档表与删除热表记录在同一事务中完成
+     */
+    private void moveBatch(List<ChatRecord> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ChatRecordArchive> archives = new ArrayList<>(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        int purged = 0;
+        for (ChatRecord record : batch) {
+            ids.add(record.getId());
+            boolean deleted = record.getIsDeleted() != null && record.getIsDeleted() == 1;
+            if (deleted && properties.isPurgeDeleted()) {
+                purged++;
+                continue;
+            }
+            archives.add(ChatRecordArchiveCodec.toArchive(record, properties.getPreviewLength(), now));
+        }
+
+        TransactionStatus txStatus = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            if (!archives.isEmpty()) {
+                archiveMapper.insertIgnoreBatch(archives);
+            }
+            chatRecordMapper.physicalDeleteByIds(ids);
+            transactionManager.commit(txStatus);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(txStatus);
+            throw e;
+        }
+        archivedCounter.increment(archives.size());
+        purgedCounter.increment(purged);
+        log.debug("对话记录归档批次完成，归档：{}，清除：{}，最后ID：{}", archives.size(), purged, ids.get(ids.size() - 1));
+    }
+
+    /**
+     * 按游标逐批查询并迁移，直到没有更多记录或超过最长运行时间
+     * @param nextBatch 根据上一批最后一条记录（第一批为null）查询下一批
+     * @return 处理的记录数
+     */
+    private int moveBatches(long runDeadline, Function<ChatRecord, List<ChatRecord>> nextBatch) {
+        ChatRecord last = null;
+        int processed = 0;
+        while (System.nanoTime() < runDeadline) {
+            List<ChatRecord> batch = nextBatch.apply(last);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Timer.Sample sample = Timer.start();
+            moveBatch(batch);
+            sample.stop(batchTimer);
+            processed += batch.size();
+            last = batch.get(batch.size() - 1);
+            if (batch.size() < properties.getBatchSize()) {
+                break;
+            }
+            pause();
+        }
+        return processed;
+    }
+
+    private int purgeArchivedDeleted(long runDeadline) {
+        int purged = 0;
+        while (System.nanoTime() < runDeadline) {
+            int deleted = archiveMapper.purgeDeleted(properties.getBatchSize());
+            purged += deleted;
+            if (deleted < properties.getBatchSize()) {
+                break;
+            }
+            pause();
+        }
+        purgedCounter.increment(purged);
+        return purged;
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(properties.getBatchPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("对话记录归档任务被中断", e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.cache.ChatHistoryCache;
+import com.learn.springailearn.config.ChatRecordWriterProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话记录异步批量写入器（write-behind）
+ * 请求线程只负责入队，后台线程按批量大小/时间窗口合并为多行INSERT写入，
+ * 队列有界，队列满时退化为调用线程同步写入以形成背压，停机时先刷完队列再退出，停机开始后提交的记录同步写入；
+ * 每批写入后失效相关用户的对话记录缓存
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class ChatRecordBatchWriter implements SmartLifecycle {
+
+    /**
+     * 在Web服务器停止接收请求之后再停止，保证停机前最后一批记录也能入库
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ChatRecordMapper chatRecordMapper;
+    private final ChatRecordWriterProperties properties;
+    private final ChatHistoryCache chatHistoryCache;
+    private final BlockingQueue<ChatRecord> queue;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter fallbackCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread flushThread;
+
+    public ChatRecordBatchWriter(ChatRecordMapper chatRecordMapper,
+                                 ChatRecordWriterProperties properties,
+                                 ChatHistoryCache chatHistoryCache,
+                                 MeterRegistry meterRegistry) {
+        this.chatRecordMapper = chatRecordMapper;
+        this.properties = properties;
+        this.chatHistoryCache = chatHistoryCache;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Gauge.builder("chat.record.writer.queue.depth", queue, BlockingQueue::size)
+                .description("待写入的对话记录数量")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.record.writer.flush")
+                .description("批量写入对话记录耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("chat.record.writer.batch.size")
+                .description("单次批量写入的记录数")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("chat.record.writer.fallback")
+                .description("队列已满退化为同步写入的次数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("chat.record.writer.failed")
+                .description("写入失败丢弃的记录数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交一条待保存的对话记录
+     * 创建时间在入队时确定，保证记录时间与问答发生时间一致
+     * @param chatRecord 对话记录
+     * @throws IllegalArgumentException 记录为空时抛出
+     */
+    public void submit(ChatRecord chatRecord) {
+        if (chatRecord == null) {
+            throw new IllegalArgumentException("对话记录不能为空");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        chatRecord.setCreateTime(now);
+        chatRecord.setUpdateTime(now);
+        chatRecord.setIsDeleted(0);
+
+        if (!properties.isEnabled() || !running) {
+            writeBatch(List.of(chatRecord));
+            return;
+        }
+        try {
+            if (queue.offer(chatRecord, properties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                // 入队前stop()可能已开始并排空了队列：入队后重新检查，记录仍在队列中则取回同步写入，
+                // 已被取走的记录由刷盘线程或停机排空负责写入
+                if (!running && queue.remove(chatRecord)) {
+                    writeBatch(List.of(chatRecord));
+                }
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 队列已满：由调用线程同步写入，把压力反馈给上游而不是无限堆积内存
+        fallbackCounter.increment();
+        log.warn("对话记录写入队列已满，退化为同步写入，用户ID：{}", chatRecord.getUserId());
+        writeBatch(List.of(chatRecord));
+    }
+
+    /**
+     * 当前队列中待写入的记录数
+     */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("对话记录异步批量写入未启用，使用同步写入");
+            return;
+        }
+        running = true;
+        flushThread = new Thread(this::flushLoop, "chat-record-writer");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        log.info("对话记录异步批量写入已启动，队列容量：{}，批量大小：{}，刷新间隔：{}ms",
+                properties.getQueueCapacity(), properties.getBatchSize(), properties.getFlushIntervalMs());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flushThread == null) {
+            return;
+        }
+        try {
+            flushThread.join(properties.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("停机刷盘超时，剩余{}条对话记录在当前线程写入", queue.size());
+            drainRemaining();
+        }
+        log.info("对话记录异步批量写入已停止");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * 后台刷盘循环：等待首条记录，再在时间窗口内凑满一批后写入
+     */
+    private void flushLoop() {
+        int batchSize = properties.getBatchSize();
+        List<ChatRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatRecord first = queue.poll(properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ChatRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("对话记录刷盘线程异常：{}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drainRemaining() {
+        List<ChatRecord> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 执行一次多行INSERT，整批失败时逐条重试以隔离问题记录
+     */
+    private void writeBatch(List<ChatRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            chatRecordMapper.insertBatch(batch);
+            log.debug("批量写入对话记录成功，数量：{}", batch.size());
+        } catch (Exception e) {
+            log.error("批量写入对话记录失败，数量：{}，改为逐条写入，异常信息：{}", batch.size(), e.getMessage(), e);
+            for (ChatRecord chatRecord : batch) {
+                try {
+                    chatRecordMapper.insertBatch(List.of(chatRecord));
+                } catch (Exception single) {
+                    failedCounter.increment();
+                    log.error("写入对话记录失败，用户ID：{}，异常信息：{}", chatRecord.getUserId(), single.getMessage(), single);
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            invalidateHistory(batch);
+        }
+    }
+
+    private void invalidateHistory(List<ChatRecord> batch) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (ChatRecord chatRecord : batch) {
+            userIds.add(chatRecord.getUserId());
+        }
+        userIds.forEach(chatHistoryCache::invalidate);
+    }
+}
@@ -0,0 +1,75 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 对话记录检索词回填
+ * search_terms列在升级前写入的记录上为空，这些记录检索不到；开启app.chat-record.search.backfill-on-startup后，
+ * 应用就绪时在后台线程按主键顺序分批生成并写入检索词（更新语句幂等，只需在一个节点上开启）
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Service
+public class ChatRecordSearchBackfill implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ChatRecordMapper chatRecordMapper;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ChatRecordSearchBackfill(ChatRecordMapper chatRecordMapper,
+                                    @Value("${app.chat-record.search.backfill-on-startup:false}") boolean enabled,
+                                    @Value("${app.chat-record.search.backfill-batch-size:500}") int batchSize) {
+        this.chatRecordMapper = chatRecordMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("对话记录检索词回填失败：{}", e.getMessage(), e);
+            }
+        }, "chat-search-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 回填全部缺少检索词的记录
+     * @return 回填的记录数
+     */
+    public int backfill() {
+        long afterId = 0L;
+        int filled = 0;
+        while (true) {
+            List<ChatRecord> batch = chatRecordMapper.selectSearchTermsBackfill(afterId, batchSize);
+            for (ChatRecord record : batch) {
+                chatRecordMapper.updateSearchTerms(record.getId(),
+                        ChatRecordSearchTerms.document(record.getUserId(), record.getUserPrompt(), record.getAiResponse()));
+            }
+            filled += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            log.debug("对话记录检索词回填进度，已回填：{}，最后ID：{}", filled, afterId);
+        }
+        log.info("对话记录检索词回填完成，回填记录数：{}", filled);
+        return filled;
+    }
+}
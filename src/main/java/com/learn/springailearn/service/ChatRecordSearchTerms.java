@@ -0,0 +1,117 @@
+package com.learn.springailearn.service;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 对话记录全文检索词的生成（按用户隔离的二元分词）
+ * ngram分词的FULLTEXT索引中，常见词的倒排列表包含所有用户的记录，MATCH先在全表范围内求交再按user_id过滤，
+ * 检索耗时随全表数据量增长。这里在应用侧完成二元分词，每个词加上由用户ID散列得到的前缀（如“0k3f9a2数据”），
+ * 写入search_terms列并以默认分词器建立FULLTEXT索引：不同用户的同一个词是不同的索引词，
+ * 检索只读取该用户自己的倒排列表，耗时取决于用户自身的记录数。
+ * 分词规则与ngram（ngram_token_size=2）一致：只在连续的字母、数字、汉字序列内切分，标点、空白和表情作为分隔
+ * @author ken
+ * @date 2026-01-21
+ */
+public final class ChatRecordSearchTerms {
+
+    /**
+     * 用户前缀长度：32位散列的36进制表示，不足补0
+     */
+    private static final int USER_KEY_LENGTH = 7;
+
+    private static final int GRAM_SIZE = 2;
+
+    private ChatRecordSearchTerms() {
+    }
+
+    /**
+     * 生成写入search_terms列的检索词文本
+     * @param userId 用户ID
+     * @param texts 需要检索的内容（提问、回答）
+     * @return 以空格分隔的检索词
+     */
+    public static String document(String userId, String... texts) {
+        String userKey = userKey(userId);
+        StringBuilder document = new StringBuilder();
+        for (String text : texts) {
+            for (String gram : grams(text)) {
+                if (document.length() > 0) {
+                    document.append(' ');
+                }
+                document.append(userKey).append(gram);
+            }
+        }
+        return document.toString();
+    }
+
+    /**
+     * 把用户输入的关键词转换为BOOLEAN MODE检索式：每个词的二元分词按顺序组成必须出现的短语（+"词1 词2"），
+     * 与ngram索引的短语检索语义一致，避免自然语言模式下二元分词带来的大量噪声命中；
+     * 过短或不含字母、数字的词无法命中索引直接忽略
+     * @param userId 用户ID
+     * @param keyword 用户输入的关键词，多个词以空白分隔
+     * @param minTermLength 单个词的最小长度
+     * @return 检索式，没有有效词时返回空字符串
+     */
+    public static String booleanQuery(String userId, String keyword, int minTermLength) {
+        String userKey = userKey(userId);
+        StringBuilder query = new StringBuilder();
+        for (String term : keyword.trim().split("\\s+")) {
+            if (term.codePointCount(0, term.length()) < minTermLength) {
+                continue;
+            }
+            List<String> grams = grams(term);
+            if (grams.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"");
+            for (int i = 0; i < grams.size(); i++) {
+                if (i > 0) {
+                    query.append(' ');
+                }
+                query.append(userKey).append(grams.get(i));
+            }
+            query.append('"');
+        }
+        return query.toString();
+    }
+
+    /**
+     * 用户前缀，散列冲突只会多出候选记录，查询仍按user_id过滤
+     */
+    static String userKey(String userId) {
+        int hash = Hashing.murmur3_32_fixed().hashString(userId, StandardCharsets.UTF_8).asInt();
+        String key = Integer.toUnsignedString(hash, Character.MAX_RADIX);
+        return "0".repeat(USER_KEY_LENGTH - key.length()) + key;
+    }
+
+    /**
+     * 按连续的字母/数字序列切分二元词，长度不足的序列忽略（与ngram分词一致）
+     */
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        if (text == null) {
+            return grams;
+        }
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        int runStart = 0;
+        for (int i = 0; i <= codePoints.length; i++) {
+            if (i < codePoints.length && Character.isLetterOrDigit(codePoints[i])) {
+                continue;
+            }
+            for (int start = runStart; start + GRAM_SIZE <= i; start++) {
+                grams.add(new String(codePoints, start, GRAM_SIZE));
+            }
+            runStart = i + 1;
+        }
+        return grams;
+    }
+}
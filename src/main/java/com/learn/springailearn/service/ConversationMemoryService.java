@@ -0,0 +1,272 @@
+package com.learn.springailearn.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.learn.springailearn.config.ConversationMemoryProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.prompt.QwenTokenEstimator;
+import com.learn.springailearn.shared.SharedStateStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多轮对话会话记忆服务
+ * 活跃会话的最近若干轮对话保存在内存中（按LRU和空闲时间淘汰），未命中时从数据库回填最近几轮；
+ * 发送给模型的历史按token预算从新到旧截取，可选地把移出窗口的早期对话异步压缩为摘要。
+ * 共享状态为多节点存储时，某个节点追加或移除会话后广播通知，其他节点丢弃各自的内存窗口，下次访问时从数据库重新回填
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Service
+public class ConversationMemoryService {
+
+    private static final String INVALIDATE_CHANNEL = "chat:memory:invalidate";
+
+    private final ChatRecordMapper chatRecordMapper;
+    private final ChatClient chatClient;
+    private final ConversationMemoryProperties properties;
+    private final LoadingCache<SessionKey, ConversationSession> sessions;
+    private final ExecutorService summaryExecutor;
+    private final SharedStateStore sharedStore;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ConversationMemoryService(ChatRecordMapper chatRecordMapper,
+                                     ChatClient chatClient,
+                                     ConversationMemoryProperties properties,
+                                     SharedStateStore sharedStateStore,
+                                     MeterRegistry meterRegistry) {
+        this.chatRecordMapper = chatRecordMapper;
+        this.chatClient = chatClient;
+        this.properties = properties;
+        this.sessions = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSessions())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .recordStats()
+                .build(CacheLoader.from(this::loadSession));
+        GuavaCacheMetrics.monitor(meterRegistry, sessions, "chat.memory.sessions");
+        // 摘要任务排队有上限，积压时直接丢弃（下一次淘汰时会再次合并）
+        this.summaryExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "chat-memory-summary");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.sharedStore = sharedStateStore.isShared() ? sharedStateStore : null;
+        if (sharedStore != null) {
+            sharedStore.subscribe(INVALIDATE_CHANNEL, this::onRemoteChange);
+        }
+    }
+
+    /**
+     * 获取发送给模型的历史消息（摘要 + 预算内的最近几轮对话）
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @return 历史消息，按时间正序
+     */
+    public List<Message> history(String userId, String sessionId) {
+        if (!properties.isEnabled()) {
+            return Collections.emptyList();
+        }
+        ConversationSession session = sessions.getUnchecked(new SessionKey(userId, normalize(sessionId)));
+        return session.window(properties.getTokenBudget());
+    }
+
+    /**
+     * 记录一轮完成的对话
+     * 只更新内存中已存在的会话；会话已被淘汰时由数据库记录兜底，避免与回填数据重复
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @param userPrompt 用户提问
+     * @param aiResponse AI回答
+     */
+    public void append(String userId, String sessionId, String userPrompt, String aiResponse) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        broadcast(userId, sessionId);
+        ConversationSession session = sessions.getIfPresent(new SessionKey(userId, normalize(sessionId)));
+        if (session == null) {
+            return;
+        }
+        List<Turn> evicted = session.append(new Turn(userPrompt, aiResponse),
+                properties.getMaximumTurns(), properties.getTokenBudget());
+        if (!evicted.isEmpty() && properties.getSummary().isEnabled()) {
+            summaryExecutor.execute(() -> summarize(session, evicted));
+        }
+    }
+
+    /**
+     * 移除会话记忆（例如用户删除对话记录后），多节点部署时同时通知其他节点
+     */
+    public void invalidate(String userId, String sessionId) {
+        sessions.invalidate(new SessionKey(userId, normalize(sessionId)));
+        broadcast(userId, sessionId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        summaryExecutor.shutdownNow();
+    }
+
+    private ConversationSession loadSession(SessionKey key) {
+        ConversationSession session = new ConversationSession();
+        List<ChatRecord> records = chatRecordMapper.selectRecentTurns(key.userId(), key.sessionId(),
+                properties.getLoadTurnsOnMiss());
+        // 查询结果为倒序，回填时恢复为正序
+        for (int i = records.size() - 1; i >= 0; i--) {
+            ChatRecord record = records.get(i);
+            session.append(new Turn(record.getUserPrompt(), record.getAiResponse()),
+                    properties.getMaximumTurns(), properties.getTokenBudget());
+        }
+        log.debug("会话记忆从数据库回填，用户ID：{}，会话ID：{}，轮数：{}", key.userId(), key.sessionId(), records.size());
+        return session;
+    }
+
+    private void summarize(ConversationSession session, List<Turn> evicted) {
+        try {
+            StringBuilder content = new StringBuilder();
+            String previous = session.summary();
+            if (StringUtils.hasText(previous)) {
+                content.append("已有摘要：").append(previous).append('\n');
+            }
+            for (Turn turn : evicted) {
+                content.append("用户：").append(turn.userPrompt()).append('\n')
+                        .append("助手：").append(turn.aiResponse()).append('\n');
+            }
+            String summary = chatClient.prompt()
+                    .system("你是对话摘要助手，请把给出的对话压缩为不超过" + properties.getSummary().getMaximumLength()
+                            + "字的摘要，保留用户的关键信息、偏好和未解决的问题。")
+                    .user(content.toString())
+                    .call()
+                    .content();
+            if (StringUtils.hasText(summary)) {
+                session.updateSummary(summary);
+            }
+        } catch (Exception e) {
+            log.warn("会话早期对话摘要生成失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 通知其他节点该会话已变化，消息为[节点ID, 用户ID, 会话ID]，本节点收到自己发出的消息时忽略
+     */
+    private void broadcast(String userId, String sessionId) {
+        if (sharedStore == null) {
+            return;
+        }
+        try {
+            sharedStore.publish(INVALIDATE_CHANNEL, JSON.toJSONString(List.of(nodeId, userId, normalize(sessionId))));
+        } catch (Exception e) {
+            // 广播失败时其他节点的会话窗口依靠空闲过期兜底
+            log.warn("会话记忆变更广播失败，用户ID：{}，异常信息：{}", userId, e.getMessage());
+        }
+    }
+
+    private void onRemoteChange(String message) {
+        List<String> fields = JSON.parseArray(message, String.class);
+        if (fields.size() != 3 || nodeId.equals(fields.get(0))) {
+            return;
+        }
+        sessions.invalidate(new SessionKey(fields.get(1), fields.get(2)));
+    }
+
+    private String normalize(String sessionId) {
+        return sessionId == null ? "" : sessionId;
+    }
+
+    private record SessionKey(String userId, String sessionId) {
+    }
+
+    private record Turn(String userPrompt, String aiResponse, int tokens) {
+        Turn(String userPrompt, String aiResponse) {
+            this(userPrompt, aiResponse, QwenTokenEstimator.estimate(userPrompt) + QwenTokenEstimator.estimate(aiResponse));
+        }
+    }
+
+    /**
+     * 单个会话的内存窗口
+     */
+    private static final class ConversationSession {
+
+        private final Deque<Turn> turns = new ArrayDeque<>();
+        private int totalTokens;
+        private String summary;
+
+        /**
+         * 追加一轮对话，超出轮数或token预算时从最早的一轮开始移出
+         * @return 被移出窗口的对话
+         */
+        synchronized List<Turn> append(Turn turn, int maximumTurns, int tokenBudget) {
+            turns.addLast(turn);
+            totalTokens += turn.tokens();
+            List<Turn> evicted = new ArrayList<>();
+            while (turns.size() > maximumTurns || (totalTokens > tokenBudget && turns.size() > 1)) {
+                Turn removed = turns.pollFirst();
+                totalTokens -= removed.tokens();
+                evicted.add(removed);
+            }
+            return evicted;
+        }
+
+        /**
+         * 从最新一轮往前截取预算内的对话，按时间正序返回
+         */
+        synchronized List<Message> window(int tokenBudget) {
+            Deque<Turn> selected = new ArrayDeque<>();
+            int used = 0;
+            Iterator<Turn> iterator = turns.descendingIterator();
+            while (iterator.hasNext()) {
+                Turn turn = iterator.next();
+                if (used + turn.tokens() > tokenBudget) {
+                    break;
+                }
+                used += turn.tokens();
+                selected.addFirst(turn);
+            }
+            List<Message> messages = new ArrayList<>(selected.size() * 2 + 1);
+            if (StringUtils.hasText(summary)) {
+                messages.add(new SystemMessage("以下是此前对话的摘要：" + summary));
+            }
+            for (Turn turn : selected) {
+                messages.add(new UserMessage(turn.userPrompt()));
+                messages.add(new AssistantMessage(turn.aiResponse()));
+            }
+            return messages;
+        }
+
+        synchronized String summary() {
+            return summary;
+        }
+
+        synchronized void updateSummary(String summary) {
+            this.summary = summary;
+        }
+    }
+}
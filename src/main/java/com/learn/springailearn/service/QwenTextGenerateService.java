@@ -1,9 +1,56 @@
 package com.learn.springailearn.service;
 
+import com.learn.springailearn.domain.BatchGenerateRequest;
+import com.learn.springailearn.domain.BatchItemResult;
+import com.learn.springailearn.domain.BatchJobStatus;
+import reactor.core.publisher.Flux;
+
 import java.util.Map;
 
 public interface QwenTextGenerateService {
     String generateText(String userPrompt);
 
     String generateTextWithSystemPrompt(String systemPrompt, String userPrompt, Map<String, Object> params);
-}
\ No newline at end of file
+
+    /**
+     * 注册系统指令模板，之后可以只传模板ID和参数调用
+     */
+    void registerSystemTemplate(String templateId, String template);
+
+    /**
+     * 使用已注册的系统指令模板生成文本
+     */
+    String generateTextWithTemplate(String templateId, String userPrompt, Map<String, Object> params);
+
+    /**
+     * 流式文本生成，按模型返回的片段逐段推送
+     */
+    Flux<String> generateTextStream(String userPrompt);
+
+    /**
+     * 带系统指令的流式文本生成
+     */
+    Flux<String> generateTextWithSystemPromptStream(String systemPrompt, String userPrompt, Map<String, Object> params);
+
+    /**
+     * 使用已注册的系统指令模板流式生成文本
+     */
+    Flux<String> generateTextWithTemplateStream(String templateId, String userPrompt, Map<String, Object> params);
+
+    /**
+     * 批量文本生成，条目按有限并行度并发调用模型，每完成一条即推送一条结果（单条失败不影响其余条目）
+     */
+    Flux<BatchItemResult> generateBatch(BatchGenerateRequest request);
+
+    /**
+     * 提交批量文本生成异步任务（用于条目很多的离线任务）
+     * @return 任务ID
+     */
+    String submitBatchJob(BatchGenerateRequest request);
+
+    /**
+     * 查询异步任务状态，不存在或已过期时返回null
+     * @param offset 已读取的结果数，只返回之后完成的条目
+     */
+    BatchJobStatus getBatchJob(String jobId, int offset);
+}
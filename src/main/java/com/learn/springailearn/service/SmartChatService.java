@@ -3,23 +3,47 @@ package com.learn.springailearn.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.google.common.collect.Lists;
+import com.learn.springailearn.advisor.ChatEndpoints;
+import com.learn.springailearn.advisor.ModelRoutingAdvisor;
+import com.learn.springailearn.advisor.SingleFlightAdvisor;
+import com.learn.springailearn.advisor.UserRateLimitAdvisor;
+import com.learn.springailearn.cache.ChatHistoryCache;
 import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordPage;
+import com.learn.springailearn.domain.ChatRecordSearchHit;
+import com.learn.springailearn.domain.ChatRecordSearchPage;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import com.learn.springailearn.limiter.TokenQuotaExceededException;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.QwenTokenEstimator;
 import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.usage.TokenUsageTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 智能问答+对话记录管理服务
@@ -32,27 +56,64 @@ import java.util.List;
 public class SmartChatService {
     private final ChatClient chatClient;
     private final ChatRecordMapper chatRecordMapper;
+    private final ChatRecordBatchWriter chatRecordBatchWriter;
+    private final ChatRecordArchiveService chatRecordArchiveService;
+    private final ChatHistoryCache chatHistoryCache;
+    private final ConversationMemoryService conversationMemoryService;
+    private final LlmCallExecutor llmCallExecutor;
+    private final TokenUsageTracker tokenUsageTracker;
+    private final PromptPreprocessor promptPreprocessor;
     private final PlatformTransactionManager transactionManager;
 
     /**
-     * 从配置文件读取当前使用的通义千问模型版本
+     * 从配置文件读取默认的通义千问模型版本，无法确定实际调用的模型时使用
      */
     @Value("${spring.ai.alibaba.qwen.model:qwen-turbo}")
     private String qwenModel;
 
+    /**
+     * 历史列表中提问内容的截断长度
+     */
+    @Value("${app.chat-record.history.preview-length:100}")
+    private int historyPreviewLength;
+
+    /**
+     * 历史列表单页最大条数
+     */
+    @Value("${app.chat-record.history.max-page-size:100}")
+    private int historyMaxPageSize;
+
+    /**
+     * 全文检索最多可翻的页数，限制深分页的扫描开销
+     */
+    @Value("${app.chat-record.search.max-pages:50}")
+    private int searchMaxPages;
+
+    /**
+     * 全文检索关键词的最大长度
+     */
+    @Value("${app.chat-record.search.max-keyword-length:100}")
+    private int searchMaxKeywordLength;
+
+    /**
+     * 单个检索词的最小长度（检索词按二元切分，更短的词无法命中索引）
+     */
+    @Value("${app.chat-record.search.min-term-length:2}")
+    private int searchMinTermLength;
+
     /**
      * 智能问答并保存对话记录
+     * 只有模型调用按异常分类重试（退避等待不占用线程），保存记录在调用成功后执行且只执行一次
      * @param userId 用户ID
      * @param userPrompt 用户提问内容
-     * @return AI生成的回答内容
-     * @throws IllegalArgumentException 参数为空时抛出
-     */
-    @Retryable(
-        value = {Exception.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 2000, multiplier = 1.5)
-    )
-    public String chatAndSaveRecord(String userId, String userPrompt) {
+     * @param sessionId 会话ID，为空时使用用户的默认会话
+     * @param modelHint 模型提示（模型名、fast或best），为空时按提示词规模和复杂度自动选择
+     * @param requestTimeoutMs 客户端剩余时间预算（毫秒），为空时使用默认预算
+     * @return AI生成的回答内容，失败时以原始异常结束（限流、额度用完、熔断、超时等由调用方区分处理）
+     * @throws IllegalArgumentException 参数为空或提问超出模型上下文长度时抛出
+     */
+    public CompletableFuture<String> chatAndSaveRecord(String userId, String userPrompt, String sessionId,
+                                                       String modelHint, Long requestTimeoutMs) {
         // 1. 参数校验（符合阿里巴巴开发手册：前置参数校验）
         if (!StringUtils.hasText(userId)) {
             throw new IllegalArgumentException("用户ID不能为空");
@@ -61,68 +122,215 @@ public class SmartChatService {
             throw new IllegalArgumentException("用户提问内容不能为空");
         }
         log.debug("开始处理智能问答请求，用户ID：{}，提问内容：{}", userId, userPrompt);
+        try {
+            tokenUsageTracker.checkQuota(userId);
+        } catch (TokenQuotaExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        // 2. 编程式事务定义（隔离级别：读提交，传播行为：REQUIRED）
-        DefaultTransactionDefinition txDefinition = new DefaultTransactionDefinition();
-        txDefinition.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
-        txDefinition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
-        TransactionStatus txStatus = transactionManager.getTransaction(txDefinition);
+        // 2. 携带会话记忆中预算内的历史，预处理提问后调用通义千问获取回答（模型调用期间不持有事务和数据库连接）
+        List<Message> history = conversationMemoryService.history(userId, sessionId);
+        String prompt = promptPreprocessor.prepare(userPrompt, estimateTokens(history)).text();
+        // 重试和对冲调用不再消耗用户的限流令牌，对冲调用跳过请求合并
+        AtomicBoolean firstAttempt = new AtomicBoolean(true);
+        long start = System.nanoTime();
+        return llmCallExecutor.execute("智能问答", llmCallExecutor.deadline(requestTimeoutMs), ChatEndpoints.SMART_CHAT,
+                        hedge -> chatClient.prompt()
+                                .messages(history)
+                                .user(prompt)
+                                .advisors(a -> {
+                                    a.param(ChatEndpoints.CONTEXT_KEY, ChatEndpoints.SMART_CHAT);
+                                    a.param(SingleFlightAdvisor.BYPASS, hedge);
+                                    if (!hedge && firstAttempt.getAndSet(false)) {
+                                        a.param(UserRateLimitAdvisor.USER_ID, userId);
+                                    }
+                                    if (StringUtils.hasText(modelHint)) {
+                                        a.param(ModelRoutingAdvisor.MODEL_HINT, modelHint);
+                                    }
+                                })
+                                .call()
+                                .chatClientResponse())
+                .thenApply(response -> {
+                    String aiResponse = text(response.chatResponse());
+                    if (!StringUtils.hasText(aiResponse)) {
+                        throw new IllegalStateException("AI生成的回答内容为空");
+                    }
+                    // 3. 更新会话记忆，累计token用量，按实际调用的模型构建对话记录实体并交给异步批量写入器
+                    conversationMemoryService.append(userId, sessionId, prompt, aiResponse);
+                    CallUsage usage = callUsage(response.chatResponse().getMetadata().getUsage(), history, prompt,
+                            aiResponse);
+                    tokenUsageTracker.record(userId, usage.promptTokens(), usage.completionTokens());
+                    chatRecordBatchWriter.submit(buildChatRecord(userId, sessionId, prompt, aiResponse,
+                            ModelRoutingAdvisor.modelUsed(response, qwenModel), usage, elapsedMillis(start)));
+                    log.debug("智能问答成功，对话记录已提交保存，用户ID：{}", userId);
+                    return aiResponse;
+                });
+    }
 
-        try {
-            // 3. 调用通义千问获取回答
-            String aiResponse = chatClient.prompt()
-                    .user(userPrompt)
-                    .call()
-                    .content()
-                    .toString();
-            if (!StringUtils.hasText(aiResponse)) {
-                throw new IllegalArgumentException("AI生成的回答内容不能为空");
-            }
+    /**
+     * 流式智能问答，回答片段实时推送给调用方，流正常结束后再保存完整的对话记录
+     * @param userId 用户ID
+     * @param userPrompt 用户提问内容
+     * @param sessionId 会话ID，为空时使用用户的默认会话
+     * @param modelHint 模型提示（模型名、fast或best），为空时按提示词规模和复杂度自动选择
+     * @return AI回答的片段流
+     * @throws IllegalArgumentException 参数为空或提问超出模型上下文长度时抛出
+     */
+    public Flux<String> chatStreamAndSaveRecord(String userId, String userPrompt, String sessionId, String modelHint) {
+        if (!StringUtils.hasText(userId)) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (!StringUtils.hasText(userPrompt)) {
+            throw new IllegalArgumentException("用户提问内容不能为空");
+        }
+        log.debug("开始处理流式智能问答请求，用户ID：{}，提问内容：{}", userId, userPrompt);
 
-            // 4. 构建对话记录实体
-            ChatRecord chatRecord = new ChatRecord();
-            chatRecord.setUserId(userId);
-            chatRecord.setUserPrompt(userPrompt);
-            chatRecord.setAiResponse(aiResponse);
-            chatRecord.setModel(qwenModel);
-
-            // 5. 保存对话记录
-            int insertCount = chatRecordMapper.insert(chatRecord);
-            if (insertCount != 1) {
-                throw new RuntimeException("保存对话记录失败，影响行数不符合预期");
-            }
+        // 提问超长在建立流之前同步拒绝（此时仍可返回400）
+        List<Message> history = conversationMemoryService.history(userId, sessionId);
+        String prompt = promptPreprocessor.prepare(userPrompt, estimateTokens(history)).text();
 
-            // 6. 提交事务
-            transactionManager.commit(txStatus);
-            log.debug("智能问答并保存记录成功，用户ID：{}，记录ID：{}", userId, chatRecord.getId());
-            return aiResponse;
-        } catch (Exception e) {
-            // 7. 回滚事务
-            transactionManager.rollback(txStatus);
-            log.error("智能问答并保存记录失败，用户ID：{}，异常信息：{}", userId, e.getMessage(), e);
-            throw new RuntimeException("智能问答处理失败：" + e.getMessage(), e);
+        // 每次订阅使用独立的缓冲区拼接完整回答
+        return Flux.defer(() -> {
+            tokenUsageTracker.checkQuota(userId);
+            StringBuilder aiResponse = new StringBuilder();
+            AtomicReference<String> model = new AtomicReference<>(qwenModel);
+            AtomicReference<Usage> reportedUsage = new AtomicReference<>();
+            long start = System.nanoTime();
+            return chatClient.prompt()
+                    .messages(history)
+                    .user(prompt)
+                    .advisors(a -> {
+                        a.param(UserRateLimitAdvisor.USER_ID, userId);
+                        if (StringUtils.hasText(modelHint)) {
+                            a.param(ModelRoutingAdvisor.MODEL_HINT, modelHint);
+                        }
+                    })
+                    .stream()
+                    .chatClientResponse()
+                    .doOnNext(response -> {
+                        model.set(ModelRoutingAdvisor.modelUsed(response, model.get()));
+                        // token用量只出现在（最后的）部分片段的元数据中
+                        if (response.chatResponse() != null && hasUsage(response.chatResponse().getMetadata().getUsage())) {
+                            reportedUsage.set(response.chatResponse().getMetadata().getUsage());
+                        }
+                    })
+                    .mapNotNull(response -> text(response.chatResponse()))
+                    .doOnNext(aiResponse::append)
+                    .doOnComplete(() -> saveStreamedRecord(userId, sessionId, prompt, aiResponse.toString(),
+                            model.get(), callUsage(reportedUsage.get(), history, prompt, aiResponse.toString()),
+                            elapsedMillis(start)))
+                    .doOnCancel(() -> {
+                        // 已生成的部分同样计费，按已收到的内容估算用量
+                        CallUsage usage = callUsage(reportedUsage.get(), history, prompt, aiResponse.toString());
+                        tokenUsageTracker.record(userId, usage.promptTokens(), usage.completionTokens());
+                        log.debug("流式智能问答被调用方取消，不保存对话记录，用户ID：{}", userId);
+                    })
+                    .doOnError(e -> {
+                        // 中途失败时已输出的部分同样计费；未收到任何内容（如限流拒绝、首包前失败）不计入用量
+                        if (aiResponse.length() > 0 || reportedUsage.get() != null) {
+                            CallUsage usage = callUsage(reportedUsage.get(), history, prompt, aiResponse.toString());
+                            tokenUsageTracker.record(userId, usage.promptTokens(), usage.completionTokens());
+                        }
+                        log.error("流式智能问答失败，用户ID：{}，异常信息：{}", userId, e.getMessage(), e);
+                    });
+        });
+    }
+
+    /**
+     * 保存流式问答拼接完成的对话记录
+     */
+    private void saveStreamedRecord(String userId, String sessionId, String userPrompt, String aiResponse,
+                                    String model, CallUsage usage, int latencyMs) {
+        tokenUsageTracker.record(userId, usage.promptTokens(), usage.completionTokens());
+        if (!StringUtils.hasText(aiResponse)) {
+            log.warn("流式智能问答未返回有效内容，不保存对话记录，用户ID：{}", userId);
+            return;
         }
+        conversationMemoryService.append(userId, sessionId, userPrompt, aiResponse);
+        chatRecordBatchWriter.submit(buildChatRecord(userId, sessionId, userPrompt, aiResponse, model, usage, latencyMs));
+        log.debug("流式智能问答完成，对话记录已提交保存，用户ID：{}", userId);
+    }
+
+    /**
+     * 构建对话记录实体
+     */
+    private ChatRecord buildChatRecord(String userId, String sessionId, String userPrompt, String aiResponse,
+                                       String model, CallUsage usage, int latencyMs) {
+        ChatRecord chatRecord = new ChatRecord();
+        chatRecord.setUserId(userId);
+        chatRecord.setSessionId(sessionId == null ? "" : sessionId);
+        chatRecord.setUserPrompt(userPrompt);
+        chatRecord.setAiResponse(aiResponse);
+        chatRecord.setModel(model);
+        chatRecord.setPromptTokens(usage.promptTokens());
+        chatRecord.setCompletionTokens(usage.completionTokens());
+        chatRecord.setLatencyMs(latencyMs);
+        chatRecord.setSearchTerms(ChatRecordSearchTerms.document(userId, userPrompt, aiResponse));
+        return chatRecord;
+    }
+
+    /**
+     * 本次调用的token用量：优先使用模型返回的用量，未返回时按发送的历史、提问和回答内容估算
+     */
+    private static CallUsage callUsage(Usage usage, List<Message> history, String userPrompt, String aiResponse) {
+        if (hasUsage(usage)) {
+            return new CallUsage(tokens(usage.getPromptTokens()), tokens(usage.getCompletionTokens()));
+        }
+        return new CallUsage(QwenTokenEstimator.estimate(userPrompt) + estimateTokens(history),
+                QwenTokenEstimator.estimate(aiResponse));
+    }
+
+    private static int estimateTokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += QwenTokenEstimator.estimate(message.getText());
+        }
+        return tokens;
+    }
+
+    private static boolean hasUsage(Usage usage) {
+        return usage != null && (tokens(usage.getPromptTokens()) > 0 || tokens(usage.getCompletionTokens()) > 0);
+    }
+
+    private static int tokens(Integer tokens) {
+        return tokens == null ? 0 : tokens;
+    }
+
+    private static int elapsedMillis(long startNanos) {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * 单次调用的token用量
+     */
+    private record CallUsage(int promptTokens, int completionTokens) {
     }
 
     /**
-     * 智能问答并保存对话记录 - 重试回调方法
-     * 当重试达到最大次数后仍失败时执行此方法
+     * 提取模型回答文本（流式响应的部分片段不含文本）
      */
-    public String recoverChatAndSaveRecord(String userId, String userPrompt, Exception ex) {
-        log.error("智能问答重试3次后仍然失败，用户ID：{}，提问内容：{}，最终异常：{}", userId, userPrompt, ex.getMessage(), ex);
-        throw new RuntimeException("智能问答处理失败：" + ex.getMessage(), ex);
+    private static String text(ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getResult() == null || chatResponse.getResult().getOutput() == null) {
+            return null;
+        }
+        return chatResponse.getResult().getOutput().getText();
     }
 
     /**
      * 根据用户ID查询对话记录
+     * 结果按用户缓存，记录写入或删除后失效
      * @param userId 用户ID
-     * @return 该用户的所有有效对话记录
+     * @return 该用户的所有有效对话记录（只读）
      * @throws IllegalArgumentException 用户ID为空时抛出
      */
     public List<ChatRecord> queryChatRecordsByUserId(String userId) {
         if (!StringUtils.hasText(userId)) {
             throw new IllegalArgumentException("用户ID不能为空");
         }
+        return chatHistoryCache.get(userId, () -> loadChatRecordsByUserId(userId));
+    }
+
+    private List<ChatRecord> loadChatRecordsByUserId(String userId) {
         log.debug("开始查询用户对话记录，用户ID：{}", userId);
 
         // 构建查询条件（过滤逻辑删除的记录）
@@ -132,6 +340,13 @@ public class SmartChatService {
                 .orderByDesc(ChatRecord::getCreateTime);
 
         List<ChatRecord> chatRecords = chatRecordMapper.selectList(queryWrapper);
+        // 已迁移到归档表的历史记录排在热表记录之后
+        List<ChatRecord> archived = chatRecordArchiveService.listByUserId(userId);
+        if (!archived.isEmpty()) {
+            chatRecords = Lists.newArrayList(chatRecords);
+            chatRecords.addAll(archived);
+            chatRecords.sort(Comparator.comparing(ChatRecord::getCreateTime).reversed());
+        }
         if (CollectionUtils.isEmpty(chatRecords)) {
             log.debug("用户暂无对话记录，用户ID：{}", userId);
             return Lists.newArrayList();
@@ -141,6 +356,145 @@ public class SmartChatService {
         return chatRecords;
     }
 
+    /**
+     * 游标分页查询用户对话记录摘要（按创建时间倒序）
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 分页结果
+     * @throws IllegalArgumentException 用户ID为空、每页条数非法或游标格式错误时抛出
+     */
+    public ChatRecordPage queryChatRecordPage(String userId, String cursor, int size) {
+        if (!StringUtils.hasText(userId)) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (size <= 0 || size > historyMaxPageSize) {
+            throw new IllegalArgumentException("每页条数必须在1到" + historyMaxPageSize + "之间");
+        }
+        log.debug("开始分页查询用户对话记录，用户ID：{}，游标：{}，每页条数：{}", userId, cursor, size);
+
+        HistoryCursor historyCursor = StringUtils.hasText(cursor) ? decodeCursor(cursor) : HistoryCursor.FIRST_PAGE;
+        // 多查一条用于判断是否还有下一页
+        List<ChatRecordSummary> summaries = chatRecordMapper.selectSummaryPage(
+                userId, historyCursor.createTime(), historyCursor.id(), historyPreviewLength, size + 1);
+        if (summaries.size() <= size) {
+            // 热表不足一页时从归档表补齐；归档记录都早于热表中的有效记录，同一游标条件可直接续接
+            List<ChatRecordSummary> archived = chatRecordArchiveService.selectSummaryPage(
+                    userId, historyCursor.createTime(), historyCursor.id(), historyPreviewLength, size + 1 - summaries.size());
+            if (!archived.isEmpty()) {
+                summaries = Lists.newArrayList(summaries);
+                summaries.addAll(archived);
+                summaries.sort(SUMMARY_ORDER);
+            }
+        }
+        boolean hasMore = summaries.size() > size;
+        if (hasMore) {
+            summaries = Lists.newArrayList(summaries.subList(0, size));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChatRecordSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = encodeCursor(last.getCreateTime(), last.getId());
+        }
+        log.debug("分页查询用户对话记录成功，用户ID：{}，本页数量：{}，是否还有更多：{}", userId, summaries.size(), hasMore);
+        return new ChatRecordPage(summaries, nextCursor, hasMore);
+    }
+
+    /**
+     * 全文检索用户的对话记录（提问和回答），按相关度倒序分页
+     * 多个关键词以空白分隔，记录需同时包含所有关键词；只检索热表，已归档的记录不参与检索
+     * @param userId 用户ID
+     * @param keyword 检索关键词
+     * @param page 页码（从1开始）
+     * @param size 每页条数
+     * @return 检索结果
+     * @throws IllegalArgumentException 用户ID为空、关键词无效、页码或每页条数非法时抛出
+     */
+    public ChatRecordSearchPage searchChatRecords(String userId, String keyword, int page, int size) {
+        if (!StringUtils.hasText(userId)) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (!StringUtils.hasText(keyword) || keyword.length() > searchMaxKeywordLength) {
+            throw new IllegalArgumentException("检索关键词不能为空且长度不能超过" + searchMaxKeywordLength);
+        }
+        if (size <= 0 || size > historyMaxPageSize) {
+            throw new IllegalArgumentException("每页条数必须在1到" + historyMaxPageSize + "之间");
+        }
+        if (page <= 0 || page > searchMaxPages) {
+            throw new IllegalArgumentException("页码必须在1到" + searchMaxPages + "之间");
+        }
+        String query = ChatRecordSearchTerms.booleanQuery(userId, keyword, searchMinTermLength);
+        if (query.isEmpty()) {
+            throw new IllegalArgumentException("检索关键词至少需要包含一个长度不小于" + searchMinTermLength + "的词");
+        }
+        log.debug("开始全文检索对话记录，用户ID：{}，检索式：{}，页码：{}，每页条数：{}", userId, query, page, size);
+
+        // 多查一条用于判断是否还有下一页
+        List<ChatRecordSearchHit> hits = chatRecordMapper.searchByKeyword(
+                userId, query, historyPreviewLength, (page - 1) * size, size + 1);
+        boolean hasMore = hits.size() > size && page < searchMaxPages;
+        if (hits.size() > size) {
+            hits = Lists.newArrayList(hits.subList(0, size));
+        }
+        log.debug("全文检索对话记录完成，用户ID：{}，本页数量：{}，是否还有更多：{}", userId, hits.size(), hasMore);
+        return new ChatRecordSearchPage(hits, page, hasMore);
+    }
+
+    /**
+     * 查询单条对话记录详情
+     * @param userId 用户ID
+     * @param recordId 记录ID
+     * @return 对话记录，不存在或不属于该用户时返回null
+     * @throws IllegalArgumentException 参数非法时抛出
+     */
+    public ChatRecord queryChatRecordDetail(String userId, Long recordId) {
+        if (!StringUtils.hasText(userId)) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (recordId == null || recordId <= 0) {
+            throw new IllegalArgumentException("记录ID不能为空且必须大于0");
+        }
+        log.debug("开始查询对话记录详情，用户ID：{}，记录ID：{}", userId, recordId);
+        LambdaQueryWrapper<ChatRecord> queryWrapper = Wrappers.lambdaQuery(ChatRecord.class)
+                .eq(ChatRecord::getId, recordId)
+                .eq(ChatRecord::getUserId, userId);
+        ChatRecord chatRecord = chatRecordMapper.selectOne(queryWrapper);
+        // 热表未命中时读取归档表（解压后返回，对调用方透明）
+        return chatRecord != null ? chatRecord : chatRecordArchiveService.findDetail(userId, recordId);
+    }
+
+    /**
+     * 历史记录摘要排序：创建时间倒序，同一时间按ID倒序（与分页SQL一致）
+     */
+    private static final Comparator<ChatRecordSummary> SUMMARY_ORDER = Comparator
+            .comparing(ChatRecordSummary::getCreateTime, Comparator.reverseOrder())
+            .thenComparing(ChatRecordSummary::getId, Comparator.reverseOrder());
+
+    private String encodeCursor(LocalDateTime createTime, Long id) {
+        String raw = createTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HistoryCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("游标格式错误");
+            }
+            return new HistoryCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("游标格式错误：" + cursor, e);
+        }
+    }
+
+    /**
+     * 历史记录游标：上一页最后一条记录的(create_time, id)
+     */
+    private record HistoryCursor(LocalDateTime createTime, Long id) {
+        private static final HistoryCursor FIRST_PAGE = new HistoryCursor(null, null);
+    }
+
     /**
      * 根据记录ID删除对话记录（逻辑删除）
      * @param recordId 记录ID
@@ -152,6 +506,8 @@ public class SmartChatService {
             throw new IllegalArgumentException("记录ID不能为空且必须大于0");
         }
         log.debug("开始删除对话记录，记录ID：{}", recordId);
+        // 删除前确定记录所属用户，用于失效该用户的对话记录缓存
+        String ownerId = findOwnerId(recordId);
 
         // 编程式事务保证删除操作的原子性
         DefaultTransactionDefinition txDefinition = new DefaultTransactionDefinition();
@@ -159,10 +515,15 @@ public class SmartChatService {
 
         try {
             int deleteCount = chatRecordMapper.deleteById(recordId);
+            if (deleteCount == 0) {
+                // 记录可能已被归档
+                deleteCount = chatRecordArchiveService.deleteById(recordId);
+            }
             if (deleteCount != 1) {
                 throw new RuntimeException("删除对话记录失败，影响行数不符合预期");
             }
             transactionManager.commit(txStatus);
+            chatHistoryCache.invalidate(ownerId);
             log.debug("删除对话记录成功，记录ID：{}", recordId);
             return true;
         } catch (Exception e) {
@@ -171,4 +532,9 @@ public class SmartChatService {
             throw new RuntimeException("删除对话记录失败：" + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private String findOwnerId(Long recordId) {
+        ChatRecord chatRecord = chatRecordMapper.selectById(recordId);
+        return chatRecord != null ? chatRecord.getUserId() : chatRecordArchiveService.findOwnerId(recordId);
+    }
+}
@@ -1,16 +1,41 @@
 package com.learn.springailearn.service.impl;
 
 import com.alibaba.fastjson2.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.learn.springailearn.advisor.ChatEndpoints;
+import com.learn.springailearn.advisor.SingleFlightAdvisor;
+import com.learn.springailearn.config.BatchGenerateProperties;
+import com.learn.springailearn.domain.BatchGenerateRequest;
+import com.learn.springailearn.domain.BatchItemResult;
+import com.learn.springailearn.domain.BatchJobStatus;
+import com.learn.springailearn.domain.BatchPromptItem;
+import com.learn.springailearn.prompt.CompiledPromptTemplate;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.QwenTokenEstimator;
+import com.learn.springailearn.prompt.SystemPromptTemplateRegistry;
+import com.learn.springailearn.resilience.Deadline;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.resilience.LlmErrorClassifier;
+import com.learn.springailearn.service.BatchJob;
 import com.learn.springailearn.service.QwenTextGenerateService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -18,21 +43,49 @@ public class QwenTextGenerateServiceImpl implements QwenTextGenerateService {
 
 
     private final ChatClient chatClient;
+    private final LlmCallExecutor llmCallExecutor;
+    private final SystemPromptTemplateRegistry templateRegistry;
+    private final PromptPreprocessor promptPreprocessor;
+    private final BatchGenerateProperties batchProperties;
+    private final Cache<String, BatchJob> batchJobs;
 
-    public QwenTextGenerateServiceImpl(ChatClient chatClient) {
+    public QwenTextGenerateServiceImpl(ChatClient chatClient, LlmCallExecutor llmCallExecutor,
+                                       SystemPromptTemplateRegistry templateRegistry,
+                                       PromptPreprocessor promptPreprocessor,
+                                       BatchGenerateProperties batchProperties) {
         this.chatClient = chatClient;
+        this.llmCallExecutor = llmCallExecutor;
+        this.templateRegistry = templateRegistry;
+        this.promptPreprocessor = promptPreprocessor;
+        this.batchProperties = batchProperties;
+        this.batchJobs = CacheBuilder.newBuilder()
+                .maximumSize(batchProperties.getMaxJobs())
+                .expireAfterWrite(batchProperties.getJobRetention())
+                .<String, BatchJob>removalListener(notification -> {
+                    if (notification.getCause() != RemovalCause.EXPLICIT && notification.getValue() != null) {
+                        notification.getValue().cancel();
+                    }
+                })
+                .build();
     }
 
 
     public String generateText(String userPrompt) {
         Assert.hasText(userPrompt, "prompt must not be empty");
         log.debug("user prompt : {}", userPrompt);
+        String prompt = promptPreprocessor.prepare(userPrompt, 0).text();
         // 使用ChatClient的正确方式
-        String response = chatClient
-                .prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+        String response = llmCallExecutor.call("文本生成", llmCallExecutor.deadline(null), ChatEndpoints.QWEN_GENERATE,
+                hedge -> chatClient
+                        .prompt()
+                        .user(prompt)
+                        .advisors(a -> {
+                            a.param(ChatEndpoints.CONTEXT_KEY, ChatEndpoints.QWEN_GENERATE);
+                            // 对冲调用不能合并到仍在进行的首次调用上
+                            a.param(SingleFlightAdvisor.BYPASS, hedge);
+                        })
+                        .call()
+                        .content());
         log.debug("result : {}", response);
         return response;
     }
@@ -50,18 +103,239 @@ public class QwenTextGenerateServiceImpl implements QwenTextGenerateService {
         // 参数非空校验
         Assert.hasText(systemPrompt, "系统指令不能为空");
         Assert.hasText(userPrompt, "用户提示词不能为空");
-        log.debug("开始调用通义千问生成文本，系统指令：{}，用户提示词：{}，参数：{}", systemPrompt, userPrompt, JSON.toJSONString(params));
-        // 构建系统提示词模板
-        SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemPrompt);
-        // 渲染系统提示词（替换动态参数）
-        UserMessage userMessage = new UserMessage(userPrompt);
-        Prompt prompt = new Prompt(systemPromptTemplate.createMessage(params), userMessage);
+        // 参数序列化开销不小，未开启debug日志时不做序列化
+        if (log.isDebugEnabled()) {
+            log.debug("开始调用通义千问生成文本，系统指令：{}，用户提示词：{}，参数：{}", systemPrompt, userPrompt, JSON.toJSONString(params));
+        }
         // 调用ChatClient
-        String response = chatClient
-                .prompt(prompt)
-                .call()
-                .content();
+        return callWithSystemPrompt(buildSystemPrompt(templateRegistry.compile(systemPrompt), userPrompt, params));
+    }
+
+    /**
+     * 注册系统指令模板，之后可以只传模板ID和参数调用
+     * @param templateId 模板ID
+     * @param template 模板文本
+     * @throws IllegalArgumentException 参数为空、模板语法错误或注册数量超过上限时抛出
+     */
+    @Override
+    public void registerSystemTemplate(String templateId, String template) {
+        templateRegistry.register(templateId, template);
+    }
+
+    /**
+     * 使用已注册的系统指令模板生成文本
+     * @param templateId 模板ID
+     * @param userPrompt 用户提示词
+     * @param params 模板参数
+     * @return 生成的文本内容
+     * @throws IllegalArgumentException 模板未注册、用户提示词为空或缺少模板参数时抛出
+     */
+    @Override
+    public String generateTextWithTemplate(String templateId, String userPrompt, Map<String, Object> params) {
+        Assert.hasText(userPrompt, "用户提示词不能为空");
+        if (log.isDebugEnabled()) {
+            log.debug("开始按模板调用通义千问生成文本，模板ID：{}，用户提示词：{}，参数：{}", templateId, userPrompt, JSON.toJSONString(params));
+        }
+        return callWithSystemPrompt(buildSystemPrompt(templateRegistry.get(templateId), userPrompt, params));
+    }
+
+    private String callWithSystemPrompt(Prompt prompt) {
+        String response = llmCallExecutor.call("带系统指令的文本生成", llmCallExecutor.deadline(null),
+                ChatEndpoints.QWEN_GENERATE_WITH_SYSTEM, hedge -> chatClient
+                        .prompt(prompt)
+                        .advisors(a -> {
+                            a.param(ChatEndpoints.CONTEXT_KEY, ChatEndpoints.QWEN_GENERATE_WITH_SYSTEM);
+                            a.param(SingleFlightAdvisor.BYPASS, hedge);
+                        })
+                        .call()
+                        .content());
         log.debug("带系统指令的文本生成完成，结果：{}", response);
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式文本生成，模型每返回一个片段即向下游推送，降低首字节等待时间
+     * @param userPrompt 用户提示词
+     * @return 生成文本的片段流
+     * @throws IllegalArgumentException 当用户提示词为空时抛出
+     */
+    @Override
+    public Flux<String> generateTextStream(String userPrompt) {
+        Assert.hasText(userPrompt, "prompt must not be empty");
+        log.debug("stream user prompt : {}", userPrompt);
+        return chatClient
+                .prompt()
+                .user(promptPreprocessor.prepare(userPrompt, 0).text())
+                .stream()
+                .content()
+                .doOnComplete(() -> log.debug("流式文本生成完成"));
+    }
+
+    /**
+     * 带系统指令的流式文本生成
+     * @param systemPrompt 系统指令（定义AI的行为）
+     * @param userPrompt 用户提示词
+     * @param params 提示词中的动态参数
+     * @return 生成文本的片段流
+     * @throws IllegalArgumentException 当系统指令或用户提示词为空时抛出
+     */
+    @Override
+    public Flux<String> generateTextWithSystemPromptStream(String systemPrompt, String userPrompt, Map<String, Object> params) {
+        Assert.hasText(systemPrompt, "系统指令不能为空");
+        Assert.hasText(userPrompt, "用户提示词不能为空");
+        if (log.isDebugEnabled()) {
+            log.debug("开始流式调用通义千问生成文本，系统指令：{}，用户提示词：{}，参数：{}", systemPrompt, userPrompt, JSON.toJSONString(params));
+        }
+        return streamWithSystemPrompt(buildSystemPrompt(templateRegistry.compile(systemPrompt), userPrompt, params));
+    }
+
+    /**
+     * 使用已注册的系统指令模板流式生成文本
+     * @param templateId 模板ID
+     * @param userPrompt 用户提示词
+     * @param params 模板参数
+     * @return 生成文本的片段流
+     * @throws IllegalArgumentException 模板未注册、用户提示词为空或缺少模板参数时抛出
+     */
+    @Override
+    public Flux<String> generateTextWithTemplateStream(String templateId, String userPrompt, Map<String, Object> params) {
+        Assert.hasText(userPrompt, "用户提示词不能为空");
+        if (log.isDebugEnabled()) {
+            log.debug("开始按模板流式调用通义千问生成文本，模板ID：{}，用户提示词：{}，参数：{}", templateId, userPrompt, JSON.toJSONString(params));
+        }
+        return streamWithSystemPrompt(buildSystemPrompt(templateRegistry.get(templateId), userPrompt, params));
+    }
+
+    private Flux<String> streamWithSystemPrompt(Prompt prompt) {
+        return chatClient
+                .prompt(prompt)
+                .stream()
+                .content()
+                .doOnComplete(() -> log.debug("带系统指令的流式文本生成完成"));
+    }
+
+    /**
+     * 批量文本生成
+     * 条目按有限并行度并发调用模型（每条独立重试和时间预算），按完成顺序推送结果，单条失败只记录在该条结果中
+     * @param request 批量请求
+     * @return 条目结果流
+     * @throws IllegalArgumentException 系统指令为空、条目为空或条目数超过上限时抛出
+     */
+    @Override
+    public Flux<BatchItemResult> generateBatch(BatchGenerateRequest request) {
+        CompiledPromptTemplate template = validateBatch(request, batchProperties.getMaxItems());
+        log.debug("开始批量文本生成，条目数：{}", request.getItems().size());
+        return fanOut(request, template);
+    }
+
+    /**
+     * 提交批量文本生成异步任务，结果保存在内存中供轮询，超过保留时长后释放
+     * @param request 批量请求
+     * @return 任务ID
+     * @throws IllegalArgumentException 系统指令为空、条目为空或条目数超过上限时抛出
+     */
+    @Override
+    public String submitBatchJob(BatchGenerateRequest request) {
+        CompiledPromptTemplate template = validateBatch(request, batchProperties.getMaxJobItems());
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        BatchJob job = new BatchJob(jobId, request.getItems().size());
+        batchJobs.put(jobId, job);
+        job.attach(fanOut(request, template).subscribe(job::add,
+                e -> {
+                    log.error("批量文本生成任务异常结束，任务ID：{}，异常信息：{}", jobId, e.getMessage(), e);
+                    job.complete();
+                },
+                () -> {
+                    log.info("批量文本生成任务完成，任务ID：{}", jobId);
+                    job.complete();
+                }));
+        log.info("批量文本生成任务已提交，任务ID：{}，条目数：{}", jobId, request.getItems().size());
+        return jobId;
+    }
+
+    @Override
+    public BatchJobStatus getBatchJob(String jobId, int offset) {
+        Assert.hasText(jobId, "任务ID不能为空");
+        BatchJob job = batchJobs.getIfPresent(jobId);
+        return job == null ? null : job.snapshot(offset, batchProperties.getMaxPollResults());
+    }
+
+    /**
+     * 校验批量请求并解析共享的系统指令模板（整批只编译一次）
+     */
+    private CompiledPromptTemplate validateBatch(BatchGenerateRequest request, int maxItems) {
+        Assert.notNull(request, "批量请求不能为空");
+        Assert.notEmpty(request.getItems(), "批量条目不能为空");
+        Assert.isTrue(request.getItems().size() <= maxItems, "批量条目数不能超过" + maxItems);
+        if (StringUtils.hasText(request.getTemplateId())) {
+            return templateRegistry.get(request.getTemplateId());
+        }
+        Assert.hasText(request.getSystemPrompt(), "系统指令和模板ID不能同时为空");
+        return templateRegistry.compile(request.getSystemPrompt());
+    }
+
+    private Flux<BatchItemResult> fanOut(BatchGenerateRequest request, CompiledPromptTemplate template) {
+        List<BatchPromptItem> items = request.getItems();
+        Integer requested = request.getParallelism();
+        int parallelism = Math.min(batchProperties.getMaxParallelism(),
+                requested == null || requested <= 0 ? batchProperties.getDefaultParallelism() : requested);
+        return Flux.range(0, items.size())
+                .flatMap(index -> generateItem(request, template, index, items.get(index)), parallelism);
+    }
+
+    private Mono<BatchItemResult> generateItem(BatchGenerateRequest request, CompiledPromptTemplate template,
+                                               int index, BatchPromptItem item) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                        Assert.hasText(item.getUserPrompt(), "用户提示词不能为空");
+                        return buildSystemPrompt(template, item.getUserPrompt(),
+                                mergeParams(request.getParams(), item.getParams()));
+                    })
+                    .flatMap(prompt -> Mono.fromFuture(() -> llmCallExecutor.execute("批量文本生成",
+                            Deadline.after(batchProperties.getItemTimeout()), () -> chatClient
+                                    .prompt(prompt)
+                                    .advisors(a -> a.param(ChatEndpoints.CONTEXT_KEY, ChatEndpoints.QWEN_GENERATE_WITH_SYSTEM))
+                                    .call()
+                                    .content())))
+                    .map(content -> itemResult(index, item, start, content, null))
+                    .onErrorResume(e -> Mono.just(itemResult(index, item, start, null,
+                            LlmErrorClassifier.unwrap(e).getMessage())));
+        });
+    }
+
+    private BatchItemResult itemResult(int index, BatchPromptItem item, long start, String content, String error) {
+        BatchItemResult result = new BatchItemResult();
+        result.setIndex(index);
+        result.setId(item.getId());
+        result.setSuccess(error == null);
+        result.setContent(content);
+        result.setError(error);
+        result.setLatencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private Map<String, Object> mergeParams(Map<String, Object> shared, Map<String, Object> own) {
+        if (shared == null || shared.isEmpty()) {
+            return own == null ? Map.of() : own;
+        }
+        if (own == null || own.isEmpty()) {
+            return shared;
+        }
+        Map<String, Object> merged = new HashMap<>(shared);
+        merged.putAll(own);
+        return merged;
+    }
+
+    /**
+     * 构建带系统指令的Prompt，用户提示词经过预处理，系统指令计入上下文长度
+     */
+    private Prompt buildSystemPrompt(CompiledPromptTemplate template, String userPrompt, Map<String, Object> params) {
+        // 使用预编译的模板渲染系统提示词（替换动态参数），不再逐次解析模板
+        String systemText = template.render(params);
+        SystemMessage systemMessage = new SystemMessage(systemText);
+        UserMessage userMessage = new UserMessage(
+                promptPreprocessor.prepare(userPrompt, QwenTokenEstimator.estimate(systemText)).text());
+        return new Prompt(systemMessage, userMessage);
+    }
+}
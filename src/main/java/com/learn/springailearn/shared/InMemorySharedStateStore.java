@@ -0,0 +1,160 @@
+package com.learn.springailearn.shared;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 节点内存中的共享状态存储（单节点部署的默认实现）
+ * 过期在读取时惰性判断，键数量超出上限时先清理已过期的键、仍超出再淘汰任意键；
+ * 发布的消息在发送线程上同步回调本节点的订阅者
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+public class InMemorySharedStateStore implements SharedStateStore {
+
+    private final int maximumEntries;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    public InMemorySharedStateStore(int maximumEntries) {
+        this(maximumEntries, System::nanoTime);
+    }
+
+    /**
+     * @param maximumEntries 最多保存的键数量
+     * @param nanoClock 时间源（纳秒，语义同System.nanoTime()）
+     */
+    public InMemorySharedStateStore(int maximumEntries, LongSupplier nanoClock) {
+        if (maximumEntries < 1) {
+            throw new IllegalArgumentException("内存共享状态的最大键数量必须大于0");
+        }
+        this.maximumEntries = maximumEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(nanoClock.getAsLong())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void set(String key, String value, Duration ttl) {
+        entries.put(key, new Entry(value, expireAt(ttl)));
+        evictIfNecessary();
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, Duration ttl) {
+        long now = nanoClock.getAsLong();
+        Entry created = new Entry(value, expireAt(ttl));
+        Entry current = entries.compute(key, (k, existing) -> existing == null || existing.isExpired(now) ? created : existing);
+        if (current != created) {
+            return false;
+        }
+        evictIfNecessary();
+        return true;
+    }
+
+    @Override
+    public long increment(String key, long delta, Duration ttl) {
+        long now = nanoClock.getAsLong();
+        Entry updated = entries.compute(key, (k, existing) -> {
+            if (existing == null || existing.isExpired(now)) {
+                return new Entry(Long.toString(delta), expireAt(ttl));
+            }
+            return new Entry(Long.toString(parseCounter(key, existing.value()) + delta), existing.expireAtNanos());
+        });
+        evictIfNecessary();
+        return Long.parseLong(updated.value());
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.warn("共享状态频道消息处理失败，频道：{}，异常信息：{}", channel, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 当前保存的键数量（包含尚未清理的过期键）
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private long expireAt(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("共享状态的存活时间必须大于0");
+        }
+        return nanoClock.getAsLong() + ttl.toNanos();
+    }
+
+    private long parseCounter(String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("共享状态的值不是整数，无法计数，键：" + key, e);
+        }
+    }
+
+    /**
+     * 超出上限时先清理过期键，仍超出则淘汰到上限的90%，避免每次写入都全量扫描
+     */
+    private void evictIfNecessary() {
+        if (entries.size() <= maximumEntries) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        entries.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+        int target = maximumEntries - maximumEntries / 10;
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Entry(String value, long expireAtNanos) {
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expireAtNanos >= 0;
+        }
+    }
+}
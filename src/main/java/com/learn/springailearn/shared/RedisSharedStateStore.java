@@ -0,0 +1,88 @@
+package com.learn.springailearn.shared;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis的共享状态存储（多节点部署）
+ * 只使用GET/SET NX PX/INCRBY/PEXPIRE/DEL/PUBLISH/SUBSCRIBE等基础命令，兼容任何实现了RESP协议的服务端；
+ * 键和频道统一加上配置的前缀，订阅由{@link RedisMessageListenerContainer}在独立连接上维护
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+public class RedisSharedStateStore implements SharedStateStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String keyPrefix;
+
+    public RedisSharedStateStore(StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public String get(String key) {
+        return redisTemplate.opsForValue().get(keyPrefix + key);
+    }
+
+    @Override
+    public void set(String key, String value, Duration ttl) {
+        redisTemplate.opsForValue().set(keyPrefix + key, value, ttl);
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, String value, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(keyPrefix + key, value, ttl));
+    }
+
+    @Override
+    public long increment(String key, long delta, Duration ttl) {
+        String prefixedKey = keyPrefix + key;
+        Long value = redisTemplate.opsForValue().increment(prefixedKey, delta);
+        if (value == null) {
+            throw new IllegalStateException("Redis计数器自增未返回结果，键：" + prefixedKey);
+        }
+        // 结果等于增量说明计数器是本次新建的，补上过期时间（INCRBY会保留已有键的过期时间）
+        if (value == delta) {
+            redisTemplate.expire(prefixedKey, ttl);
+        }
+        return value;
+    }
+
+    @Override
+    public void delete(String key) {
+        redisTemplate.delete(keyPrefix + key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(keyPrefix + channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.warn("共享状态频道消息处理失败，频道：{}，异常信息：{}", channel, e.getMessage());
+            }
+        }, new ChannelTopic(keyPrefix + channel));
+    }
+}
@@ -0,0 +1,31 @@
+package com.learn.springailearn.shared;
+
+import com.learn.springailearn.cache.HistoryInvalidationChannel;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于共享状态存储发布/订阅的对话记录缓存失效通知通道
+ * @author ken
+ * @date 2026-01-21
+ */
+public class SharedStateInvalidationChannel implements HistoryInvalidationChannel {
+
+    static final String CHANNEL = "chat:history:invalidate";
+
+    private final SharedStateStore store;
+
+    public SharedStateInvalidationChannel(SharedStateStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void publish(String userId) {
+        store.publish(CHANNEL, userId);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        store.subscribe(CHANNEL, listener);
+    }
+}
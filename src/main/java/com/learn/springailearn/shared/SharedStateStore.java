@@ -0,0 +1,70 @@
+package com.learn.springailearn.shared;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 节点间共享状态存储SPI
+ * 对话链路中需要跨节点一致的状态（模型响应缓存、按用户限流计数、进行中请求去重）都通过该接口读写，
+ * 单节点部署使用内存实现，多节点部署使用Redis实现，使节点本身保持无状态、可水平扩容。
+ * 接口只使用Redis原生命令即可表达的操作（不依赖Lua脚本），所有值均为字符串，调用方自行编码
+ * @author ken
+ * @date 2026-01-21
+ */
+public interface SharedStateStore {
+
+    /**
+     * 状态是否在多个节点之间共享
+     * 为false时调用方直接使用节点内的实现（如本地令牌桶、本地进行中请求表），不必经过该存储
+     */
+    boolean isShared();
+
+    /**
+     * 读取值
+     * @param key 键
+     * @return 值，不存在或已过期时返回null
+     */
+    String get(String key);
+
+    /**
+     * 写入值并设置过期时间
+     * @param key 键
+     * @param value 值
+     * @param ttl 存活时间
+     */
+    void set(String key, String value, Duration ttl);
+
+    /**
+     * 键不存在时写入值并设置过期时间（SET NX PX）
+     * @return 是否写入成功
+     */
+    boolean setIfAbsent(String key, String value, Duration ttl);
+
+    /**
+     * 对计数器加上增量，计数器不存在时从0开始创建并设置过期时间（已存在时不改变过期时间）
+     * @param key 键
+     * @param delta 增量，可以为负数
+     * @param ttl 新建计数器的存活时间
+     * @return 加上增量后的值
+     */
+    long increment(String key, long delta, Duration ttl);
+
+    /**
+     * 删除键
+     */
+    void delete(String key);
+
+    /**
+     * 向频道广播消息（所有订阅该频道的节点都会收到，包括发送者自身）
+     * @param channel 频道
+     * @param message 消息
+     */
+    void publish(String channel, String message);
+
+    /**
+     * 订阅频道
+     * @param channel 频道
+     * @param listener 收到消息时的回调，参数为消息内容
+     */
+    void subscribe(String channel, Consumer<String> listener);
+}
@@ -0,0 +1,297 @@
+package com.learn.springailearn.usage;
+
+import com.google.common.collect.Lists;
+import com.learn.springailearn.config.TokenUsageProperties;
+import com.learn.springailearn.domain.ChatUsageDaily;
+import com.learn.springailearn.limiter.TokenQuotaExceededException;
+import com.learn.springailearn.mapper.ChatUsageDailyMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户token用量统计与每日额度检查
+ * 请求线程只在内存中用LongAdder累加用量，定时任务把各用户的增量合并为一条多行upsert写入每日汇总表，
+ * 写入后从汇总表刷新累计值（包含其他节点的用量）；额度检查读取"汇总表累计值 + 本节点未写入增量"。
+ * 累加用量不访问数据库；开启额度检查时，用户当日首次检查从汇总表加载一次已有用量，并发的首次检查合并为一次查询
+ * @author ken
+ * @date 2026-01-21
+ */
+@Slf4j
+@Component
+public class TokenUsageTracker {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ChatUsageDailyMapper usageMapper;
+    private final TokenUsageProperties properties;
+    private final Map<UsageKey, DailyUsage> usages = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final Counter flushFailedCounter;
+    private final Counter rejectedCounter;
+
+    public TokenUsageTracker(ChatUsageDailyMapper usageMapper,
+                             TokenUsageProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.usageMapper = usageMapper;
+        this.properties = properties;
+        this.flushTimer = Timer.builder("chat.usage.flush")
+                .description("用量增量合并写入汇总表耗时")
+                .register(meterRegistry);
+        this.flushFailedCounter = Counter.builder("chat.usage.flush.failed")
+                .description("用量增量写入失败次数（增量保留到下次重试）")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ai.rate.limit.rejected")
+                .tag("scope", "quota")
+                .description("被限流拒绝的请求次数")
+                .register(meterRegistry);
+        Gauge.builder("chat.usage.users", usages, Map::size)
+                .description("内存中持有用量统计的用户数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 调用模型前检查用户当日额度，已用量达到额度时拒绝
+     * 只能在调用前检查已发生的用量，单次调用可能使用量略微超出额度
+     * @param userId 用户ID
+     * @throws TokenQuotaExceededException 当日额度已用完时抛出
+     */
+    public void checkQuota(String userId) {
+        TokenUsageProperties.Quota quota = properties.getQuota();
+        if (!quota.isEnabled()) {
+            return;
+        }
+        long limit = quota.getUserDailyTokens().getOrDefault(userId, quota.getDailyTokens());
+        if (limit <= 0) {
+            return;
+        }
+        long used = loadedUsage(userId).totalTokens();
+        if (used >= limit) {
+            rejectedCounter.increment();
+            long retryAfterSeconds = Duration.between(LocalDateTime.now(),
+                    LocalDate.now().plusDays(1).atStartOfDay()).getSeconds();
+            log.warn("用户当日token额度已用完，用户ID：{}，已用：{}，额度：{}", userId, used, limit);
+            throw new TokenQuotaExceededException("今日token额度已用完（已用" + used + "，额度" + limit + "）",
+                    retryAfterSeconds);
+        }
+    }
+
+    /**
+     * 记录一次模型调用的token用量（只累加内存计数，由定时任务合并写入，累计值在合并写入后刷新）
+     * @param userId 用户ID
+     * @param promptTokens 输入token数
+     * @param completionTokens 输出token数
+     */
+    public void record(String userId, int promptTokens, int completionTokens) {
+        DailyUsage usage = usage(userId, LocalDate.now());
+        usage.pendingPromptTokens.add(Math.max(0, promptTokens));
+        usage.pendingCompletionTokens.add(Math.max(0, completionTokens));
+        usage.pendingRequests.increment();
+    }
+
+    /**
+     * 用户当日已使用的token数（汇总表累计值 + 本节点未写入的增量）
+     * @param userId 用户ID
+     */
+    public long usedTokens(String userId) {
+        return loadedUsage(userId).totalTokens();
+    }
+
+    /**
+     * 把内存中的用量增量合并写入汇总表，并刷新当日累计值
+     * 写入失败时增量放回内存，下次合并时重试
+     */
+    @Scheduled(fixedDelayString = "#{@tokenUsageProperties.flushInterval.toMillis()}")
+    public synchronized void flush() {
+        LocalDate today = LocalDate.now();
+        List<ChatUsageDaily> deltas = new ArrayList<>();
+        List<DailyUsage> drained = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<UsageKey, DailyUsage> entry : usages.entrySet()) {
+            UsageKey key = entry.getKey();
+            DailyUsage usage = entry.getValue();
+            // sumThenReset逐段取走计数，并发累加要么计入本次增量要么留在计数器中，不会丢失
+            long promptTokens = usage.pendingPromptTokens.sumThenReset();
+            long completionTokens = usage.pendingCompletionTokens.sumThenReset();
+            long requests = usage.pendingRequests.sumThenReset();
+            if (promptTokens == 0 && completionTokens == 0 && requests == 0) {
+                // 多保留一天，避免跨零点时仍持有旧对象的请求把用量累加到已移除的对象上
+                if (key.usageDate().isBefore(today.minusDays(1))) {
+                    usages.remove(key, usage);
+                }
+                continue;
+            }
+            // 先计入累计值，保证写入期间额度检查不会少算这部分用量
+            usage.confirmedTokens.addAndGet(promptTokens + completionTokens);
+            deltas.add(delta(key, promptTokens, completionTokens, requests, now));
+            drained.add(usage);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int written = 0;
+        try {
+            for (List<ChatUsageDaily> batch : Lists.partition(deltas, BATCH_SIZE)) {
+                usageMapper.upsertIncrementBatch(batch);
+                written += batch.size();
+            }
+            refreshConfirmed(today, deltas);
+            log.debug("用量增量已合并写入汇总表，用户数：{}", deltas.size());
+        } catch (Exception e) {
+            flushFailedCounter.increment();
+            log.error("用量增量写入汇总表失败，{}条增量保留到下次重试，异常信息：{}", deltas.size() - written,
+                    e.getMessage(), e);
+            for (int i = written; i < deltas.size(); i++) {
+                restore(drained.get(i), deltas.get(i));
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private DailyUsage usage(String userId, LocalDate usageDate) {
+        return usages.computeIfAbsent(new UsageKey(userId, usageDate), key -> new DailyUsage());
+    }
+
+    /**
+     * 当日用量，累计值尚未从汇总表加载时先加载
+     * 只有第一个请求查询汇总表（在Map的锁之外），并发的请求等待同一次加载的结果
+     */
+    private DailyUsage loadedUsage(String userId) {
+        UsageKey key = new UsageKey(userId, LocalDate.now());
+        DailyUsage usage = usage(key.userId(), key.usageDate());
+        if (usage.loaded) {
+            return usage;
+        }
+        CompletableFuture<Void> load = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = usage.load.compareAndExchange(null, load);
+        if (inFlight != null) {
+            inFlight.join();
+            return usage;
+        }
+        try {
+            usage.applyLoaded(loadConfirmed(key));
+        } finally {
+            load.complete(null);
+        }
+        return usage;
+    }
+
+    private long loadConfirmed(UsageKey key) {
+        try {
+            List<ChatUsageDaily> rows = usageMapper.selectByDateAndUserIds(key.usageDate(), List.of(key.userId()));
+            return rows.isEmpty() ? 0 : totalTokens(rows.get(0));
+        } catch (Exception e) {
+            // 汇总表不可用时不阻塞请求，累计值在下次合并写入后刷新
+            log.warn("加载用户当日用量失败，按0处理，用户ID：{}，异常信息：{}", key.userId(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private void refreshConfirmed(LocalDate today, List<ChatUsageDaily> deltas) {
+        List<String> userIds = deltas.stream()
+                .filter(delta -> today.equals(delta.getUsageDate()))
+                .map(ChatUsageDaily::getUserId)
+                .toList();
+        for (List<String> batch : Lists.partition(userIds, BATCH_SIZE)) {
+            for (ChatUsageDaily row : usageMapper.selectByDateAndUserIds(today, batch)) {
+                DailyUsage usage = usages.get(new UsageKey(row.getUserId(), today));
+                if (usage != null) {
+                    usage.confirm(totalTokens(row));
+                }
+            }
+        }
+    }
+
+    private static void restore(DailyUsage usage, ChatUsageDaily delta) {
+        usage.confirmedTokens.addAndGet(-(delta.getPromptTokens() + delta.getCompletionTokens()));
+        usage.pendingPromptTokens.add(delta.getPromptTokens());
+        usage.pendingCompletionTokens.add(delta.getCompletionTokens());
+        usage.pendingRequests.add(delta.getRequestCount());
+    }
+
+    private static ChatUsageDaily delta(UsageKey key, long promptTokens, long completionTokens, long requests,
+                                        LocalDateTime now) {
+        ChatUsageDaily delta = new ChatUsageDaily();
+        delta.setUserId(key.userId());
+        delta.setUsageDate(key.usageDate());
+        delta.setPromptTokens(promptTokens);
+        delta.setCompletionTokens(completionTokens);
+        delta.setRequestCount(requests);
+        delta.setUpdateTime(now);
+        return delta;
+    }
+
+    private static long totalTokens(ChatUsageDaily row) {
+        return nullToZero(row.getPromptTokens()) + nullToZero(row.getCompletionTokens());
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private record UsageKey(String userId, LocalDate usageDate) {
+    }
+
+    /**
+     * 单个用户单日的用量：已写入汇总表的累计值 + 本节点待写入的增量
+     * 累计值在首次加载或合并写入后刷新之前只包含本节点已写入的增量
+     */
+    private static final class DailyUsage {
+
+        private final AtomicLong confirmedTokens = new AtomicLong();
+        private final LongAdder pendingPromptTokens = new LongAdder();
+        private final LongAdder pendingCompletionTokens = new LongAdder();
+        private final LongAdder pendingRequests = new LongAdder();
+        private final AtomicReference<CompletableFuture<Void>> load = new AtomicReference<>();
+        private volatile boolean loaded;
+
+        /**
+         * 合并写入后以汇总表的值为准
+         */
+        synchronized void confirm(long tokens) {
+            confirmedTokens.set(tokens);
+            loaded = true;
+        }
+
+        /**
+         * 首次加载的汇总表用量与本节点已写入的增量相加；合并写入后已刷新过则忽略
+         */
+        synchronized void applyLoaded(long tokens) {
+            if (!loaded) {
+                confirmedTokens.addAndGet(tokens);
+                loaded = true;
+            }
+        }
+
+        long totalTokens() {
+            return confirmedTokens.get() + pendingPromptTokens.sum() + pendingCompletionTokens.sum();
+        }
+    }
+}
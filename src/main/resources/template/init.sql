@@ -4,12 +4,71 @@ USE spring_ai_demo;
 CREATE TABLE IF NOT EXISTS chat_record (
                                            id BIGINT AUTO_INCREMENT COMMENT '主键ID' PRIMARY KEY,
                                            user_id VARCHAR(64) NOT NULL COMMENT '用户ID',
+    session_id VARCHAR(64) NOT NULL DEFAULT '' COMMENT '会话ID',
     user_prompt TEXT NOT NULL COMMENT '用户提问内容',
     ai_response TEXT NOT NULL COMMENT 'AI回答内容',
     model VARCHAR(32) NOT NULL COMMENT '使用的模型（qwen-turbo/qwen-plus等）',
+    prompt_tokens INT NOT NULL DEFAULT 0 COMMENT '输入token数',
+    completion_tokens INT NOT NULL DEFAULT 0 COMMENT '输出token数',
+    latency_ms INT NOT NULL DEFAULT 0 COMMENT '模型调用耗时（毫秒，含重试）',
+    search_terms MEDIUMTEXT NULL COMMENT '全文检索词（应用生成的带用户前缀的二元分词）',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_deleted TINYINT DEFAULT 0 COMMENT '逻辑删除（0-未删除，1-已删除）',
-    INDEX idx_user_id (user_id),
-    INDEX idx_create_time (create_time)
-    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='AI对话记录表';
\ No newline at end of file
+    INDEX idx_user_deleted_time_id (user_id, is_deleted, create_time, id) COMMENT '历史记录游标分页',
+    INDEX idx_user_session_deleted_time_id (user_id, session_id, is_deleted, create_time, id) COMMENT '会话记忆未命中时回填最近对话',
+    INDEX idx_create_time (create_time) COMMENT '归档任务按创建时间扫描过期记录',
+    INDEX idx_deleted_id (is_deleted, id) COMMENT '归档任务扫描已逻辑删除的记录',
+    FULLTEXT INDEX ft_search_terms (search_terms) COMMENT '对话内容全文检索（检索词带用户前缀，倒排列表按用户隔离）'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='AI对话记录表';
+
+-- 已有库升级：以联合索引替换单列user_id索引（联合索引前缀已覆盖原索引）
+-- ALTER TABLE chat_record DROP INDEX idx_user_id, ADD INDEX idx_user_deleted_time_id (user_id, is_deleted, create_time, id);
+-- ALTER TABLE chat_record ADD COLUMN session_id VARCHAR(64) NOT NULL DEFAULT '' COMMENT '会话ID' AFTER user_id;
+-- 会话最近对话查询（在线DDL，不阻塞读写）
+-- ALTER TABLE chat_record ADD INDEX idx_user_session_deleted_time_id (user_id, session_id, is_deleted, create_time, id), ALGORITHM=INPLACE, LOCK=NONE;
+-- 归档任务扫描已逻辑删除的记录（在线DDL，不阻塞读写）
+-- ALTER TABLE chat_record ADD INDEX idx_deleted_id (is_deleted, id), ALGORITHM=INPLACE, LOCK=NONE;
+-- 全文检索：带用户前缀的检索词列及其FULLTEXT索引，大表建议在低峰期执行；
+-- 已有记录的search_terms为空，需开启app.chat-record.search.backfill-on-startup回填（单个节点开启即可）
+-- ALTER TABLE chat_record ADD COLUMN search_terms MEDIUMTEXT NULL COMMENT '全文检索词（应用生成的带用户前缀的二元分词）' AFTER latency_ms;
+-- ALTER TABLE chat_record ADD FULLTEXT INDEX ft_search_terms (search_terms);
+-- token用量与调用耗时（MySQL 8.0.12+为INSTANT DDL，不重建表）
+-- ALTER TABLE chat_record ADD COLUMN prompt_tokens INT NOT NULL DEFAULT 0 COMMENT '输入token数' AFTER model,
+--     ADD COLUMN completion_tokens INT NOT NULL DEFAULT 0 COMMENT '输出token数' AFTER prompt_tokens,
+--     ADD COLUMN latency_ms INT NOT NULL DEFAULT 0 COMMENT '模型调用耗时（毫秒，含重试）' AFTER completion_tokens;
+
+-- 对话记录归档表（冷数据）：超过保留天数或已逻辑删除的记录由定时任务从chat_record迁移至此，
+-- 提问和回答内容以gzip压缩存储，只保留列表展示需要的提问摘要明文
+CREATE TABLE IF NOT EXISTS chat_record_archive (
+    id BIGINT NOT NULL COMMENT '原chat_record主键ID' PRIMARY KEY,
+    user_id VARCHAR(64) NOT NULL COMMENT '用户ID',
+    session_id VARCHAR(64) NOT NULL DEFAULT '' COMMENT '会话ID',
+    prompt_preview VARCHAR(255) NOT NULL DEFAULT '' COMMENT '提问内容摘要（截断明文）',
+    user_prompt_gz MEDIUMBLOB NOT NULL COMMENT '用户提问内容（gzip压缩）',
+    ai_response_gz MEDIUMBLOB NOT NULL COMMENT 'AI回答内容（gzip压缩）',
+    model VARCHAR(32) NOT NULL COMMENT '使用的模型',
+    prompt_tokens INT NOT NULL DEFAULT 0 COMMENT '输入token数',
+    completion_tokens INT NOT NULL DEFAULT 0 COMMENT '输出token数',
+    latency_ms INT NOT NULL DEFAULT 0 COMMENT '模型调用耗时（毫秒，含重试）',
+    create_time DATETIME NOT NULL COMMENT '原记录创建时间',
+    archive_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    is_deleted TINYINT DEFAULT 0 COMMENT '逻辑删除（0-未删除，1-已删除）',
+    INDEX idx_user_deleted_time_id (user_id, is_deleted, create_time, id) COMMENT '归档历史游标分页'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='AI对话记录归档表';
+
+-- 已有库升级：归档表同步保留token用量与调用耗时
+-- ALTER TABLE chat_record_archive ADD COLUMN prompt_tokens INT NOT NULL DEFAULT 0 COMMENT '输入token数' AFTER model,
+--     ADD COLUMN completion_tokens INT NOT NULL DEFAULT 0 COMMENT '输出token数' AFTER prompt_tokens,
+--     ADD COLUMN latency_ms INT NOT NULL DEFAULT 0 COMMENT '模型调用耗时（毫秒，含重试）' AFTER completion_tokens;
+
+-- 用户每日token用量汇总表：各节点在内存中累加用量，定时以增量upsert合并，不在每次请求时更新
+CREATE TABLE IF NOT EXISTS chat_usage_daily (
+    user_id VARCHAR(64) NOT NULL COMMENT '用户ID',
+    usage_date DATE NOT NULL COMMENT '用量日期',
+    prompt_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '输入token数',
+    completion_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '输出token数',
+    request_count BIGINT NOT NULL DEFAULT 0 COMMENT '模型调用次数',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (user_id, usage_date)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户每日token用量汇总表';
@@ -1,13 +1,23 @@
 package com.learn.springailearn;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 class SpringAiLearnApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
+        // 默认的内存共享状态模式不创建Redis连接
+        assertEquals(0, context.getBeanNamesForType(RedisConnectionFactory.class).length);
     }
 
 }
@@ -0,0 +1,50 @@
+package com.learn.springailearn;
+
+import com.learn.springailearn.config.StartupTimingReporter;
+import com.learn.springailearn.support.StubChatModelConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 启动耗时预算：以生产启动模式（懒加载、关闭springdoc）启动应用（H2 + 桩模型），
+ * 超出预算时失败并输出启动耗时报告；预算可通过-Dstartup.budget.ms调整。
+ * 结果依赖机器性能，默认构建不执行，通过 mvn test -Pperf 执行
+ */
+@Tag("perf")
+class StartupBudgetTest {
+
+    private static final long BUDGET_MS = Long.getLong("startup.budget.ms", 15_000);
+
+    @Test
+    void productionStartupModeFitsBudget() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(StartupTimingReporter.TIMELINE_CAPACITY);
+        SpringApplication application = new SpringApplicationBuilder(SpringAiLearnApplication.class, StubChatModelConfig.class)
+                .profiles("bench")
+                .web(WebApplicationType.NONE)
+                .build();
+        application.setApplicationStartup(startup);
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = application.run(
+                "--spring.main.lazy-initialization=true",
+                "--springdoc.api-docs.enabled=false",
+                "--springdoc.swagger-ui.enabled=false")) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String report = StartupTimingReporter.report(startup.getBufferedTimeline(), 10);
+
+            assertFalse(startup.getBufferedTimeline().getEvents().isEmpty(), "启动时间线应当被记录");
+            assertTrue(report.contains("spring.context.refresh"), report);
+            assertTrue(elapsedMs <= BUDGET_MS, "启动耗时" + elapsedMs + "ms超出预算" + BUDGET_MS + "ms\n" + report);
+        }
+    }
+}
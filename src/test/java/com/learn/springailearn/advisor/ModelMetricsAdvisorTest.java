@@ -0,0 +1,66 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.ModelRoutingProperties;
+import com.learn.springailearn.config.ObservabilityProperties;
+import com.learn.springailearn.routing.ModelRouter;
+import com.learn.springailearn.support.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelMetricsAdvisorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ModelMetricsAdvisor advisor =
+            new ModelMetricsAdvisor(new ObservabilityProperties(), registry,
+                    new ModelRouter(new ModelRoutingProperties(), new SimpleMeterRegistry()), "qwen-turbo");
+
+    @Test
+    void recordsLatencyAndTokensPerReportedModel() {
+        ChatModel chatModel = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("ok"))),
+                ChatResponseMetadata.builder().model("qwen-plus").usage(new DefaultUsage(12, 30)).build());
+        ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+
+        chatClient.prompt().user("你好").call().content();
+
+        assertEquals(1, registry.get("ai.model.latency")
+                .tags("model", "qwen-plus", "type", "call", "outcome", "success").timer().count());
+        assertEquals(12, registry.get("ai.model.tokens").tags("model", "qwen-plus", "token.type", "input")
+                .counter().count());
+        assertEquals(30, registry.get("ai.model.tokens").tags("model", "qwen-plus", "token.type", "output")
+                .counter().count());
+    }
+
+    @Test
+    void recordsTimeToFirstChunkForStreams() {
+        ChatClient chatClient = ChatClient.builder(new StubChatModel()).defaultAdvisors(advisor).build();
+
+        chatClient.prompt().user("流式 调用 测试").stream().content().collectList().block();
+
+        assertEquals(1, registry.get("ai.model.ttft").tag("model", "stub").timer().count());
+        assertEquals(1, registry.get("ai.model.latency").tags("type", "stream", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void failedCallsAreTaggedWithOutcome() {
+        ChatModel chatModel = prompt -> {
+            throw new IllegalStateException("boom");
+        };
+        ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+
+        assertThrows(IllegalStateException.class, () -> chatClient.prompt().user("你好").call().content());
+        assertEquals(1, registry.get("ai.model.latency")
+                .tags("model", "qwen-turbo", "outcome", "error").timer().count());
+    }
+}
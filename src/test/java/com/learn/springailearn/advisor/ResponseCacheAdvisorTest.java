@@ -0,0 +1,78 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.ResponseCacheProperties;
+import com.learn.springailearn.shared.InMemorySharedStateStore;
+import com.learn.springailearn.support.StubChatModel;
+import com.learn.springailearn.support.StubEmbeddingModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseCacheAdvisorTest {
+
+    @Test
+    void exactMatchIsServedFromCacheForEnabledEndpoint() {
+        StubChatModel chatModel = new StubChatModel();
+        ChatClient chatClient = chatClient(chatModel, properties(false));
+
+        String first = call(chatClient, ChatEndpoints.QWEN_GENERATE, "什么是向量数据库");
+        String second = call(chatClient, ChatEndpoints.QWEN_GENERATE, "什么是向量数据库");
+
+        assertEquals(first, second);
+        assertEquals(1, chatModel.getCalls());
+    }
+
+    @Test
+    void endpointsWithoutOptInBypassCache() {
+        StubChatModel chatModel = new StubChatModel();
+        ChatClient chatClient = chatClient(chatModel, properties(false));
+
+        call(chatClient, ChatEndpoints.SMART_CHAT, "你好");
+        call(chatClient, ChatEndpoints.SMART_CHAT, "你好");
+
+        assertEquals(2, chatModel.getCalls());
+    }
+
+    @Test
+    void similarPromptIsServedBySemanticIndex() {
+        StubChatModel chatModel = new StubChatModel();
+        ChatClient chatClient = chatClient(chatModel, properties(true));
+
+        String first = call(chatClient, ChatEndpoints.QWEN_GENERATE, "请介绍一下Spring AI的Advisor机制");
+        String second = call(chatClient, ChatEndpoints.QWEN_GENERATE, "请介绍一下Spring AI的Advisor机制？");
+
+        assertEquals(first, second);
+        assertEquals(1, chatModel.getCalls());
+    }
+
+    private ResponseCacheProperties properties(boolean semantic) {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEndpoints(Set.of(ChatEndpoints.QWEN_GENERATE));
+        properties.getSemantic().setEnabled(semantic);
+        properties.getSemantic().setSimilarityThreshold(0.9);
+        return properties;
+    }
+
+    private ChatClient chatClient(StubChatModel chatModel, ResponseCacheProperties properties) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("embeddingModel", new StubEmbeddingModel()));
+        ResponseCacheAdvisor advisor = new ResponseCacheAdvisor(properties,
+                beanFactory.getBeanProvider(EmbeddingModel.class), new InMemorySharedStateStore(100),
+                new SimpleMeterRegistry(), "qwen-turbo");
+        return ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+    }
+
+    private String call(ChatClient chatClient, String endpoint, String userPrompt) {
+        return chatClient.prompt()
+                .user(userPrompt)
+                .advisors(a -> a.param(ChatEndpoints.CONTEXT_KEY, endpoint))
+                .call()
+                .content();
+    }
+}
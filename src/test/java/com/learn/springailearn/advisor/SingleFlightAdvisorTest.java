@@ -0,0 +1,147 @@
+package com.learn.springailearn.advisor;
+
+import com.learn.springailearn.config.SharedStateProperties;
+import com.learn.springailearn.shared.InMemorySharedStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightAdvisorTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() throws Exception {
+        BlockingChatModel chatModel = new BlockingChatModel(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatClient chatClient = chatClient(chatModel, meterRegistry);
+
+        List<Future<String>> results = submitConcurrently(chatClient, chatModel);
+
+        for (Future<String> result : results) {
+            assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, chatModel.calls.get());
+        assertEquals(CALLERS - 1, meterRegistry.get("ai.single.flight.calls").tag("role", "coalesced").counter().count());
+    }
+
+    @Test
+    void upstreamErrorIsPropagatedToEveryCaller() throws Exception {
+        BlockingChatModel chatModel = new BlockingChatModel(true);
+        ChatClient chatClient = chatClient(chatModel, new SimpleMeterRegistry());
+
+        List<Future<String>> results = submitConcurrently(chatClient, chatModel);
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals(1, chatModel.calls.get());
+    }
+
+    @Test
+    void followerCallsModelItselfWhenLeaderHangsPastLease() throws Exception {
+        BlockingChatModel chatModel = new BlockingChatModel(false);
+        SharedStateProperties properties = new SharedStateProperties();
+        properties.getSingleFlight().setLease(Duration.ofMillis(300));
+        ChatClient chatClient = chatClient(chatModel, new SimpleMeterRegistry(), properties);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> chatClient.prompt().user("热门问题").call().content());
+            chatModel.entered.await(5, TimeUnit.SECONDS);
+            chatModel.blockFirstOnly = true;
+            Future<String> follower = executor.submit(() -> chatClient.prompt().user("热门问题").call().content());
+
+            // leader仍阻塞在模型调用中，follower等待超过租期后自行调用
+            assertEquals("answer", follower.get(3, TimeUnit.SECONDS));
+            assertFalse(leader.isDone());
+            assertEquals(2, chatModel.calls.get());
+
+            chatModel.release.countDown();
+            assertEquals("answer", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Future<String>> submitConcurrently(ChatClient chatClient, BlockingChatModel chatModel) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> chatClient.prompt().user("热门问题").call().content()));
+        }
+        // 等leader进入模型调用并留出时间让其余请求合并进来
+        chatModel.entered.await(5, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        chatModel.release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private ChatClient chatClient(ChatModel chatModel, SimpleMeterRegistry meterRegistry) {
+        return chatClient(chatModel, meterRegistry, new SharedStateProperties());
+    }
+
+    private ChatClient chatClient(ChatModel chatModel, SimpleMeterRegistry meterRegistry,
+                                  SharedStateProperties properties) {
+        return ChatClient.builder(chatModel)
+                .defaultAdvisors(new SingleFlightAdvisor(true, "qwen-turbo",
+                        new InMemorySharedStateStore(100), properties, meterRegistry))
+                .build();
+    }
+
+    private static class BlockingChatModel implements ChatModel {
+
+        private final boolean fail;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        /**
+         * 为true时只有第一次调用阻塞，之后的调用直接返回
+         */
+        private volatile boolean blockFirstOnly;
+
+        BlockingChatModel(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            int call = calls.incrementAndGet();
+            entered.countDown();
+            if (blockFirstOnly && call > 1) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))));
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new IllegalStateException("upstream failed");
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.learn.springailearn.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learn.springailearn.domain.ChatRecordPage;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import com.learn.springailearn.domain.SmartChatRequest;
+import com.learn.springailearn.domain.SystemPromptGenerateRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口请求/响应的（反）序列化：Map与强类型DTO、Jackson与fastjson2（Fastjson2HttpMessageConverter）对比，
+ * 配合-prof gc观察每次操作的内存分配
+ * @author ken
+ * @date 2026-01-21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadCodecBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private static final String SMART_CHAT_REQUEST =
+            "{\"userId\":\"user-10086\",\"sessionId\":\"s-1\",\"userPrompt\":\"如何优化Java应用的GC停顿？\"}";
+
+    private static final String GENERATE_WITH_SYSTEM_REQUEST = "{\"systemPrompt\":\"你是一名{role}，请使用{language}回答问题\","
+            + "\"userPrompt\":\"解释一下虚拟线程\",\"params\":{\"role\":\"资深Java架构师\",\"language\":\"中文\","
+            + "\"audience\":\"初级开发者\",\"limit\":300}}";
+
+    private static final byte[] SMART_CHAT_REQUEST_BYTES = SMART_CHAT_REQUEST.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] GENERATE_WITH_SYSTEM_REQUEST_BYTES =
+            GENERATE_WITH_SYSTEM_REQUEST.getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> params;
+    private ChatRecordPage page;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // 与Spring Boot自动配置的ObjectMapper使用相同的默认设置（含JavaTimeModule）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> parsed = (Map<String, Object>) objectMapper.readValue(GENERATE_WITH_SYSTEM_REQUEST, MAP_TYPE)
+                .get("params");
+        params = parsed;
+
+        List<ChatRecordSummary> summaries = new ArrayList<>(20);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 20; i++) {
+            ChatRecordSummary summary = new ChatRecordSummary();
+            summary.setId(10000L - i);
+            summary.setCreateTime(now.minusMinutes(i));
+            summary.setPromptPreview("第" + i + "轮提问：Spring AI如何接入通义千问并保存对话记录？");
+            summary.setModel("qwen-turbo");
+            summaries.add(summary);
+        }
+        page = new ChatRecordPage(summaries, "MjAyNi0wMS0yMVQxMDowMDowMHw5OTgx", true);
+    }
+
+    /**
+     * /api/smart-chat/chat 请求体反序列化
+     */
+    @Benchmark
+    public Map<String, Object> readSmartChatRequest() throws JsonProcessingException {
+        return objectMapper.readValue(SMART_CHAT_REQUEST, MAP_TYPE);
+    }
+
+    /**
+     * /api/smart-chat/chat 请求体反序列化为DTO（Jackson）
+     */
+    @Benchmark
+    public SmartChatRequest readSmartChatRequestTyped() throws JsonProcessingException {
+        return objectMapper.readValue(SMART_CHAT_REQUEST, SmartChatRequest.class);
+    }
+
+    /**
+     * /api/smart-chat/chat 请求体反序列化为DTO（fastjson2）
+     */
+    @Benchmark
+    public SmartChatRequest readSmartChatRequestFastjson() {
+        return JSON.parseObject(SMART_CHAT_REQUEST_BYTES, SmartChatRequest.class);
+    }
+
+    /**
+     * /api/qwen/text/generate-with-system 请求体反序列化（含嵌套参数）
+     */
+    @Benchmark
+    public Map<String, Object> readGenerateWithSystemRequest() throws JsonProcessingException {
+        return objectMapper.readValue(GENERATE_WITH_SYSTEM_REQUEST, MAP_TYPE);
+    }
+
+    /**
+     * /api/qwen/text/generate-with-system 请求体反序列化为DTO（Jackson）
+     */
+    @Benchmark
+    public SystemPromptGenerateRequest readGenerateWithSystemRequestTyped() throws JsonProcessingException {
+        return objectMapper.readValue(GENERATE_WITH_SYSTEM_REQUEST, SystemPromptGenerateRequest.class);
+    }
+
+    /**
+     * /api/qwen/text/generate-with-system 请求体反序列化为DTO（fastjson2）
+     */
+    @Benchmark
+    public SystemPromptGenerateRequest readGenerateWithSystemRequestFastjson() {
+        return JSON.parseObject(GENERATE_WITH_SYSTEM_REQUEST_BYTES, SystemPromptGenerateRequest.class);
+    }
+
+    /**
+     * /api/smart-chat/history 响应体序列化
+     */
+    @Benchmark
+    public byte[] writeChatRecordPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * /api/smart-chat/history 响应体序列化（fastjson2，与转换器相同的输出设置）
+     */
+    @Benchmark
+    public byte[] writeChatRecordPageFastjson() {
+        return JSON.toJSONBytes(page, "yyyy-MM-dd'T'HH:mm:ss", JSONWriter.Feature.WriteNulls);
+    }
+
+    /**
+     * 服务层日志中的参数序列化（fastjson2）
+     */
+    @Benchmark
+    public String fastjsonParams() {
+        return JSON.toJSONString(params);
+    }
+}
@@ -0,0 +1,91 @@
+package com.learn.springailearn.benchmark;
+
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import com.learn.springailearn.prompt.PreparedPrompt;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.QwenTokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提示词预处理：token估算（按区间判断字符类别 vs 原先按Character.UnicodeScript逐字符查表）与完整预处理流水线，
+ * 按输入大小（UTF-8 KB）和文本类型对比单次耗时，耗时除以KB数即每KB成本
+ * @author ken
+ * @date 2026-01-21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptPreprocessBenchmark {
+
+    private static final String ZH = "请帮我分析一下Spring Boot应用启动缓慢的原因，重点关注Bean初始化和数据库连接池的配置。\n";
+    private static final String EN = "Please explain how the circuit breaker and retry policies interact when the upstream returns 429.\n";
+
+    @Param({"1", "16", "64"})
+    private int kilobytes;
+
+    @Param({"zh", "en", "mixed"})
+    private String language;
+
+    private String text;
+    private PromptPreprocessor preprocessor;
+
+    @Setup
+    public void setUp() {
+        String unit = switch (language) {
+            case "zh" -> ZH;
+            case "en" -> EN;
+            default -> ZH + EN + "    if (count  >  0) {  return  count * 2; }\n\n";
+        };
+        StringBuilder builder = new StringBuilder();
+        int sequence = 0;
+        while (builder.toString().getBytes(StandardCharsets.UTF_8).length < kilobytes * 1024) {
+            // 追加序号避免所有段落都被当作重复内容去掉
+            builder.append(sequence++).append(' ').append(unit);
+        }
+        text = builder.toString();
+        PromptPreprocessProperties properties = new PromptPreprocessProperties();
+        properties.setMaxContextTokens(0);
+        preprocessor = new PromptPreprocessor(properties, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public int estimate() {
+        return QwenTokenEstimator.estimate(text);
+    }
+
+    /**
+     * 原会话记忆中的估算方式：每个字符查询Character.UnicodeScript
+     */
+    @Benchmark
+    public int unicodeScriptBaseline() {
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 完整预处理：空白规范化 + 段落去重 + 估算 + 超长截断
+     */
+    @Benchmark
+    public PreparedPrompt prepare() {
+        return preprocessor.prepare(text, 0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.learn.springailearn.benchmark;
+
+import com.learn.springailearn.prompt.CompiledPromptTemplate;
+import com.learn.springailearn.prompt.SystemPromptTemplateRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 系统指令模板渲染：每次请求解析模板 vs 预编译缓存
+ * @author ken
+ * @date 2026-01-21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptTemplateBenchmark {
+
+    private static final String TEMPLATE = "你是一名{role}，请使用{language}回答问题。"
+            + "回答需要面向{audience}，风格保持{style}，篇幅不超过{limit}字。"
+            + "如果问题与{domain}无关，请礼貌地说明无法回答。";
+
+    private Map<String, Object> params;
+    private SystemPromptTemplateRegistry registry;
+    private CompiledPromptTemplate registered;
+
+    @Setup
+    public void setUp() {
+        params = Map.of("role", "资深Java架构师", "language", "中文", "audience", "初级开发者",
+                "style", "简洁专业", "limit", 300, "domain", "软件开发");
+        registry = new SystemPromptTemplateRegistry(1000, 500, new SimpleMeterRegistry());
+        registered = registry.register("architect", TEMPLATE);
+    }
+
+    @Benchmark
+    public String perRequestParsing() {
+        return new SystemPromptTemplate(TEMPLATE).createMessage(params).getText();
+    }
+
+    @Benchmark
+    public String cachedByText() {
+        return registry.compile(TEMPLATE).render(params);
+    }
+
+    @Benchmark
+    public String registeredById() {
+        return registered.render(params);
+    }
+}
@@ -0,0 +1,66 @@
+package com.learn.springailearn.benchmark;
+
+import com.learn.springailearn.config.BatchGenerateProperties;
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import com.learn.springailearn.config.ResilienceProperties;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.SystemPromptTemplateRegistry;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.service.impl.QwenTextGenerateServiceImpl;
+import com.learn.springailearn.support.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带系统指令的文本生成：模板渲染 + Prompt构建 + 参数日志序列化 + 容错执行器，模型为本地桩
+ * @author ken
+ * @date 2026-01-21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QwenPromptBenchmark {
+
+    private static final String TEMPLATE = "你是一名{role}，请使用{language}回答问题。"
+            + "回答需要面向{audience}，篇幅不超过{limit}字。";
+
+    private LlmCallExecutor executor;
+    private QwenTextGenerateServiceImpl service;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setUp() {
+        executor = new LlmCallExecutor(new ResilienceProperties(), false, new SimpleMeterRegistry());
+        service = new QwenTextGenerateServiceImpl(ChatClient.builder(new StubChatModel()).build(), executor,
+                new SystemPromptTemplateRegistry(1000, 500, new SimpleMeterRegistry()),
+                new PromptPreprocessor(new PromptPreprocessProperties(), new SimpleMeterRegistry()), new BatchGenerateProperties());
+        service.registerSystemTemplate("architect", TEMPLATE);
+        params = Map.of("role", "资深Java架构师", "language", "中文", "audience", "初级开发者", "limit", 300);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public String generateWithSystemPrompt() {
+        return service.generateTextWithSystemPrompt(TEMPLATE, "解释一下虚拟线程", params);
+    }
+
+    @Benchmark
+    public String generateWithTemplate() {
+        return service.generateTextWithTemplate("architect", "解释一下虚拟线程", params);
+    }
+}
@@ -0,0 +1,113 @@
+package com.learn.springailearn.benchmark;
+
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordPage;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.service.SmartChatService;
+import com.learn.springailearn.support.StubChatModelConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求热路径：完整的智能问答链路（会话记忆 + Advisor链 + 桩模型 + 异步写入）与对话记录查询映射
+ * 运行在bench profile下（内嵌H2 + 桩模型），不访问外部数据库和DashScope
+ * @author ken
+ * @date 2026-01-21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SmartChatBenchmark {
+
+    private static final int USERS = 64;
+    private static final int TURNS_PER_USER = 20;
+    private static final String SESSION_ID = "bench-session";
+
+    private ConfigurableApplicationContext context;
+    private SmartChatService smartChatService;
+    private ChatRecordMapper chatRecordMapper;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringAiLearnApplication.class, StubChatModelConfig.class)
+                .profiles("bench")
+                .web(WebApplicationType.NONE)
+                .run();
+        smartChatService = context.getBean(SmartChatService.class);
+        chatRecordMapper = context.getBean(ChatRecordMapper.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 智能问答完整链路；提问内容逐次不同，避免并发线程之间被请求合并
+     */
+    @Benchmark
+    public String chatAndSaveRecord() {
+        long n = sequence.incrementAndGet();
+        return smartChatService.chatAndSaveRecord(userId(n), "如何优化Java应用的GC停顿？#" + n, SESSION_ID, null, null)
+                .join();
+    }
+
+    /**
+     * 会话记忆未命中时的最近几轮回填查询（ChatRecord结果映射）
+     */
+    @Benchmark
+    public List<ChatRecord> selectRecentTurns() {
+        return chatRecordMapper.selectRecentTurns(userId(sequence.incrementAndGet()), SESSION_ID, 10);
+    }
+
+    /**
+     * 历史列表游标分页（ChatRecordSummary结果映射 + 游标编码）
+     */
+    @Benchmark
+    public ChatRecordPage queryChatRecordPage() {
+        return smartChatService.queryChatRecordPage(userId(sequence.incrementAndGet()), null, 20);
+    }
+
+    private void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ChatRecord> records = new ArrayList<>(TURNS_PER_USER);
+        for (int user = 0; user < USERS; user++) {
+            records.clear();
+            for (int turn = 0; turn < TURNS_PER_USER; turn++) {
+                ChatRecord record = new ChatRecord();
+                record.setUserId(userId(user));
+                record.setSessionId(SESSION_ID);
+                record.setUserPrompt("第" + turn + "轮提问：Spring AI如何接入通义千问并保存对话记录？");
+                record.setAiResponse("第" + turn + "轮回答：引入spring-ai-alibaba-starter-dashscope，配置api-key后注入ChatClient即可。");
+                record.setModel("qwen-turbo");
+                record.setCreateTime(now.minusMinutes(TURNS_PER_USER - turn));
+                record.setUpdateTime(record.getCreateTime());
+                records.add(record);
+            }
+            chatRecordMapper.insertBatch(records);
+        }
+    }
+
+    private static String userId(long n) {
+        return "bench-user-" + (n % USERS);
+    }
+}
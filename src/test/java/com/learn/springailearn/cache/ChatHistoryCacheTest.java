@@ -0,0 +1,77 @@
+package com.learn.springailearn.cache;
+
+import com.learn.springailearn.config.ChatHistoryCacheProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.support.InProcessInvalidationChannel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatHistoryCacheTest {
+
+    @Test
+    void servesFromCacheUntilInvalidated() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ChatHistoryCache cache = cache(null, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("user-1", () -> load(loads));
+        cache.get("user-1", () -> load(loads));
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "chat.history.cache").tag("result", "hit")
+                .functionCounter().count());
+
+        cache.invalidate("user-1");
+        cache.get("user-1", () -> load(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotCached() {
+        ChatHistoryCache cache = cache(null, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        // 加载过程中发生写入：读到的可能是旧数据，不应写入缓存
+        cache.get("user-1", () -> {
+            cache.invalidate("user-1");
+            return load(loads);
+        });
+        cache.get("user-1", () -> load(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationIsBroadcastToOtherNodes() {
+        InProcessInvalidationChannel channel = new InProcessInvalidationChannel();
+        ChatHistoryCache nodeA = cache(channel, new SimpleMeterRegistry());
+        ChatHistoryCache nodeB = cache(channel, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        nodeB.get("user-1", () -> load(loads));
+        nodeA.invalidate("user-1");
+        nodeB.get("user-1", () -> load(loads));
+        assertEquals(2, loads.get());
+    }
+
+    private ChatHistoryCache cache(HistoryInvalidationChannel channel, MeterRegistry registry) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (channel != null) {
+            beanFactory.addBean("historyInvalidationChannel", channel);
+        }
+        return new ChatHistoryCache(new ChatHistoryCacheProperties(),
+                beanFactory.getBeanProvider(HistoryInvalidationChannel.class), registry);
+    }
+
+    private List<ChatRecord> load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        ChatRecord record = new ChatRecord();
+        record.setUserId("user-1");
+        return List.of(record);
+    }
+}
@@ -0,0 +1,57 @@
+package com.learn.springailearn.config;
+
+import com.learn.springailearn.domain.ChatRecordPage;
+import com.learn.springailearn.domain.ChatRecordSummary;
+import com.learn.springailearn.domain.SmartChatRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Fastjson2HttpMessageConverterTest {
+
+    private final Fastjson2HttpMessageConverter converter = new Fastjson2HttpMessageConverter();
+
+    @Test
+    void readsDomainRequest() throws Exception {
+        MockHttpInputMessage input = new MockHttpInputMessage(
+                "{\"userId\":\"user-1\",\"userPrompt\":\"你好\",\"unknown\":1}".getBytes(StandardCharsets.UTF_8));
+        SmartChatRequest request = (SmartChatRequest) converter.read(SmartChatRequest.class, null, input);
+
+        assertEquals("user-1", request.getUserId());
+        assertEquals("你好", request.getUserPrompt());
+    }
+
+    @Test
+    void writesLikeJacksonDefaults() throws Exception {
+        ChatRecordSummary summary = new ChatRecordSummary();
+        summary.setId(1L);
+        summary.setCreateTime(LocalDateTime.of(2026, 1, 21, 10, 0, 0));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(new ChatRecordPage(List.of(summary), null, false), ChatRecordPage.class,
+                MediaType.APPLICATION_JSON, output);
+
+        String json = output.getBodyAsString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"createTime\":\"2026-01-21T10:00:00\""), json);
+        assertTrue(json.contains("\"nextCursor\":null"), json);
+    }
+
+    @Test
+    void leavesNonDomainTypesToJackson() {
+        assertFalse(converter.canRead(new ParameterizedTypeReference<Map<String, Object>>() {
+        }.getType(), null, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(String.class, String.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(new ParameterizedTypeReference<List<ChatRecordSummary>>() {
+        }.getType(), List.class, MediaType.APPLICATION_JSON));
+    }
+}
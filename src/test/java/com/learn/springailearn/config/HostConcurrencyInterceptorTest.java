@@ -0,0 +1,75 @@
+package com.learn.springailearn.config;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HostConcurrencyInterceptorTest {
+
+    private HttpServer server;
+    private HostConcurrencyInterceptor interceptor;
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        interceptor = new HostConcurrencyInterceptor(1, Duration.ofMillis(100));
+        client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void permitIsHeldUntilBodyIsClosed() throws IOException {
+        Response response = client.newCall(request()).execute();
+        assertEquals(1, interceptor.inFlight("localhost"));
+        // 响应体未关闭时仍占用许可，第二个请求等待超时
+        assertThrows(InterruptedIOException.class, () -> client.newCall(request()).execute());
+
+        response.close();
+        assertEquals(0, interceptor.inFlight("localhost"));
+        try (Response second = client.newCall(request()).execute()) {
+            assertEquals("ok", second.body().string());
+        }
+        assertEquals(0, interceptor.inFlight("localhost"));
+    }
+
+    @Test
+    void permitIsReleasedOnceWhenBodyIsExhaustedAndClosed() throws IOException {
+        Response response = client.newCall(request()).execute();
+        assertEquals("ok", response.body().source().readUtf8());
+        assertEquals(0, interceptor.inFlight("localhost"));
+
+        response.close();
+        assertEquals(0, interceptor.inFlight("localhost"));
+    }
+
+    private Request request() {
+        return new Request.Builder().url("http://localhost:" + server.getAddress().getPort() + "/").build();
+    }
+}
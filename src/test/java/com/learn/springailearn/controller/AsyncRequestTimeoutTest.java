@@ -0,0 +1,102 @@
+package com.learn.springailearn.controller;
+
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.support.SimulatedChatModelConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步问答接口的超时：以真实HTTP服务（H2 + 模拟模型）验证慢调用在截止时间内正常返回、流式回答完整推送并保存记录，
+ * 而不是被Servlet异步超时以503中断或截断
+ */
+class AsyncRequestTimeoutTest {
+
+    @Test
+    void chatOutlivesShorterConfiguredAsyncTimeout() throws Exception {
+        try (ConfigurableApplicationContext context = start(
+                "--spring.mvc.async.request-timeout=1s", "--simulated-model.latency=fixed:2500")) {
+            HttpResponse<String> response = chat(context, Duration.ofSeconds(30));
+
+            assertEquals(200, response.statusCode(), response.body());
+        }
+    }
+
+    @Test
+    void streamOutlivesShorterConfiguredAsyncTimeoutAndSavesRecord() throws Exception {
+        try (ConfigurableApplicationContext context = start("--spring.mvc.async.request-timeout=1s",
+                "--simulated-model.latency=fixed:200", "--simulated-model.token-delay-ms=40")) {
+            HttpResponse<String> response = send(context, "/api/smart-chat/chat/stream", Duration.ofSeconds(30));
+            assertEquals(200, response.statusCode(), response.body());
+
+            // 记录经异步批量写入，流结束后稍等片刻才可查询（同一JVM内的H2库可能已有其他用例的记录）
+            String records = "";
+            for (int i = 0; i < 50 && !records.contains("timeout-stream"); i++) {
+                Thread.sleep(100);
+                records = get(context, "/api/smart-chat/records/timeout-user").body();
+            }
+            assertTrue(records.contains("timeout-stream"), records);
+        }
+    }
+
+    /**
+     * 超过Tomcat默认异步超时（30秒）的调用，未配置spring.mvc.async.request-timeout
+     */
+    @Test
+    @Tag("perf")
+    void chatLongerThanContainerDefaultCompletes() throws Exception {
+        try (ConfigurableApplicationContext context = start("--simulated-model.latency=fixed:31000")) {
+            HttpResponse<String> response = chat(context, Duration.ofSeconds(90));
+
+            assertEquals(200, response.statusCode(), response.body());
+        }
+    }
+
+    private ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+                "--springdoc.api-docs.enabled=false", "--springdoc.swagger-ui.enabled=false"));
+        arguments.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(SpringAiLearnApplication.class, SimulatedChatModelConfig.class)
+                .profiles("bench")
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private HttpResponse<String> chat(ConfigurableApplicationContext context, Duration timeout) throws Exception {
+        return send(context, "/api/smart-chat/chat", timeout);
+    }
+
+    private HttpResponse<String> send(ConfigurableApplicationContext context, String path, Duration timeout) throws Exception {
+        String sessionId = path.endsWith("/stream") ? "timeout-stream" : "timeout";
+        HttpRequest request = HttpRequest.newBuilder(uri(context, path))
+                .header("Content-Type", "application/json")
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"userId\":\"timeout-user\",\"userPrompt\":\"慢调用\",\"sessionId\":\"" + sessionId + "\"}"))
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(ConfigurableApplicationContext context, String path) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri(context, path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(ConfigurableApplicationContext context, String path) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,73 @@
+package com.learn.springailearn.controller;
+
+import com.learn.springailearn.config.BatchGenerateProperties;
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import com.learn.springailearn.config.ResilienceProperties;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.SystemPromptTemplateRegistry;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.service.impl.QwenTextGenerateServiceImpl;
+import com.learn.springailearn.support.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class QwenTextGenerateControllerTest {
+
+    private final LlmCallExecutor executor =
+            new LlmCallExecutor(new ResilienceProperties(), false, new SimpleMeterRegistry());
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new QwenTextGenerateController(
+                    new QwenTextGenerateServiceImpl(ChatClient.builder(new StubChatModel()).build(), executor,
+                            new SystemPromptTemplateRegistry(100, 10, new SimpleMeterRegistry()),
+                            new PromptPreprocessor(new PromptPreprocessProperties(), new SimpleMeterRegistry()),
+                            new BatchGenerateProperties())))
+            .setControllerAdvice(new RequestValidationAdvice())
+            .build();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 只传templateId的请求在同步和流式接口上都按已注册的模板生成
+     */
+    @Test
+    void templateIdOnlyRequestStreamsLikeSyncPath() throws Exception {
+        mockMvc.perform(post("/api/qwen/text/templates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"templateId\":\"assistant\",\"template\":\"你是{role}\"}"))
+                .andExpect(status().isOk());
+        String body = "{\"templateId\":\"assistant\",\"userPrompt\":\"hello\",\"params\":{\"role\":\"助手\"}}";
+
+        MvcResult sync = mockMvc.perform(post("/api/qwen/text/generate-with-system")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("echo: hello", sync.getResponse().getContentAsString());
+        MvcResult stream = mockMvc.perform(post("/api/qwen/text/generate-with-system/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andReturn();
+        String events = streamed.getResponse().getContentAsString();
+        assertTrue(events.contains("data:hello"), events);
+    }
+}
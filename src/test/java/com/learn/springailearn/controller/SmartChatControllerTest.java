@@ -0,0 +1,96 @@
+package com.learn.springailearn.controller;
+
+import com.alibaba.fastjson2.JSON;
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.RequestLimits;
+import com.learn.springailearn.prompt.QwenTokenEstimator;
+import com.learn.springailearn.service.SmartChatService;
+import com.learn.springailearn.support.SimulatedChatModelConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SmartChatControllerTest {
+
+    @Test
+    void oversizedPromptIsRejectedBeforeModelCall() throws Exception {
+        SmartChatService service = mock(SmartChatService.class);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new SmartChatController(service))
+                .setControllerAdvice(new RequestValidationAdvice())
+                .build();
+        String prompt = "问".repeat(RequestLimits.MAX_PROMPT_LENGTH + 1);
+
+        mockMvc.perform(post("/api/smart-chat/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"user-1\",\"userPrompt\":\"" + prompt + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("用户提问内容长度不能超过" + RequestLimits.MAX_PROMPT_LENGTH));
+        mockMvc.perform(post("/api/smart-chat/chat/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"userPrompt\":\"你好\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("用户ID不能为空"));
+        verifyNoInteractions(service);
+    }
+
+    /**
+     * 未超出请求长度上限、但超出token上限的提问按HEAD_TAIL策略截断后发送和保存，而不是被拒绝
+     */
+    @Test
+    void longPromptWithinRequestLimitIsTruncatedToTokenLimit() throws Exception {
+        // 约7000 token，超过默认的max-input-tokens: 6000
+        String prompt = "开头：请阅读以下资料。" + "资料内容".repeat(2500) + "结尾：请总结要点。";
+        assertTrue(prompt.length() < RequestLimits.MAX_PROMPT_LENGTH);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringAiLearnApplication.class,
+                SimulatedChatModelConfig.class)
+                .profiles("bench")
+                .run("--server.port=0", "--springdoc.api-docs.enabled=false", "--springdoc.swagger-ui.enabled=false",
+                        "--simulated-model.latency=fixed:0")) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/smart-chat/chat"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"userId\":\"long-prompt-user\",\"userPrompt\":\"" + prompt + "\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), response.body());
+
+            // 记录经异步批量写入，稍等片刻才可查询
+            List<ChatRecord> records = List.of();
+            for (int i = 0; i < 50 && records.isEmpty(); i++) {
+                Thread.sleep(100);
+                String body = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/smart-chat/records/long-prompt-user"))
+                        .GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+                records = JSON.parseArray(body, ChatRecord.class);
+            }
+            assertEquals(1, records.size());
+            String sent = records.get(0).getUserPrompt();
+            assertTrue(sent.length() < prompt.length());
+            assertTrue(sent.startsWith("开头：请阅读以下资料。"));
+            assertTrue(sent.contains("中间部分内容过长已省略"));
+            assertTrue(sent.endsWith("结尾：请总结要点。"));
+            assertTrue(QwenTokenEstimator.estimate(sent) <= 6000);
+        }
+    }
+}
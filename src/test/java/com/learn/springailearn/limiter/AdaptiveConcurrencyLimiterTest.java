@@ -0,0 +1,55 @@
+package com.learn.springailearn.limiter;
+
+import com.learn.springailearn.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejectsBeyondLimitAndShrinksOnOverload() {
+        RateLimitProperties.Concurrency properties = new RateLimitProperties.Concurrency();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(1);
+        properties.setBackoffRatio(0.5);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(3, limiter.getInFlight());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsAdditivelyWhileSaturatedAndFast() {
+        RateLimitProperties.Concurrency properties = new RateLimitProperties.Concurrency();
+        properties.setInitialLimit(2);
+        properties.setMaxLimit(3);
+        properties.setLatencyThreshold(Duration.ofSeconds(1));
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        for (int round = 0; round < 20; round++) {
+            while (limiter.tryAcquire()) {
+                // 占满当前上限
+            }
+            for (int i = limiter.getInFlight(); i > 0; i--) {
+                limiter.onSuccess(Duration.ofMillis(10).toNanos());
+            }
+        }
+        assertEquals(3, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onSuccess(Duration.ofSeconds(2).toNanos());
+        assertEquals(2, limiter.getLimit());
+    }
+}
@@ -0,0 +1,60 @@
+package com.learn.springailearn.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenRefillsOverTime() {
+        long start = 0L;
+        TokenBucket bucket = new TokenBucket(3, 1, start);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, bucket.tryAcquire(start));
+        }
+        long wait = bucket.tryAcquire(start);
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0L, bucket.tryAcquire(start + TimeUnit.SECONDS.toNanos(1)));
+        assertTrue(bucket.tryAcquire(start + TimeUnit.SECONDS.toNanos(1)) > 0);
+    }
+
+    @Test
+    void neverGrantsMoreThanCapacityUnderContention() throws Exception {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(100, 0.001, now);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch ready = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 8; i++) {
+                executor.execute(() -> {
+                    try {
+                        ready.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < 100; j++) {
+                        if (bucket.tryAcquire(now) == 0L) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            ready.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(100, granted.get());
+    }
+}
@@ -0,0 +1,111 @@
+package com.learn.springailearn.load;
+
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.load.EndpointLoadRunner.LoadReport;
+import com.learn.springailearn.load.EndpointLoadRunner.RequestBody;
+import com.learn.springailearn.support.SimulatedChatModel;
+import com.learn.springailearn.support.SimulatedChatModelConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 接口压测：通过HTTP驱动真实的Controller（完整Advisor链 + 会话记忆 + 异步写入 + 内嵌H2），
+ * 模型由{@link SimulatedChatModel}替代，由{@link EndpointLoadRunner}输出吞吐量和P50/P95/P99延迟
+ * 执行方式：mvn test -Pload-test -Dtest=ChatEndpointLoadTest
+ * 可调参数：-Dload.requests=1000 -Dload.concurrency=32 -Dload.warmup=50，
+ * 模型参数见{@link SimulatedChatModelConfig}（如 -Dsimulated-model.latency=lognormal:300,1500
+ * -Dsimulated-model.error-rate.too-many-requests=0.05）
+ */
+@Tag("load")
+class ChatEndpointLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int WARMUP = Integer.getInteger("load.warmup", 50);
+    private static final int USERS = 200;
+
+    private static ConfigurableApplicationContext context;
+    private static SimulatedChatModel model;
+    private static EndpointLoadRunner runner;
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(SpringAiLearnApplication.class, SimulatedChatModelConfig.class)
+                .profiles("bench")
+                .run("--server.port=0", "--springdoc.api-docs.enabled=false", "--springdoc.swagger-ui.enabled=false");
+        model = context.getBean(SimulatedChatModel.class);
+        runner = new EndpointLoadRunner(
+                "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void smartChat() throws Exception {
+        LoadReport report = run("POST /api/smart-chat/chat", "/api/smart-chat/chat", false, n -> json(
+                "userId", userId(n), "userPrompt", "如何优化Java应用的GC停顿？#" + n, "sessionId", "load-session"));
+        assertNoUnexpectedFailures(report);
+    }
+
+    @Test
+    void smartChatStream() throws Exception {
+        LoadReport report = run("POST /api/smart-chat/chat/stream", "/api/smart-chat/chat/stream", true, n -> json(
+                "userId", userId(n), "userPrompt", "流式输出时如何保存对话记录？#" + n, "sessionId", "load-stream"));
+        assertNoUnexpectedFailures(report);
+    }
+
+    @Test
+    void textGenerate() throws Exception {
+        LoadReport report = run("POST /api/qwen/text/generate", "/api/qwen/text/generate", false, n -> json(
+                "userPrompt", "用一句话介绍通义千问#" + n));
+        assertNoUnexpectedFailures(report);
+    }
+
+    private LoadReport run(String name, String path, boolean streaming, RequestBody body) throws Exception {
+        return runner.run(name, path, streaming, body, REQUESTS, CONCURRENCY, WARMUP, ChatEndpointLoadTest::failureOutcomes);
+    }
+
+    /**
+     * 未注入故障时所有请求都应成功；注入故障时只要求没有传输层错误（HTTP状态码由接口自行决定）
+     */
+    private static void assertNoUnexpectedFailures(LoadReport report) {
+        assertEquals(0, report.transportErrors(), "存在未收到响应的请求");
+        if (report.injectedFailures() == 0) {
+            long ok = report.statusCounts().getOrDefault(200, 0L);
+            assertEquals(report.requests(), ok, "未注入故障时出现非200响应：" + report.statusCounts());
+        }
+    }
+
+    private static long failureOutcomes() {
+        return model.count(SimulatedChatModel.Outcome.TOO_MANY_REQUESTS)
+                + model.count(SimulatedChatModel.Outcome.SERVER_ERROR)
+                + model.count(SimulatedChatModel.Outcome.TIMEOUT);
+    }
+
+    private static String userId(int n) {
+        return "load-user-" + (n % USERS);
+    }
+
+    private static String json(String... keyValues) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(keyValues[i]).append("\":\"").append(keyValues[i + 1]).append('"');
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,174 @@
+package com.learn.springailearn.load;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 接口压测执行器：固定数量的客户端线程通过HTTP持续发送请求，统计吞吐量、P50/P95/P99延迟、状态码和传输错误
+ * 延迟和首字节时间只统计收到完整响应的请求，传输错误单独计数，不以0值混入分位数
+ */
+@Slf4j
+final class EndpointLoadRunner {
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    EndpointLoadRunner(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 执行一个压测场景
+     * @param name 场景名称
+     * @param path 接口路径
+     * @param streaming 是否为流式接口（额外统计首字节时间）
+     * @param body 第n个请求的请求体
+     * @param requests 计入统计的请求数（不含预热）
+     * @param concurrency 并发客户端数
+     * @param warmup 预热请求数
+     * @param failureOutcomes 模型注入故障的累计次数，用于区分注入故障导致的非200响应
+     */
+    LoadReport run(String name, String path, boolean streaming, RequestBody body, int requests, int concurrency,
+                   int warmup, LongSupplier failureOutcomes) throws Exception {
+        AtomicInteger tickets = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        long[] latencies = new long[requests];
+        long[] firstBytes = new long[requests];
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder transportErrors = new LongAdder();
+        long outcomesBefore = failureOutcomes.getAsLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long[] window = new long[2];
+        try {
+            List<Future<?>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    int ticket;
+                    while ((ticket = tickets.getAndIncrement()) < warmup + requests) {
+                        if (ticket == warmup) {
+                            window[0] = System.nanoTime();
+                        }
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                .header("Content-Type", "application/json")
+                                .timeout(Duration.ofSeconds(60))
+                                .POST(HttpRequest.BodyPublishers.ofString(body.render(ticket)))
+                                .build();
+                        long start = System.nanoTime();
+                        long firstByte;
+                        int status;
+                        try {
+                            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                            try (InputStream in = response.body()) {
+                                byte[] buffer = new byte[8192];
+                                int read = in.read(buffer);
+                                firstByte = System.nanoTime() - start;
+                                while (read >= 0) {
+                                    read = in.read(buffer);
+                                }
+                            }
+                            status = response.statusCode();
+                        } catch (Exception e) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                return;
+                            }
+                            transportErrors.increment();
+                            continue;
+                        }
+                        if (ticket >= warmup) {
+                            int sample = completed.getAndIncrement();
+                            latencies[sample] = System.nanoTime() - start;
+                            firstBytes[sample] = firstByte;
+                            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            window[1] = System.nanoTime();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        int samples = completed.get();
+        LoadReport report = new LoadReport(name, requests, concurrency, (window[1] - window[0]) / 1_000_000,
+                Arrays.copyOf(latencies, samples), streaming ? Arrays.copyOf(firstBytes, samples) : null,
+                statusCounts, transportErrors.sum(), failureOutcomes.getAsLong() - outcomesBefore);
+        log.info("{}", report.format());
+        return report;
+    }
+
+    @FunctionalInterface
+    interface RequestBody {
+        String render(int sequence);
+    }
+
+    /**
+     * 单个场景的压测结果，latencies/firstBytes只包含收到完整响应的请求
+     */
+    record LoadReport(String name, int requests, int concurrency, long elapsedMs, long[] latencies,
+                      long[] firstBytes, Map<Integer, Long> statusCounts, long transportErrors,
+                      long injectedFailures) {
+
+        /**
+         * 按完成的请求数计算的吞吐量（req/s）
+         */
+        double throughput() {
+            return elapsedMs == 0 ? 0.0 : latencies.length * 1000.0 / elapsedMs;
+        }
+
+        String format() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%n[%s] 请求=%d，完成=%d，并发=%d，耗时=%dms，吞吐=%.1f req/s%n", name, requests,
+                    latencies.length, concurrency, elapsedMs, throughput()));
+            text.append("  延迟    ").append(percentiles(latencies)).append('\n');
+            if (firstBytes != null) {
+                text.append("  首字节  ").append(percentiles(firstBytes)).append('\n');
+            }
+            text.append(String.format("  状态码=%s，传输错误=%d，模型注入故障=%d", statusCounts, transportErrors, injectedFailures));
+            return text.toString();
+        }
+
+        private static String percentiles(long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return String.format("P50=%.1fms P95=%.1fms P99=%.1fms max=%.1fms",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
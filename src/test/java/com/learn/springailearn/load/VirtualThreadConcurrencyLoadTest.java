@@ -0,0 +1,78 @@
+package com.learn.springailearn.load;
+
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.config.VirtualThreadSupport;
+import com.learn.springailearn.load.EndpointLoadRunner.LoadReport;
+import com.learn.springailearn.support.SimulatedChatModelConfig;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发上限压测：通过HTTP驱动同步的文本生成接口（请求线程阻塞在模型调用上，模型延迟固定），
+ * 分别在关闭和开启spring.threads.virtual.enabled时运行，对比Tomcat工作线程数限制下的吞吐量
+ * 为了让差异在较小的压力下就能体现，Tomcat最大工作线程数调低为{@link #TOMCAT_MAX_THREADS}；
+ * 模型延迟取1秒、预热请求数较多，使虚拟线程一侧的吞吐量由模型延迟而不是CPU决定
+ * （单核机器上压测客户端和应用共用一个CPU，延迟过短或JIT未完成时测到的是CPU上限）
+ * 执行方式：mvn test -Pload-test -Dtest=VirtualThreadConcurrencyLoadTest（虚拟线程部分需要Java 21）
+ */
+@Tag("load")
+class VirtualThreadConcurrencyLoadTest {
+
+    private static final int TOMCAT_MAX_THREADS = 20;
+
+    private static final int CONCURRENCY = 100;
+
+    private static final int REQUESTS = 500;
+
+    private static final int WARMUP = 300;
+
+    private static final long MODEL_LATENCY_MS = 1000;
+
+    /**
+     * 工作线程数决定的吞吐上限（req/s）
+     */
+    private static final double PLATFORM_CEILING = TOMCAT_MAX_THREADS * 1000.0 / MODEL_LATENCY_MS;
+
+    @Test
+    void platformThreadsCapThroughputAtTomcatPoolSize() throws Exception {
+        LoadReport report = run(false);
+
+        assertEquals(REQUESTS, report.statusCounts().getOrDefault(200, 0L), "出现非200响应：" + report.statusCounts());
+        assertTrue(report.throughput() <= PLATFORM_CEILING * 1.1, "吞吐量超过了工作线程数的上限：" + report.throughput());
+    }
+
+    @Test
+    void virtualThreadsLiftTheConcurrencyCeiling() throws Exception {
+        Assumptions.assumeTrue(VirtualThreadSupport.isAvailable(), "需要Java 21运行");
+        LoadReport report = run(true);
+
+        assertEquals(REQUESTS, report.statusCounts().getOrDefault(200, 0L), "出现非200响应：" + report.statusCounts());
+        // 开启虚拟线程后Tomcat不再受工作线程数限制，吞吐量取决于客户端并发数
+        assertTrue(report.throughput() > PLATFORM_CEILING * 2, "吞吐量未突破工作线程数的上限：" + report.throughput());
+    }
+
+    private LoadReport run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringAiLearnApplication.class,
+                SimulatedChatModelConfig.class)
+                .profiles("bench")
+                .run("--server.port=0", "--springdoc.api-docs.enabled=false", "--springdoc.swagger-ui.enabled=false",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "--simulated-model.latency=fixed:" + MODEL_LATENCY_MS,
+                        "--app.ai.response-cache.enabled=false")) {
+            EndpointLoadRunner runner = new EndpointLoadRunner(
+                    "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            String name = "POST /api/qwen/text/generate（" + (virtualThreads ? "虚拟线程" : "平台线程") + "）";
+            return runner.run(name, "/api/qwen/text/generate", false,
+                    n -> "{\"userPrompt\":\"用一句话介绍通义千问#" + n + "\"}",
+                    REQUESTS, CONCURRENCY, WARMUP, () -> 0L);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.learn.springailearn.mapper;
+
+import com.learn.springailearn.SpringAiLearnApplication;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordSearchHit;
+import com.learn.springailearn.service.ChatRecordSearchBackfill;
+import com.learn.springailearn.service.ChatRecordSearchTerms;
+import com.learn.springailearn.support.SimulatedChatModelConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对话记录全文检索的Mapper层测试
+ * 默认使用bench profile的H2验证检索词的写入和回填；H2不支持MATCH ... AGAINST，检索本身需要MySQL：
+ * mvn test -Dtest=ChatRecordMapperSearchTest -Dtest.mysql.url=jdbc:mysql://localhost:3306/spring_ai_demo
+ * -Dtest.mysql.username=root -Dtest.mysql.password=... [-Dtest.mysql.noise-rows=1000000]
+ * 表结构取自template/init.sql，其他用户的干扰记录包含同样的常见词，日志输出执行计划和检索耗时
+ */
+@Slf4j
+class ChatRecordMapperSearchTest {
+
+    private static final String MYSQL_URL = System.getProperty("test.mysql.url", "");
+
+    private static ConfigurableApplicationContext context;
+    private static ChatRecordMapper mapper;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startContext() {
+        List<String> args = new ArrayList<>(List.of("--spring.main.web-application-type=none",
+                "--app.chat-record.archive.enabled=false"));
+        if (!MYSQL_URL.isEmpty()) {
+            args.addAll(List.of("--spring.datasource.url=" + MYSQL_URL,
+                    "--spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver",
+                    "--spring.datasource.username=" + System.getProperty("test.mysql.username", "root"),
+                    "--spring.datasource.password=" + System.getProperty("test.mysql.password", ""),
+                    "--spring.sql.init.schema-locations=classpath:template/init.sql"));
+        }
+        context = new SpringApplicationBuilder(SpringAiLearnApplication.class, SimulatedChatModelConfig.class)
+                .profiles("bench")
+                .run(args.toArray(String[]::new));
+        mapper = context.getBean(ChatRecordMapper.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void closeContext() {
+        context.close();
+    }
+
+    @Test
+    void insertBatchAndBackfillWriteUserScopedTerms() {
+        String userId = uniqueUser("terms");
+        ChatRecord record = record(userId, "数据库索引怎么建？", "先看查询条件。");
+        mapper.insertBatch(List.of(record));
+        jdbcTemplate.update("INSERT INTO chat_record (user_id, session_id, user_prompt, ai_response, model) "
+                + "VALUES (?, '', ?, ?, 'qwen-turbo')", userId, "升级前的记录", "没有检索词");
+
+        assertTrue(context.getBean(ChatRecordSearchBackfill.class).backfill() >= 1);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT user_prompt, search_terms FROM chat_record WHERE user_id = ? ORDER BY id", userId);
+        assertEquals(2, rows.size());
+        assertEquals(ChatRecordSearchTerms.document(userId, "数据库索引怎么建？", "先看查询条件。"),
+                rows.get(0).get("search_terms"));
+        assertEquals(ChatRecordSearchTerms.document(userId, "升级前的记录", "没有检索词"),
+                rows.get(1).get("search_terms"));
+    }
+
+    @Test
+    void searchReadsOnlyTheUsersPostings() {
+        Assumptions.assumeFalse(MYSQL_URL.isEmpty(), "全文检索需要MySQL（-Dtest.mysql.url）");
+        String userId = uniqueUser("search");
+        List<ChatRecord> own = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            own.add(i % 5 == 0
+                    ? record(userId, "第" + i + "个问题：数据库索引怎么建？", "联合索引遵循最左前缀。")
+                    : record(userId, "第" + i + "个问题：今天天气如何？", "晴。"));
+        }
+        mapper.insertBatch(own);
+        int noiseRows = Integer.getInteger("test.mysql.noise-rows", 20000);
+        seedNoise(noiseRows);
+
+        String query = ChatRecordSearchTerms.booleanQuery(userId, "数据库 索引", 2);
+        List<ChatRecordSearchHit> hits = mapper.searchByKeyword(userId, query, 100, 0, 100);
+        assertEquals(10, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.getPromptPreview().contains("数据库索引")));
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN SELECT id FROM chat_record "
+                + "WHERE MATCH(search_terms) AGAINST(? IN BOOLEAN MODE) AND user_id = ? AND is_deleted = 0", query, userId);
+        long[] nanos = new long[50];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            mapper.searchByKeyword(userId, query, 100, 0, 20);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        log.info("全文检索：干扰记录={}，执行计划={}，P50={}ms，P95={}ms", noiseRows, plan,
+                nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 95 / 100] / 1e6);
+    }
+
+    /**
+     * 其他用户的记录，内容同样包含检索词
+     */
+    private static void seedNoise(int rows) {
+        String prefix = uniqueUser("noise");
+        List<ChatRecord> batch = new ArrayList<>(1000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(record(prefix + (i % 1000), "数据库索引的第" + i + "个问题", "联合索引遵循最左前缀。"));
+            if (batch.size() == 1000) {
+                mapper.insertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mapper.insertBatch(batch);
+        }
+    }
+
+    private static ChatRecord record(String userId, String prompt, String response) {
+        LocalDateTime now = LocalDateTime.now();
+        ChatRecord record = new ChatRecord();
+        record.setUserId(userId);
+        record.setSessionId("");
+        record.setUserPrompt(prompt);
+        record.setAiResponse(response);
+        record.setModel("qwen-turbo");
+        record.setSearchTerms(ChatRecordSearchTerms.document(userId, prompt, response));
+        record.setCreateTime(now);
+        record.setUpdateTime(now);
+        return record;
+    }
+
+    private static String uniqueUser(String prefix) {
+        return "mapper-" + prefix + "-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+}
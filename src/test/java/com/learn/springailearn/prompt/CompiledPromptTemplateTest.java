@@ -0,0 +1,63 @@
+package com.learn.springailearn.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompiledPromptTemplateTest {
+
+    private static final String TEMPLATE = "你是一名{role}，请使用{language}回答，篇幅不超过{limit}字。";
+
+    @Test
+    void rendersSameAsSystemPromptTemplate() {
+        Map<String, Object> params = Map.of("role", "助手", "language", "中文", "limit", 100, "unused", "x");
+        CompiledPromptTemplate compiled = CompiledPromptTemplate.compile(TEMPLATE);
+
+        assertEquals(Set.of("role", "language", "limit"), compiled.getVariables());
+        assertEquals(new SystemPromptTemplate(TEMPLATE).createMessage(params).getText(), compiled.render(params));
+    }
+
+    @Test
+    void rejectsMissingParamsAndInvalidTemplates() {
+        CompiledPromptTemplate compiled = CompiledPromptTemplate.compile(TEMPLATE);
+
+        assertThrows(IllegalArgumentException.class, () -> compiled.render(Map.of("role", "助手")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledPromptTemplate.compile("你好{name"));
+    }
+
+    @Test
+    void sharedTemplateRendersConcurrently() throws Exception {
+        CompiledPromptTemplate compiled = CompiledPromptTemplate.compile(TEMPLATE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String role = "角色" + i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        String rendered = compiled.render(Map.of("role", role, "language", "中文", "limit", j));
+                        if (!rendered.equals("你是一名" + role + "，请使用中文回答，篇幅不超过" + j + "字。")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertEquals(true, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
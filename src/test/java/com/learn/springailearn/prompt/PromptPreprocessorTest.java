@@ -0,0 +1,69 @@
+package com.learn.springailearn.prompt;
+
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptPreprocessorTest {
+
+    private final PromptPreprocessProperties properties = new PromptPreprocessProperties();
+    private final PromptPreprocessor preprocessor = new PromptPreprocessor(properties, new SimpleMeterRegistry());
+
+    @Test
+    void estimatesMixedText() {
+        assertEquals(0, QwenTokenEstimator.estimate(""));
+        assertEquals(9, QwenTokenEstimator.estimate("通义千问大模型接入指南，"));
+        assertEquals(4, QwenTokenEstimator.estimate("hello spring ai world"));
+        assertEquals(4, QwenTokenEstimator.estimate("2026"));
+        assertEquals(2, QwenTokenEstimator.estimate("😀"));
+        // 前缀不切开代理对
+        assertEquals(0, QwenTokenEstimator.prefixLength("😀😀", 1));
+        assertEquals(2, QwenTokenEstimator.prefixLength("😀😀", 3));
+    }
+
+    @Test
+    void normalizesWhitespaceAndDropsRepeatedParagraphs() {
+        String paragraph = "请根据下面的日志分析Spring Boot应用启动缓慢的原因并给出优化建议";
+        String input = "  " + paragraph + "   \r\n\r\n\n\n" + "重点关注   Bean  初始化​\n\n" + paragraph
+                + "\n\n```java\nclass A {\n\n    int  x;   \n}\n```\n";
+
+        String normalized = preprocessor.normalize(input);
+
+        assertEquals(paragraph + "\n\n重点关注 Bean 初始化\n\n```java\nclass A {\n\n    int  x;\n}\n```", normalized);
+    }
+
+    @Test
+    void truncatesKeepingHeadAndTail() {
+        properties.setMaxInputTokens(200);
+        String input = "开头：请总结下面的资料。" + "无关的中间内容。".repeat(500) + "结尾：请用三句话回答。";
+
+        PreparedPrompt prepared = preprocessor.prepare(input, 0);
+
+        assertTrue(prepared.truncated());
+        assertTrue(prepared.originalTokens() > 2000);
+        assertTrue(prepared.estimatedTokens() <= 202, "截断后约" + prepared.estimatedTokens() + "个token");
+        assertTrue(prepared.text().startsWith("开头：请总结下面的资料。"));
+        assertTrue(prepared.text().endsWith("结尾：请用三句话回答。"));
+        assertTrue(prepared.text().contains("已省略"));
+    }
+
+    @Test
+    void rejectsPromptsBeyondTheModelContext() {
+        properties.setMaxContextTokens(1000);
+        properties.setReservedCompletionTokens(200);
+
+        PreparedPrompt prepared = preprocessor.prepare("简短的问题", 500);
+        assertFalse(prepared.truncated());
+        assertThrows(IllegalArgumentException.class, () -> preprocessor.prepare("简短的问题", 800));
+
+        properties.setOverflowStrategy(PromptPreprocessProperties.OverflowStrategy.REJECT);
+        properties.setMaxInputTokens(10);
+        assertThrows(IllegalArgumentException.class, () -> preprocessor.prepare("很长的问题".repeat(10), 0));
+        assertThrows(IllegalArgumentException.class, () -> preprocessor.prepare(" ​\n ", 0));
+    }
+}
@@ -0,0 +1,41 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.config.ResilienceProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnFailureRateAndClosesAfterSuccessfulProbes() throws InterruptedException {
+        ResilienceProperties.CircuitBreaker properties = new ResilienceProperties.CircuitBreaker();
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(0.5);
+        properties.setOpenDuration(Duration.ofMillis(50));
+        properties.setHalfOpenPermittedCalls(2);
+        CircuitBreaker breaker = new CircuitBreaker(properties);
+
+        for (int i = 0; i < 2; i++) {
+            breaker.acquirePermission();
+            breaker.onSuccess();
+            breaker.acquirePermission();
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+
+        Thread.sleep(80);
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,281 @@
+package com.learn.springailearn.resilience;
+
+import com.learn.springailearn.config.CallScopeInterceptor;
+import com.learn.springailearn.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmCallExecutorTest {
+
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private LlmCallExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void retriesTransientFailuresUntilSuccess() {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        executor = new LlmCallExecutor(properties, false, new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.call("test", executor.deadline(5000L), () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new TransientAiException("HTTP 503 SERVICE_UNAVAILABLE - busy");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryValidationOrClientErrors() {
+        executor = new LlmCallExecutor(properties, false, new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(NonTransientAiException.class, () -> executor.call("test", executor.deadline(5000L), () -> {
+            attempts.incrementAndGet();
+            throw new NonTransientAiException("HTTP 400 BAD_REQUEST - invalid");
+        }));
+        assertThrows(IllegalArgumentException.class, () -> executor.call("test", executor.deadline(5000L), () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad");
+        }));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void stopsAtDeadline() {
+        executor = new LlmCallExecutor(properties, false, new SimpleMeterRegistry());
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> executor.execute("test", Deadline.after(Duration.ofMillis(100)), () -> {
+                    try {
+                        Thread.sleep(2000);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "late";
+                }).join());
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void deadlineCancelsInFlightHttpCall() throws Exception {
+        executor = new LlmCallExecutor(properties, false, new SimpleMeterRegistry());
+        CountDownLatch callAborted = new CountDownLatch(1);
+        try (StuckServer server = new StuckServer()) {
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> executor.execute("test", Deadline.after(Duration.ofMillis(200)),
+                            () -> httpCall(server, callAborted)).join());
+
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            // 读取超时为30秒，HTTP请求应随截止时间被取消，而不是一直占用执行线程和连接
+            assertTrue(callAborted.await(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void hedgeLoserHttpCallIsCancelled() throws Exception {
+        ResilienceProperties.Hedge hedge = properties.getHedge();
+        hedge.setEnabled(true);
+        hedge.setBudgetRatio(1.0);
+        hedge.setMinSamples(1);
+        ResilienceProperties.Endpoint endpoint = new ResilienceProperties.Endpoint();
+        endpoint.setMinDelay(Duration.ofMillis(20));
+        hedge.getEndpoints().put("chat", endpoint);
+        executor = new LlmCallExecutor(properties, false, new SimpleMeterRegistry());
+        executor.call("test", executor.deadline(5000L), "chat", isHedge -> "warm-up");
+
+        CountDownLatch primaryAborted = new CountDownLatch(1);
+        try (StuckServer server = new StuckServer()) {
+            String result = executor.call("test", executor.deadline(5000L), "chat",
+                    isHedge -> {
+                        if (!isHedge) {
+                            return httpCall(server, primaryAborted);
+                        }
+                        try {
+                            server.awaitRequest();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "hedge";
+                    });
+
+            assertEquals("hedge", result);
+            // 对冲调用在首次调用的请求发出后才成功，中断不能打断阻塞在Socket读取上的OkHttp调用，
+            // 落败的首次调用需要取消底层HTTP请求才会结束
+            assertTrue(primaryAborted.await(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void slowCallIsHedgedAndLoserIsInterrupted() throws InterruptedException {
+        ResilienceProperties.Hedge hedge = properties.getHedge();
+        hedge.setEnabled(true);
+        hedge.setBudgetRatio(1.0);
+        hedge.setMinSamples(5);
+        ResilienceProperties.Endpoint endpoint = new ResilienceProperties.Endpoint();
+        endpoint.setMinDelay(Duration.ofMillis(20));
+        hedge.getEndpoints().put("chat", endpoint);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor = new LlmCallExecutor(properties, false, registry);
+        for (int i = 0; i < 5; i++) {
+            executor.call("test", executor.deadline(5000L), "chat", isHedge -> "warm-up");
+        }
+
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+        String result = executor.call("test", executor.deadline(5000L), "chat", isHedge -> {
+            if (isHedge) {
+                return "hedge";
+            }
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                primaryInterrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return "primary";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(primaryInterrupted.await(1, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("ai.hedge.wins").counter().count());
+        assertEquals(1.0, registry.get("ai.hedge.calls").tag("type", "hedge").counter().count());
+    }
+
+    @Test
+    void cancelledPrimaryIsRecordedAsCensoredLatency() throws InterruptedException {
+        ResilienceProperties.Hedge hedge = properties.getHedge();
+        hedge.setEnabled(true);
+        hedge.setBudgetRatio(1.0);
+        hedge.setMinSamples(1);
+        ResilienceProperties.Endpoint endpoint = new ResilienceProperties.Endpoint();
+        endpoint.setPercentile(0.9);
+        endpoint.setMinDelay(Duration.ofMillis(20));
+        hedge.getEndpoints().put("chat", endpoint);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor = new LlmCallExecutor(properties, false, registry);
+        executor.call("test", executor.deadline(5000L), "chat", isHedge -> "warm-up");
+
+        // 首次调用卡住，对冲调用150ms后成功，首次调用在约170ms时被取消
+        String result = executor.call("test", executor.deadline(5000L), "chat", isHedge -> {
+            try {
+                Thread.sleep(isHedge ? 150 : 3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return isHedge ? "hedge" : "primary";
+        });
+
+        assertEquals("hedge", result);
+        // 被取消的首次调用按截至取消的耗时计入样本，慢尾抬高了对冲延迟（只记成功耗时时仍停留在20ms下限）
+        // 结果返回后才取消落败的首次调用，稍等样本写入
+        double delayMs = 0;
+        for (int i = 0; i < 50 && delayMs < 150; i++) {
+            Thread.sleep(20);
+            delayMs = registry.get("ai.hedge.delay").tag("endpoint", "chat").gauge().value();
+        }
+        assertTrue(delayMs >= 150, "对冲延迟：" + delayMs);
+    }
+
+    private static String httpCall(StuckServer server, CountDownLatch aborted) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .readTimeout(Duration.ofSeconds(30))
+                .addInterceptor(new CallScopeInterceptor())
+                .build();
+        Request request = new Request.Builder().url("http://localhost:" + server.getPort() + "/chat").build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().string();
+        } catch (IOException e) {
+            aborted.countDown();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读完请求但从不响应的服务端，模拟卡住的上游
+     */
+    private static final class StuckServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+        private final CountDownLatch requestReceived = new CountDownLatch(1);
+
+        StuckServer() throws IOException {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        accepted.add(socket);
+                        readRequestHeaders(socket);
+                        requestReceived.countDown();
+                    }
+                } catch (IOException e) {
+                    // 测试结束
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        /**
+         * 等待服务端收到请求，此时客户端已阻塞在响应读取上
+         */
+        void awaitRequest() throws InterruptedException {
+            assertTrue(requestReceived.await(5, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+        }
+
+        private static void readRequestHeaders(Socket socket) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                // 丢弃请求头
+            }
+        }
+    }
+}
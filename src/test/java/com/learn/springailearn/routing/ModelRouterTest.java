@@ -0,0 +1,59 @@
+package com.learn.springailearn.routing;
+
+import com.learn.springailearn.config.ModelRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelRouterTest {
+
+    private final ModelRouter router = new ModelRouter(new ModelRoutingProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void heuristicScalesWithPromptSizeAndComplexity() {
+        assertEquals("qwen-turbo", router.route(null, "你好", 2).model());
+        assertEquals("qwen-plus", router.route(null, "帮我写一段排序算法", 9).model());
+        assertEquals("qwen-plus", router.route(null, "总结一下", 1500).model());
+        assertEquals("qwen-max", router.route(null, "总结一下", 8000).model());
+        assertEquals("qwen-max", router.route(null, "分析这段代码", 1500).model());
+    }
+
+    @Test
+    void hintOverridesHeuristicAndUnknownModelIsRejected() {
+        RouteDecision decision = router.route("best", "你好", 2);
+
+        assertEquals("qwen-max", decision.model());
+        assertEquals("hint", decision.reason());
+        assertEquals("qwen-turbo", router.route("fast", "分析这段代码", 8000).model());
+        assertEquals("qwen-plus", router.route("qwen-plus", "你好", 2).model());
+        assertThrows(IllegalArgumentException.class, () -> router.route("gpt-4", "你好", 2));
+    }
+
+    @Test
+    void failingOrSlowModelFallsBackToCheaperModelFirst() {
+        for (int i = 0; i < 10; i++) {
+            router.record("qwen-plus", Duration.ofMillis(500).toNanos(), true);
+            router.record("qwen-max", Duration.ofSeconds(30).toNanos(), false);
+        }
+        // 健康状态在定时计算前保持不变
+        assertEquals("qwen-plus", router.route("qwen-plus", "你好", 2).model());
+        router.refreshHealth();
+
+        RouteDecision plus = router.route("qwen-plus", "你好", 2);
+        assertEquals("qwen-turbo", plus.model());
+        assertEquals("fallback", plus.reason());
+        assertEquals("qwen-turbo", router.route("best", "你好", 2).model());
+
+        for (int i = 0; i < 10; i++) {
+            router.record("qwen-turbo", Duration.ofMillis(200).toNanos(), true);
+        }
+        router.refreshHealth();
+        RouteDecision degraded = router.route("qwen-plus", "你好", 2);
+        assertEquals("qwen-plus", degraded.model());
+        assertEquals("degraded", degraded.reason());
+    }
+}
@@ -0,0 +1,129 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.config.ChatRecordArchiveProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.domain.ChatRecordArchive;
+import com.learn.springailearn.mapper.ChatRecordArchiveMapper;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.shared.InMemorySharedStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatRecordArchiveServiceTest {
+
+    @Test
+    void codecRoundTripsCompressedPayload() {
+        ChatRecord record = record(42L, "user-1", "你好😀".repeat(200), 0);
+        ChatRecordArchive archive = ChatRecordArchiveCodec.toArchive(record, 255, LocalDateTime.now());
+
+        assertTrue(archive.getUserPromptGz().length < record.getUserPrompt().getBytes().length);
+        assertTrue(archive.getPromptPreview().length() <= 255);
+        ChatRecord restored = ChatRecordArchiveCodec.toChatRecord(archive);
+        assertEquals(record.getUserPrompt(), restored.getUserPrompt());
+        assertEquals(record.getAiResponse(), restored.getAiResponse());
+        assertEquals(42L, restored.getId());
+        assertEquals(120, restored.getPromptTokens());
+        assertEquals(35, restored.getCompletionTokens());
+        assertEquals(860, restored.getLatencyMs());
+    }
+
+    @Test
+    void movesBatchesAndPurgesDeletedRecords() {
+        ChatRecordMapper chatRecordMapper = mock(ChatRecordMapper.class);
+        ChatRecordArchiveMapper archiveMapper = mock(ChatRecordArchiveMapper.class);
+        List<ChatRecord> hot = new CopyOnWriteArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            hot.add(record(id, "user-1", "问题" + id, id == 2 ? 1 : 0));
+        }
+        // 保留期内的记录：已删除的由第二次扫描处理，未删除的保留在热表
+        ChatRecord recentDeleted = record(6L, "user-1", "问题6", 1);
+        recentDeleted.setCreateTime(LocalDateTime.now());
+        ChatRecord recent = record(7L, "user-1", "问题7", 0);
+        recent.setCreateTime(LocalDateTime.now());
+        hot.add(recentDeleted);
+        hot.add(recent);
+        when(chatRecordMapper.selectExpiredArchiveCandidates(any(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime before = invocation.getArgument(0);
+            LocalDateTime cursorTime = invocation.getArgument(1);
+            Long cursorId = invocation.getArgument(2);
+            int limit = invocation.getArgument(3);
+            return hot.stream()
+                    .filter(r -> r.getCreateTime().isBefore(before))
+                    .filter(r -> cursorTime == null || r.getCreateTime().isAfter(cursorTime)
+                            || (r.getCreateTime().isEqual(cursorTime) && r.getId() > cursorId))
+                    .sorted(Comparator.comparing(ChatRecord::getCreateTime).thenComparing(ChatRecord::getId))
+                    .limit(limit)
+                    .toList();
+        });
+        when(chatRecordMapper.selectDeletedArchiveCandidates(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return hot.stream().filter(r -> r.getIsDeleted() == 1 && r.getId() > afterId).limit(limit).toList();
+        });
+        List<Long> archivedIds = new CopyOnWriteArrayList<>();
+        List<Integer> archivedLatencies = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<ChatRecordArchive> archives = invocation.getArgument(0);
+            archives.forEach(a -> {
+                archivedIds.add(a.getId());
+                archivedLatencies.add(a.getLatencyMs());
+            });
+            return archives.size();
+        }).when(archiveMapper).insertIgnoreBatch(anyList());
+        List<Long> deletedIds = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            deletedIds.addAll(ids);
+            hot.removeIf(r -> ids.contains(r.getId()));
+            return ids.size();
+        }).when(chatRecordMapper).physicalDeleteByIds(anyList());
+        when(archiveMapper.purgeDeleted(anyInt())).thenReturn(1);
+
+        ChatRecordArchiveProperties properties = new ChatRecordArchiveProperties();
+        properties.setBatchSize(2);
+        properties.setBatchPause(Duration.ZERO);
+        properties.setPurgeDeleted(true);
+        ChatRecordArchiveService service = new ChatRecordArchiveService(chatRecordMapper, archiveMapper, properties,
+                mock(PlatformTransactionManager.class), new InMemorySharedStateStore(100), new SimpleMeterRegistry());
+
+        // 过期5条（其中1条已删除）+ 保留期内已删除1条 + 归档表1条已删除
+        assertEquals(7, service.archive());
+        assertEquals(List.of(1L, 3L, 4L, 5L), archivedIds);
+        assertEquals(List.of(860, 860, 860, 860), archivedLatencies);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), deletedIds);
+        assertEquals(List.of(7L), hot.stream().map(ChatRecord::getId).toList());
+    }
+
+    private ChatRecord record(Long id, String userId, String prompt, int deleted) {
+        ChatRecord record = new ChatRecord();
+        record.setId(id);
+        record.setUserId(userId);
+        record.setSessionId("session-1");
+        record.setUserPrompt(prompt);
+        record.setAiResponse("回答：" + prompt);
+        record.setModel("qwen-turbo");
+        record.setPromptTokens(120);
+        record.setCompletionTokens(35);
+        record.setLatencyMs(860);
+        record.setCreateTime(LocalDateTime.now().minusDays(100));
+        record.setIsDeleted(deleted);
+        return record;
+    }
+}
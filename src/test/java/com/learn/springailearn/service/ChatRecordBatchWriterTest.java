@@ -0,0 +1,121 @@
+package com.learn.springailearn.service;
+
+import com.learn.springailearn.cache.ChatHistoryCache;
+import com.learn.springailearn.cache.HistoryInvalidationChannel;
+import com.learn.springailearn.config.ChatHistoryCacheProperties;
+import com.learn.springailearn.config.ChatRecordWriterProperties;
+import com.learn.springailearn.domain.ChatRecord;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ChatRecordBatchWriterTest {
+
+    @Test
+    void batchesQueuedRecordsAndFlushesOnStop() {
+        ChatRecordMapper mapper = mock(ChatRecordMapper.class);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<?> records = invocation.getArgument(0);
+            batchSizes.add(records.size());
+            return records.size();
+        }).when(mapper).insertBatch(anyList());
+
+        ChatRecordWriterProperties properties = new ChatRecordWriterProperties();
+        properties.setBatchSize(50);
+        properties.setFlushIntervalMs(500);
+        ChatRecordBatchWriter writer = new ChatRecordBatchWriter(mapper, properties, historyCache(), new SimpleMeterRegistry());
+        writer.start();
+        for (int i = 0; i < 120; i++) {
+            writer.submit(record("user-" + i));
+        }
+        writer.stop();
+
+        assertEquals(120, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 50));
+        assertTrue(batchSizes.size() < 120, "记录应当被合并为多行INSERT");
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    void writesSynchronouslyWhenWriterIsNotRunning() {
+        ChatRecordMapper mapper = mock(ChatRecordMapper.class);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<?> records = invocation.getArgument(0);
+            batchSizes.add(records.size());
+            return records.size();
+        }).when(mapper).insertBatch(anyList());
+
+        ChatRecordWriterProperties properties = new ChatRecordWriterProperties();
+        // 刷盘线程未启动时直接在调用线程写入
+        ChatRecordBatchWriter writer = new ChatRecordBatchWriter(mapper, properties, historyCache(), new SimpleMeterRegistry());
+        writer.submit(record("user-1"));
+
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void recordSubmittedWhileStoppingIsNotLost() throws Exception {
+        ChatRecordMapper mapper = mock(ChatRecordMapper.class);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<?> records = invocation.getArgument(0);
+            batchSizes.add(records.size());
+            return records.size();
+        }).when(mapper).insertBatch(anyList());
+
+        CountDownLatch checkedRunning = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        ChatRecordWriterProperties properties = new ChatRecordWriterProperties() {
+            @Override
+            public long getOfferTimeoutMs() {
+                // 提交线程已通过running检查、尚未入队时挂起，期间完成整个停机流程
+                checkedRunning.countDown();
+                try {
+                    stopped.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getOfferTimeoutMs();
+            }
+        };
+        ChatRecordBatchWriter writer = new ChatRecordBatchWriter(mapper, properties, historyCache(), new SimpleMeterRegistry());
+        writer.start();
+        Thread submitter = new Thread(() -> writer.submit(record("user-1")));
+        submitter.start();
+        assertTrue(checkedRunning.await(5, TimeUnit.SECONDS));
+        writer.stop();
+        stopped.countDown();
+        submitter.join(5000);
+
+        assertEquals(List.of(1), batchSizes);
+        assertEquals(0, writer.pendingCount());
+    }
+
+    private ChatHistoryCache historyCache() {
+        return new ChatHistoryCache(new ChatHistoryCacheProperties(), new StaticListableBeanFactory()
+                .getBeanProvider(HistoryInvalidationChannel.class), new SimpleMeterRegistry());
+    }
+
+    private ChatRecord record(String userId) {
+        ChatRecord chatRecord = new ChatRecord();
+        chatRecord.setUserId(userId);
+        chatRecord.setUserPrompt("prompt");
+        chatRecord.setAiResponse("response");
+        chatRecord.setModel("qwen-turbo");
+        return chatRecord;
+    }
+}
@@ -0,0 +1,64 @@
+package com.learn.springailearn.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatRecordSearchTermsTest {
+
+    @Test
+    void buildsRequiredPhraseQueryFromUserScopedGrams() {
+        String key = ChatRecordSearchTerms.userKey("user-1");
+        assertEquals(7, key.length());
+        assertEquals("+\"" + key + "数据 " + key + "据库\" +\"" + key + "索引\"",
+                ChatRecordSearchTerms.booleanQuery("user-1", "  数据库   索引 ", 2));
+        // 双引号等运算符不会进入检索式，过短的词被忽略
+        assertEquals("+\"" + key + "sp " + key + "pr " + key + "ri " + key + "in " + key + "ng\" +\"" + key + "ai\"",
+                ChatRecordSearchTerms.booleanQuery("user-1", "\"Spring\" ai 的", 2));
+        assertEquals("", ChatRecordSearchTerms.booleanQuery("user-1", "的 了 -+", 2));
+    }
+
+    /**
+     * 多个关键词各自成为必须出现的短语；BOOLEAN MODE运算符（+ - * ( ) @ ~ < >）只作为分隔，不进入检索式
+     */
+    @Test
+    void operatorsInKeywordsOnlySeparateGrams() {
+        String key = ChatRecordSearchTerms.userKey("user-1");
+        String query = ChatRecordSearchTerms.booleanQuery("user-1", "C++ 数据库(索引) -删除 foo*bar MySQL8.0 @3 ~<>😀", 2);
+
+        assertEquals("+\"" + key + "数据 " + key + "据库 " + key + "索引\""
+                        + " +\"" + key + "删除\""
+                        + " +\"" + key + "fo " + key + "oo " + key + "ba " + key + "ar\""
+                        + " +\"" + key + "my " + key + "ys " + key + "sq " + key + "ql " + key + "l8\"",
+                query);
+        String operators = query.replace(key, "").replace("+\"", "").replace("\"", "");
+        assertTrue(operators.chars().noneMatch(c -> "+-*()@~<>\"".indexOf(c) >= 0), operators);
+        // 多个关键词都出现在文档中时，每个短语都能在检索词中找到
+        String document = ChatRecordSearchTerms.document("user-1", "数据库(索引)怎么删除？", "foo*bar与MySQL8.0");
+        for (String phrase : query.substring(2, query.length() - 1).split("\" \\+\"")) {
+            assertTrue((" " + document + " ").contains(" " + phrase + " "), phrase);
+        }
+    }
+
+    @Test
+    void documentContainsQueryPhraseOnlyForSameUser() {
+        String document = ChatRecordSearchTerms.document("user-1", "如何给MySQL数据库加索引？", "使用ALTER TABLE😀添加。");
+        String phrase = phrase(ChatRecordSearchTerms.booleanQuery("user-1", "数据库", 2));
+        assertTrue((" " + document + " ").contains(" " + phrase + " "), document);
+        assertTrue(document.contains(ChatRecordSearchTerms.userKey("user-1") + "al"));
+        // 标点和表情作为分隔，不跨越分隔符组词
+        assertFalse(document.contains("？"));
+        assertFalse(document.contains("e添"));
+
+        String otherPhrase = phrase(ChatRecordSearchTerms.booleanQuery("user-2", "数据库", 2));
+        assertNotEquals(phrase, otherPhrase);
+        assertFalse(document.contains(otherPhrase));
+    }
+
+    private static String phrase(String query) {
+        return query.substring(2, query.length() - 1);
+    }
+}
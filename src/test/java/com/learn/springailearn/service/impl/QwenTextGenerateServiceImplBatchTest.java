@@ -0,0 +1,97 @@
+package com.learn.springailearn.service.impl;
+
+import com.learn.springailearn.config.BatchGenerateProperties;
+import com.learn.springailearn.config.PromptPreprocessProperties;
+import com.learn.springailearn.config.ResilienceProperties;
+import com.learn.springailearn.domain.BatchGenerateRequest;
+import com.learn.springailearn.domain.BatchItemResult;
+import com.learn.springailearn.domain.BatchJobStatus;
+import com.learn.springailearn.domain.BatchPromptItem;
+import com.learn.springailearn.prompt.PromptPreprocessor;
+import com.learn.springailearn.prompt.SystemPromptTemplateRegistry;
+import com.learn.springailearn.resilience.LlmCallExecutor;
+import com.learn.springailearn.support.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QwenTextGenerateServiceImplBatchTest {
+
+    private final LlmCallExecutor executor =
+            new LlmCallExecutor(new ResilienceProperties(), false, new SimpleMeterRegistry());
+    private final QwenTextGenerateServiceImpl service = new QwenTextGenerateServiceImpl(
+            ChatClient.builder(new StubChatModel()).build(), executor,
+            new SystemPromptTemplateRegistry(100, 10, new SimpleMeterRegistry()),
+            new PromptPreprocessor(new PromptPreprocessProperties(), new SimpleMeterRegistry()), new BatchGenerateProperties());
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void reportsEachItemIncludingPartialFailures() {
+        BatchGenerateRequest request = request(List.of("a", "", "c"));
+
+        List<BatchItemResult> results = new ArrayList<>(service.generateBatch(request)
+                .collectList()
+                .block(Duration.ofSeconds(10)));
+        results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("echo: a", results.get(0).getContent());
+        assertFalse(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getError());
+        assertEquals("item-2", results.get(2).getId());
+        assertTrue(results.get(2).isSuccess());
+    }
+
+    @Test
+    void pollsAsyncJobUntilCompleted() throws InterruptedException {
+        String jobId = service.submitBatchJob(request(List.of("a", "b", "c", "d")));
+
+        BatchJobStatus status = service.getBatchJob(jobId, 0);
+        for (int i = 0; i < 100 && !"COMPLETED".equals(status.getStatus()); i++) {
+            Thread.sleep(20);
+            status = service.getBatchJob(jobId, 0);
+        }
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(4, status.getSucceeded());
+        assertEquals(4, status.getNextOffset());
+        assertEquals(0, service.getBatchJob(jobId, 4).getResults().size());
+    }
+
+    @Test
+    void rejectsEmptyBatch() {
+        assertThrows(IllegalArgumentException.class, () -> service.generateBatch(request(List.of())));
+    }
+
+    private BatchGenerateRequest request(List<String> prompts) {
+        BatchGenerateRequest request = new BatchGenerateRequest();
+        request.setSystemPrompt("你是{role}");
+        request.setParams(Map.of("role", "助手"));
+        List<BatchPromptItem> items = new ArrayList<>();
+        for (int i = 0; i < prompts.size(); i++) {
+            BatchPromptItem item = new BatchPromptItem();
+            item.setId("item-" + i);
+            item.setUserPrompt(prompts.get(i));
+            items.add(item);
+        }
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,52 @@
+package com.learn.springailearn.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemorySharedStateStoreTest {
+
+    @Test
+    void entriesAndCountersExpireAfterTheirTtl() {
+        AtomicLong clock = new AtomicLong();
+        InMemorySharedStateStore store = new InMemorySharedStateStore(100, clock::get);
+
+        assertTrue(store.setIfAbsent("lock", "node-a", Duration.ofSeconds(10)));
+        assertFalse(store.setIfAbsent("lock", "node-b", Duration.ofSeconds(10)));
+        assertEquals(1L, store.increment("counter", 1L, Duration.ofSeconds(5)));
+        assertEquals(3L, store.increment("counter", 2L, Duration.ofSeconds(60)));
+
+        // 计数器的存活时间从创建时算起，后续自增不会延长
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertNull(store.get("counter"));
+        assertEquals("node-a", store.get("lock"));
+
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertTrue(store.setIfAbsent("lock", "node-b", Duration.ofSeconds(10)));
+        assertEquals("node-b", store.get("lock"));
+    }
+
+    @Test
+    void evictsDownToCapacityAndDeliversPublishedMessages() {
+        InMemorySharedStateStore store = new InMemorySharedStateStore(10);
+        List<String> received = new ArrayList<>();
+        store.subscribe("channel", received::add);
+
+        for (int i = 0; i < 50; i++) {
+            store.set("key-" + i, "value", Duration.ofMinutes(1));
+        }
+        store.publish("channel", "hello");
+        store.publish("other", "ignored");
+
+        assertTrue(store.size() <= 10);
+        assertEquals(List.of("hello"), received);
+    }
+}
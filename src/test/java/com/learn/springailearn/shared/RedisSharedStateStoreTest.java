@@ -0,0 +1,337 @@
+package com.learn.springailearn.shared;
+
+import com.learn.springailearn.advisor.ChatEndpoints;
+import com.learn.springailearn.advisor.ResponseCacheAdvisor;
+import com.learn.springailearn.advisor.SingleFlightAdvisor;
+import com.learn.springailearn.config.RateLimitProperties;
+import com.learn.springailearn.config.ResponseCacheProperties;
+import com.learn.springailearn.config.ChatRecordArchiveProperties;
+import com.learn.springailearn.config.SharedStateConfig;
+import com.learn.springailearn.config.SharedStateProperties;
+import com.learn.springailearn.limiter.RateLimitExceededException;
+import com.learn.springailearn.limiter.SharedUserRateLimiter;
+import com.learn.springailearn.mapper.ChatRecordArchiveMapper;
+import com.learn.springailearn.mapper.ChatRecordMapper;
+import com.learn.springailearn.service.ChatRecordArchiveService;
+import com.learn.springailearn.support.LocalRespServer;
+import com.learn.springailearn.support.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 以本地RESP服务端代替Redis，验证Redis共享状态存储以及多个节点共用同一存储时的缓存、限流、去重和定时任务互斥
+ */
+class RedisSharedStateStoreTest {
+
+    private LocalRespServer server;
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new LocalRespServer();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        nodes.forEach(Node::close);
+        server.close();
+    }
+
+    @Test
+    void storeOperationsUseRedisCommandsWithPrefixedKeys() throws Exception {
+        RedisSharedStateStore store = node().store;
+
+        store.set("answer", "42", Duration.ofMinutes(1));
+        assertEquals("42", store.get("answer"));
+        assertEquals("42", server.peek("test:answer"));
+
+        assertTrue(store.setIfAbsent("lock", "node-a", Duration.ofMillis(200)));
+        assertFalse(store.setIfAbsent("lock", "node-b", Duration.ofMillis(200)));
+        assertEquals(1L, store.increment("counter", 1L, Duration.ofMillis(200)));
+        assertEquals(0L, store.increment("counter", -1L, Duration.ofMillis(200)));
+
+        Thread.sleep(300);
+        assertNull(store.get("lock"));
+        assertNull(store.get("counter"));
+        store.delete("answer");
+        assertNull(store.get("answer"));
+    }
+
+    @Test
+    void publishedMessagesReachEveryNode() throws Exception {
+        Node first = node();
+        Node second = node();
+        CountDownLatch received = new CountDownLatch(2);
+        List<String> messages = new CopyOnWriteArrayList<>();
+        for (Node node : List.of(first, second)) {
+            node.store.subscribe("events", message -> {
+                messages.add(message);
+                received.countDown();
+            });
+        }
+
+        first.store.publish("events", "user-1");
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("user-1", "user-1"), messages);
+    }
+
+    @Test
+    void userLimitIsEnforcedAcrossNodes() throws Exception {
+        RateLimitProperties.User properties = new RateLimitProperties.User();
+        properties.setCapacity(4);
+        properties.setRefillPerSecond(1);
+        long now = 1_000_000L;
+        SharedUserRateLimiter first = new SharedUserRateLimiter(properties, node().store, () -> now);
+        SharedUserRateLimiter second = new SharedUserRateLimiter(properties, node().store, () -> now);
+
+        for (int i = 0; i < 4; i++) {
+            (i % 2 == 0 ? first : second).acquire("user-1");
+        }
+
+        assertThrows(RateLimitExceededException.class, () -> first.acquire("user-1"));
+        assertThrows(RateLimitExceededException.class, () -> second.acquire("user-1"));
+        second.acquire("user-2");
+    }
+
+    @Test
+    void identicalRequestsOnDifferentNodesShareOneUpstreamCall() throws Exception {
+        BlockingChatModel upstream = new BlockingChatModel();
+        SharedStateProperties properties = new SharedStateProperties();
+        properties.getSingleFlight().setPollInterval(Duration.ofMillis(50));
+        List<ChatClient> clients = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            SingleFlightAdvisor advisor = new SingleFlightAdvisor(true, "qwen-turbo", node().store, properties,
+                    new SimpleMeterRegistry());
+            clients.add(ChatClient.builder(upstream).defaultAdvisors(advisor).build());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ChatClient client = clients.get(i % 2);
+            results.add(executor.submit(() -> client.prompt().user("热门问题").call().content()));
+        }
+        // 等集群级leader进入模型调用，并留出时间让另一个节点开始等待
+        assertTrue(upstream.entered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        upstream.release.countDown();
+        executor.shutdown();
+
+        for (Future<String> result : results) {
+            assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstream.calls.get());
+    }
+
+    @Test
+    void cancelledClusterLeaderLetsWaitingNodesRaceAgain() throws Exception {
+        CancellableChatModel upstream = new CancellableChatModel();
+        SharedStateProperties properties = new SharedStateProperties();
+        properties.getSingleFlight().setPollInterval(Duration.ofMillis(50));
+        List<ChatClient> clients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SingleFlightAdvisor advisor = new SingleFlightAdvisor(true, "qwen-turbo", node().store, properties,
+                    new SimpleMeterRegistry());
+            clients.add(ChatClient.builder(upstream).defaultAdvisors(advisor).build());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Future<String> leader = executor.submit(() -> clients.get(0).prompt().user("热门问题").call().content());
+        assertTrue(upstream.entered.await(5, TimeUnit.SECONDS));
+        List<Future<String>> waiting = new ArrayList<>();
+        for (int i = 1; i < 3; i++) {
+            ChatClient client = clients.get(i);
+            waiting.add(executor.submit(() -> client.prompt().user("热门问题").call().content()));
+        }
+        Thread.sleep(300);
+        // 客户端断开：leader的调用线程被中断
+        leader.cancel(true);
+        executor.shutdown();
+
+        for (Future<String> result : waiting) {
+            assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+        }
+        // 被取消的调用 + 重新竞争后的一次调用，而不是每个等待节点各调用一次
+        assertEquals(2, upstream.calls.get());
+    }
+
+    @Test
+    void responseCachedOnOneNodeIsServedByAnother() throws Exception {
+        StubChatModel upstream = new StubChatModel();
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEndpoints(Set.of(ChatEndpoints.QWEN_GENERATE));
+        List<ChatClient> clients = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ResponseCacheAdvisor advisor = new ResponseCacheAdvisor(properties,
+                    new StaticListableBeanFactory().getBeanProvider(EmbeddingModel.class), node().store,
+                    new SimpleMeterRegistry(), "qwen-turbo");
+            clients.add(ChatClient.builder(upstream).defaultAdvisors(advisor).build());
+        }
+
+        String first = call(clients.get(0), "什么是向量数据库");
+        String second = call(clients.get(1), "什么是向量数据库");
+
+        assertEquals(first, second);
+        assertEquals(1, upstream.getCalls());
+    }
+
+    @Test
+    void scheduledArchiveRunsOnOneNodeOnly() {
+        ChatRecordMapper chatRecordMapper = mock(ChatRecordMapper.class);
+        for (int i = 0; i < 2; i++) {
+            new ChatRecordArchiveService(chatRecordMapper, mock(ChatRecordArchiveMapper.class),
+                    new ChatRecordArchiveProperties(), mock(PlatformTransactionManager.class), node().store,
+                    new SimpleMeterRegistry()).scheduledArchive();
+        }
+
+        // 两个节点按同一cron触发，只有抢到任务锁的节点扫描热表
+        verify(chatRecordMapper, times(1)).selectExpiredArchiveCandidates(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void redisIsAutoConfiguredOnlyInRedisMode() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withUserConfiguration(SharedStateConfig.class)
+                .withBean(SharedStateProperties.class);
+        runner.run(context -> {
+            assertTrue(context.getBeansOfType(RedisConnectionFactory.class).isEmpty());
+            assertFalse(context.getBean(SharedStateStore.class).isShared());
+        });
+        runner.withPropertyValues("app.shared-state.type=redis", "spring.data.redis.host=" + server.getHost(),
+                        "spring.data.redis.port=" + server.getPort())
+                .run(context -> {
+                    assertEquals(1, context.getBeansOfType(RedisConnectionFactory.class).size());
+                    assertTrue(context.getBean(SharedStateStore.class).isShared());
+                });
+    }
+
+    private String call(ChatClient chatClient, String userPrompt) {
+        return chatClient.prompt()
+                .user(userPrompt)
+                .advisors(a -> a.param(ChatEndpoints.CONTEXT_KEY, ChatEndpoints.QWEN_GENERATE))
+                .call()
+                .content();
+    }
+
+    private Node node() {
+        Node node = new Node(server.getHost(), server.getPort());
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * 一个应用节点持有的Redis客户端
+     */
+    private static final class Node {
+
+        private final LettuceConnectionFactory connectionFactory;
+        private final RedisMessageListenerContainer listenerContainer;
+        private final RedisSharedStateStore store;
+
+        Node(String host, int port) {
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+            store = new RedisSharedStateStore(new StringRedisTemplate(connectionFactory), listenerContainer, "test:");
+        }
+
+        void close() {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                // 忽略
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    private static final class BlockingChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))));
+        }
+    }
+
+    /**
+     * 第一次调用阻塞到调用线程被中断（与阻塞在HTTP读上的真实调用一样以异常结束），之后的调用稍有延迟后正常返回
+     */
+    private static final class CancellableChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            int call = calls.incrementAndGet();
+            try {
+                if (call == 1) {
+                    entered.countDown();
+                    new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+                } else {
+                    Thread.sleep(200);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("模型调用被中断", e);
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))));
+        }
+    }
+}
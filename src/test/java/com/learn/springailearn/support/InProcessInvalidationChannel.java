@@ -0,0 +1,26 @@
+package com.learn.springailearn.support;
+
+import com.learn.springailearn.cache.HistoryInvalidationChannel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的失效通知通道，模拟多节点共享的消息总线
+ * 同一个实例交给多个缓存使用即相当于多个节点订阅同一个频道
+ */
+public class InProcessInvalidationChannel implements HistoryInvalidationChannel {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String userId) {
+        listeners.forEach(listener -> listener.accept(userId));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
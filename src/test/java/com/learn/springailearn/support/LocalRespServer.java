@@ -0,0 +1,342 @@
+package com.learn.springailearn.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 测试用的本地RESP2服务端，代替真实Redis验证共享状态存储与多节点行为
+ * 只实现共享状态用到的命令（GET/SET NX PX/INCRBY/PEXPIRE/DEL/PUBLISH/SUBSCRIBE等），数据保存在内存中，
+ * 命令串行执行以保证与Redis相同的单命令原子性；不支持HELLO，客户端会退回RESP2
+ */
+public class LocalRespServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> data = new HashMap<>();
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+
+    public LocalRespServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "local-resp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 直接读取键的值（不经过客户端），键不存在或已过期时返回null
+     */
+    public synchronized String peek(String key) {
+        Entry entry = live(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread thread = new Thread(connection::serve, "local-resp-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private synchronized Object execute(Connection connection, List<String> command) {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        return switch (name) {
+            case "PING" -> new Status("PONG");
+            case "SELECT", "AUTH", "CLIENT" -> new Status("OK");
+            case "GET" -> peek(command.get(1));
+            case "SET" -> set(command);
+            case "SETEX" -> put(command.get(1), command.get(3), Long.parseLong(command.get(2)) * 1000L);
+            case "PSETEX" -> put(command.get(1), command.get(3), Long.parseLong(command.get(2)));
+            case "INCR" -> increment(command.get(1), 1L);
+            case "DECR" -> increment(command.get(1), -1L);
+            case "INCRBY" -> increment(command.get(1), Long.parseLong(command.get(2)));
+            case "DECRBY" -> increment(command.get(1), -Long.parseLong(command.get(2)));
+            case "EXPIRE" -> expire(command.get(1), Long.parseLong(command.get(2)) * 1000L);
+            case "PEXPIRE" -> expire(command.get(1), Long.parseLong(command.get(2)));
+            case "PTTL" -> pttl(command.get(1));
+            case "DEL", "UNLINK" -> delete(command.subList(1, command.size()));
+            case "EXISTS" -> (long) command.subList(1, command.size()).stream().filter(key -> live(key) != null).count();
+            case "PUBLISH" -> publish(command.get(1), command.get(2));
+            case "SUBSCRIBE" -> subscribe(connection, command.subList(1, command.size()));
+            case "UNSUBSCRIBE" -> unsubscribe(connection, command.subList(1, command.size()));
+            default -> new ErrorReply("ERR unknown command '" + command.get(0) + "'");
+        };
+    }
+
+    private Object set(List<String> command) {
+        boolean nx = false;
+        boolean xx = false;
+        long ttlMillis = -1L;
+        for (int i = 3; i < command.size(); i++) {
+            switch (command.get(i).toUpperCase(Locale.ROOT)) {
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "EX" -> ttlMillis = Long.parseLong(command.get(++i)) * 1000L;
+                case "PX" -> ttlMillis = Long.parseLong(command.get(++i));
+                default -> {
+                    return new ErrorReply("ERR syntax error");
+                }
+            }
+        }
+        boolean exists = live(command.get(1)) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            return null;
+        }
+        return put(command.get(1), command.get(2), ttlMillis);
+    }
+
+    private Status put(String key, String value, long ttlMillis) {
+        data.put(key, new Entry(value, ttlMillis < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis));
+        return new Status("OK");
+    }
+
+    private Object increment(String key, long delta) {
+        Entry entry = live(key);
+        long current;
+        try {
+            current = entry == null ? 0L : Long.parseLong(entry.value);
+        } catch (NumberFormatException e) {
+            return new ErrorReply("ERR value is not an integer or out of range");
+        }
+        long value = current + delta;
+        data.put(key, new Entry(Long.toString(value), entry == null ? Long.MAX_VALUE : entry.expireAtMillis));
+        return value;
+    }
+
+    private long expire(String key, long ttlMillis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return 0L;
+        }
+        data.put(key, new Entry(entry.value, System.currentTimeMillis() + ttlMillis));
+        return 1L;
+    }
+
+    private long pttl(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return -2L;
+        }
+        return entry.expireAtMillis == Long.MAX_VALUE ? -1L : Math.max(0L, entry.expireAtMillis - System.currentTimeMillis());
+    }
+
+    private long delete(List<String> keys) {
+        long deleted = 0;
+        for (String key : keys) {
+            if (live(key) != null) {
+                deleted++;
+            }
+            data.remove(key);
+        }
+        return deleted;
+    }
+
+    private long publish(String channel, String message) {
+        Set<Connection> receivers = subscribers.getOrDefault(channel, Set.of());
+        for (Connection receiver : receivers) {
+            receiver.write(List.of("message", channel, message));
+        }
+        return receivers.size();
+    }
+
+    private Object subscribe(Connection connection, List<String> channels) {
+        for (String channel : channels) {
+            subscribers.computeIfAbsent(channel, k -> new CopyOnWriteArraySet<>()).add(connection);
+            connection.channels.add(channel);
+            connection.write(List.of("subscribe", channel, (long) connection.channels.size()));
+        }
+        return NO_REPLY;
+    }
+
+    private Object unsubscribe(Connection connection, List<String> channels) {
+        List<String> targets = channels.isEmpty() ? new ArrayList<>(connection.channels) : channels;
+        if (targets.isEmpty()) {
+            connection.write(Arrays.asList("unsubscribe", null, 0L));
+        }
+        for (String channel : targets) {
+            subscribers.getOrDefault(channel, Set.of()).remove(connection);
+            connection.channels.remove(channel);
+            connection.write(List.of("unsubscribe", channel, (long) connection.channels.size()));
+        }
+        return NO_REPLY;
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAtMillis <= System.currentTimeMillis()) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static final Object NO_REPLY = new Object();
+
+    private record Entry(String value, long expireAtMillis) {
+    }
+
+    private record Status(String text) {
+    }
+
+    private record ErrorReply(String text) {
+    }
+
+    private final class Connection {
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final Set<String> channels = new CopyOnWriteArraySet<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void serve() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (true) {
+                    List<String> command = readCommand(in);
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    if ("QUIT".equalsIgnoreCase(command.get(0))) {
+                        write(new Status("OK"));
+                        return;
+                    }
+                    Object reply = execute(this, command);
+                    if (reply != NO_REPLY) {
+                        write(reply);
+                    }
+                }
+            } catch (IOException e) {
+                // 客户端断开
+            } finally {
+                subscribers.values().forEach(set -> set.remove(this));
+                connections.remove(this);
+                close();
+            }
+        }
+
+        synchronized void write(Object reply) {
+            try {
+                encode(reply);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+
+        private void encode(Object reply) throws IOException {
+            if (reply == null) {
+                out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            } else if (reply instanceof Status status) {
+                out.write(("+" + status.text() + "\r\n").getBytes(StandardCharsets.UTF_8));
+            } else if (reply instanceof ErrorReply error) {
+                out.write(("-" + error.text() + "\r\n").getBytes(StandardCharsets.UTF_8));
+            } else if (reply instanceof Long number) {
+                out.write((":" + number + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            } else if (reply instanceof String text) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(bytes);
+                out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            } else if (reply instanceof List<?> items) {
+                out.write(("*" + items.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (Object item : items) {
+                    encode(item);
+                }
+            } else {
+                throw new IllegalStateException("不支持的回复类型：" + reply);
+            }
+        }
+
+        /**
+         * 读取一条命令：RESP数组形式，或以空格分隔的内联命令
+         */
+        private List<String> readCommand(InputStream in) throws IOException {
+            String line = readLine(in);
+            if (!line.startsWith("*")) {
+                return line.isBlank() ? List.of() : List.of(line.trim().split("\\s+"));
+            }
+            int count = Integer.parseInt(line.substring(1));
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String header = readLine(in);
+                int length = Integer.parseInt(header.substring(1));
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length) {
+                    throw new EOFException();
+                }
+                readLine(in);
+                command.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return command;
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int previous = -1;
+            while (true) {
+                int current = in.read();
+                if (current < 0) {
+                    throw new EOFException();
+                }
+                if (previous == '\r' && current == '\n') {
+                    byte[] bytes = line.toByteArray();
+                    return new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8);
+                }
+                line.write(current);
+                previous = current;
+            }
+        }
+    }
+}
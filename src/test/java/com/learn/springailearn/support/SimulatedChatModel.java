@@ -0,0 +1,234 @@
+package com.learn.springailearn.support;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 模拟DashScope的本地模型，用于离线压测
+ * 每次调用按第几次调用和随机种子确定延迟与结果（同样的配置和调用次数得到同样的延迟/错误分布），
+ * 支持首包延迟分布、逐token流式输出，以及按比例注入429、5xx和读超时；
+ * 异常形式与Spring AI访问DashScope时一致（4xx为NonTransientAiException，5xx为TransientAiException，
+ * 读超时为包装SocketTimeoutException的ResourceAccessException），便于真实走到重试、熔断和限流逻辑
+ */
+public class SimulatedChatModel implements ChatModel {
+
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    private static final String[] WORDS = {"Spring", "AI", "接入", "通义千问", "时", "建议", "先", "配置",
+            "api-key", "，", "再", "注入", "ChatClient", "并", "开启", "重试", "。"};
+
+    private final Settings settings;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Outcome, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public SimulatedChatModel(Settings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Plan plan = plan();
+        sleep(plan.outcome() == Outcome.TIMEOUT ? settings.timeout() : Duration.ofMillis(plan.latencyMs()));
+        if (plan.outcome() != Outcome.OK) {
+            throw error(plan.outcome());
+        }
+        return response(String.join("", plan.tokens()), prompt, plan.tokens().size());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            Plan plan = plan();
+            if (plan.outcome() != Outcome.OK) {
+                Duration delay = plan.outcome() == Outcome.TIMEOUT ? settings.timeout() : Duration.ofMillis(plan.latencyMs());
+                return Flux.<ChatResponse>error(error(plan.outcome())).delaySubscription(delay);
+            }
+            List<String> tokens = plan.tokens();
+            // 首个token在首包延迟后到达，其后按token间隔逐个输出，最后一个片段携带用量
+            Flux<ChatResponse> chunks = Flux.range(0, tokens.size()).concatMap(i -> {
+                ChatResponse chunk = i == tokens.size() - 1
+                        ? response(tokens.get(i), prompt, tokens.size())
+                        : response(tokens.get(i), null, 0);
+                return i == 0 || settings.tokenDelay().isZero()
+                        ? Mono.just(chunk)
+                        : Mono.delay(settings.tokenDelay()).thenReturn(chunk);
+            });
+            return chunks.delaySubscription(Duration.ofMillis(plan.latencyMs()));
+        });
+    }
+
+    /**
+     * 已发生的调用次数
+     */
+    public long getCalls() {
+        return sequence.get();
+    }
+
+    /**
+     * 各类结果的发生次数
+     */
+    public long count(Outcome outcome) {
+        LongAdder adder = outcomes.get(outcome);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private Plan plan() {
+        long index = sequence.getAndIncrement();
+        SplittableRandom random = new SplittableRandom(settings.seed() + index * SEED_MIX);
+        double draw = random.nextDouble();
+        Outcome outcome;
+        if (draw < settings.tooManyRequestsRate()) {
+            outcome = Outcome.TOO_MANY_REQUESTS;
+        } else if (draw < settings.tooManyRequestsRate() + settings.serverErrorRate()) {
+            outcome = Outcome.SERVER_ERROR;
+        } else if (draw < settings.tooManyRequestsRate() + settings.serverErrorRate() + settings.timeoutRate()) {
+            outcome = Outcome.TIMEOUT;
+        } else {
+            outcome = Outcome.OK;
+        }
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        long latencyMs = Math.max(0, settings.latency().sampleMillis(random));
+        List<String> tokens = new ArrayList<>(settings.completionTokens());
+        for (int i = 0; i < settings.completionTokens(); i++) {
+            tokens.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return new Plan(outcome, latencyMs, tokens);
+    }
+
+    private static RuntimeException error(Outcome outcome) {
+        return switch (outcome) {
+            case TOO_MANY_REQUESTS -> new NonTransientAiException(
+                    "429 - {\"code\":\"Throttling.RateQuota\",\"message\":\"Requests rate limit exceeded, please try again later.\"}");
+            case SERVER_ERROR -> new TransientAiException(
+                    "503 - {\"code\":\"ServiceUnavailable\",\"message\":\"The service is temporarily unavailable.\"}");
+            case TIMEOUT -> new ResourceAccessException("I/O error on POST request for \"simulated-dashscope\": Read timed out",
+                    new SocketTimeoutException("Read timed out"));
+            case OK -> throw new IllegalStateException("正常结果不需要异常");
+        };
+    }
+
+    private static ChatResponse response(String text, Prompt prompt, int completionTokens) {
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().model("simulated");
+        if (prompt != null) {
+            String userText = prompt.getUserMessage().getText();
+            int promptTokens = userText == null ? 0 : (userText.length() + 3) / 4;
+            metadata.usage(new DefaultUsage(promptTokens, completionTokens));
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata.build());
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            // 与阻塞在HTTP读上的真实调用一样响应取消（如对冲请求的输家）
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("I/O error on POST request for \"simulated-dashscope\": interrupted");
+        }
+    }
+
+    /**
+     * 单次调用的结果类型
+     */
+    public enum Outcome {
+        OK, TOO_MANY_REQUESTS, SERVER_ERROR, TIMEOUT
+    }
+
+    private record Plan(Outcome outcome, long latencyMs, List<String> tokens) {
+    }
+
+    /**
+     * 首包延迟分布
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        long sampleMillis(SplittableRandom random);
+
+        static LatencyDistribution fixed(long millis) {
+            return random -> millis;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            if (maxMillis < minMillis) {
+                throw new IllegalArgumentException("延迟上限不能小于下限");
+            }
+            return random -> minMillis + random.nextLong(maxMillis - minMillis + 1);
+        }
+
+        /**
+         * 对数正态分布：给定中位数和P99，长尾形态接近真实的模型首包延迟
+         */
+        static LatencyDistribution logNormal(long medianMillis, long p99Millis) {
+            if (medianMillis <= 0 || p99Millis < medianMillis) {
+                throw new IllegalArgumentException("对数正态分布要求 0 < 中位数 <= P99");
+            }
+            // P99对应标准正态分布的2.326倍标准差
+            double sigma = Math.log((double) p99Millis / medianMillis) / 2.326;
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+
+        /**
+         * 解析形如 fixed:200、uniform:100-400、lognormal:300,1500 的配置
+         */
+        static LatencyDistribution parse(String spec) {
+            String[] parts = spec.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("无法解析的延迟分布：" + spec);
+            }
+            String[] args = parts[1].split("[-,]");
+            return switch (parts[0].toLowerCase()) {
+                case "fixed" -> fixed(Long.parseLong(args[0].trim()));
+                case "uniform" -> uniform(Long.parseLong(args[0].trim()), Long.parseLong(args[1].trim()));
+                case "lognormal" -> logNormal(Long.parseLong(args[0].trim()), Long.parseLong(args[1].trim()));
+                default -> throw new IllegalArgumentException("未知的延迟分布类型：" + parts[0]);
+            };
+        }
+    }
+
+    /**
+     * 模拟参数
+     * @param latency 首包延迟分布
+     * @param tokenDelay 流式输出的token间隔
+     * @param completionTokens 每次回答的token数
+     * @param tooManyRequestsRate 429的注入比例
+     * @param serverErrorRate 5xx的注入比例
+     * @param timeoutRate 读超时的注入比例
+     * @param timeout 注入读超时前的阻塞时长
+     * @param seed 随机种子
+     */
+    public record Settings(LatencyDistribution latency, Duration tokenDelay, int completionTokens,
+                           double tooManyRequestsRate, double serverErrorRate, double timeoutRate,
+                           Duration timeout, long seed) {
+
+        public Settings {
+            if (tooManyRequestsRate < 0 || serverErrorRate < 0 || timeoutRate < 0
+                    || tooManyRequestsRate + serverErrorRate + timeoutRate > 1) {
+                throw new IllegalArgumentException("错误注入比例必须在0到1之间且总和不超过1");
+            }
+            if (completionTokens <= 0) {
+                throw new IllegalArgumentException("回答token数必须大于0");
+            }
+        }
+    }
+}
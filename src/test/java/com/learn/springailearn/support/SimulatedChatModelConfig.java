@@ -0,0 +1,36 @@
+package com.learn.springailearn.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * 用模拟DashScope模型替换真实模型，参数通过simulated-model.*属性（或同名系统属性）调整：
+ * latency（fixed:200 / uniform:100-400 / lognormal:300,1500）、token-delay-ms、completion-tokens、
+ * error-rate.too-many-requests、error-rate.server-error、error-rate.timeout、timeout-ms、seed
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SimulatedChatModelConfig {
+
+    @Bean
+    @Primary
+    public SimulatedChatModel simulatedChatModel(Environment environment) {
+        return new SimulatedChatModel(settings(environment));
+    }
+
+    static SimulatedChatModel.Settings settings(Environment environment) {
+        return new SimulatedChatModel.Settings(
+                SimulatedChatModel.LatencyDistribution.parse(
+                        environment.getProperty("simulated-model.latency", "lognormal:300,1500")),
+                Duration.ofMillis(environment.getProperty("simulated-model.token-delay-ms", Long.class, 20L)),
+                environment.getProperty("simulated-model.completion-tokens", Integer.class, 64),
+                environment.getProperty("simulated-model.error-rate.too-many-requests", Double.class, 0.0),
+                environment.getProperty("simulated-model.error-rate.server-error", Double.class, 0.0),
+                environment.getProperty("simulated-model.error-rate.timeout", Double.class, 0.0),
+                Duration.ofMillis(environment.getProperty("simulated-model.timeout-ms", Long.class, 3000L)),
+                environment.getProperty("simulated-model.seed", Long.class, 42L));
+    }
+}
@@ -0,0 +1,42 @@
+package com.learn.springailearn.support;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的本地桩模型，回显用户消息并统计调用次数
+ */
+public class StubChatModel implements ChatModel {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        return response("echo: " + prompt.getUserMessage().getText());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        calls.incrementAndGet();
+        String text = "echo: " + prompt.getUserMessage().getText();
+        return Flux.fromArray(text.split("(?<= )")).map(this::response);
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    private ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().model("stub").build());
+    }
+}
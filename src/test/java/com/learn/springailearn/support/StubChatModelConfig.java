@@ -0,0 +1,19 @@
+package com.learn.springailearn.support;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 用本地桩模型替换DashScope模型，使完整的ChatClient + Advisor链路可以离线运行
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StubChatModelConfig {
+
+    @Bean
+    @Primary
+    public StubChatModel stubChatModel() {
+        return new StubChatModel();
+    }
+}
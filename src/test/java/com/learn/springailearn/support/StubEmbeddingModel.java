@@ -0,0 +1,41 @@
+package com.learn.springailearn.support;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用的本地桩向量模型：按字符哈希分桶计数，字面相近的文本向量相近
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    private static final int DIMENSIONS = 64;
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> inputs = request.getInstructions();
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(vector(inputs.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+
+    private float[] vector(String text) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < text.length(); i++) {
+            vector[Math.floorMod(text.charAt(i), DIMENSIONS)] += 1F;
+        }
+        return vector;
+    }
+}
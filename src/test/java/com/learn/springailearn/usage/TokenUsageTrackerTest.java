@@ -0,0 +1,166 @@
+package com.learn.springailearn.usage;
+
+import com.learn.springailearn.config.TokenUsageProperties;
+import com.learn.springailearn.domain.ChatUsageDaily;
+import com.learn.springailearn.limiter.TokenQuotaExceededException;
+import com.learn.springailearn.mapper.ChatUsageDailyMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenUsageTrackerTest {
+
+    /**
+     * 用内存Map模拟汇总表的增量upsert和查询
+     */
+    private final Map<String, long[]> table = new ConcurrentHashMap<>();
+    private final ChatUsageDailyMapper mapper = mock(ChatUsageDailyMapper.class);
+    private final TokenUsageProperties properties = new TokenUsageProperties();
+
+    TokenUsageTrackerTest() {
+        doAnswer(invocation -> {
+            List<ChatUsageDaily> deltas = invocation.getArgument(0);
+            for (ChatUsageDaily delta : deltas) {
+                long[] row = table.computeIfAbsent(delta.getUserId(), key -> new long[3]);
+                row[0] += delta.getPromptTokens();
+                row[1] += delta.getCompletionTokens();
+                row[2] += delta.getRequestCount();
+            }
+            return deltas.size();
+        }).when(mapper).upsertIncrementBatch(anyList());
+        when(mapper.selectByDateAndUserIds(any(), any()))
+                .thenAnswer(invocation -> rows(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    private List<ChatUsageDaily> rows(LocalDate date, Collection<String> userIds) {
+        List<ChatUsageDaily> rows = new ArrayList<>();
+        for (String userId : userIds) {
+            long[] row = table.get(userId);
+            if (row != null) {
+                ChatUsageDaily usage = new ChatUsageDaily();
+                usage.setUserId(userId);
+                usage.setUsageDate(date);
+                usage.setPromptTokens(row[0]);
+                usage.setCompletionTokens(row[1]);
+                usage.setRequestCount(row[2]);
+                rows.add(usage);
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void concurrentRecordsAreMergedIntoOneIncrementPerUser() throws Exception {
+        TokenUsageTracker tracker = new TokenUsageTracker(mapper, properties, new SimpleMeterRegistry());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            String userId = "user-" + (i % 2);
+            executor.execute(() -> tracker.record(userId, 10, 5));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        verify(mapper, never()).upsertIncrementBatch(anyList());
+
+        tracker.flush();
+
+        assertEquals(5000, table.get("user-0")[0]);
+        assertEquals(2500, table.get("user-0")[1]);
+        assertEquals(500, table.get("user-1")[2]);
+        assertEquals(7500, tracker.usedTokens("user-1"));
+        // 没有新增量时不再写入
+        tracker.flush();
+        verify(mapper).upsertIncrementBatch(anyList());
+    }
+
+    @Test
+    void quotaCountsPersistedAndPendingUsage() {
+        table.put("user-1", new long[]{600, 300, 3});
+        properties.getQuota().setEnabled(true);
+        properties.getQuota().setDailyTokens(1000);
+        properties.getQuota().getUserDailyTokens().put("vip", 0L);
+        TokenUsageTracker tracker = new TokenUsageTracker(mapper, properties, new SimpleMeterRegistry());
+
+        assertDoesNotThrow(() -> tracker.checkQuota("user-1"));
+        tracker.record("user-1", 60, 40);
+        TokenQuotaExceededException e = assertThrows(TokenQuotaExceededException.class,
+                () -> tracker.checkQuota("user-1"));
+        assertTrue(e.getRetryAfterSeconds() > 0);
+
+        tracker.record("vip", 100_000, 100_000);
+        assertDoesNotThrow(() -> tracker.checkQuota("vip"));
+    }
+
+    @Test
+    void recordNeverQueriesAndConcurrentFirstChecksLoadOnce() throws Exception {
+        table.put("user-1", new long[]{600, 300, 3});
+        TokenUsageTracker tracker = new TokenUsageTracker(mapper, properties, new SimpleMeterRegistry());
+        tracker.record("user-1", 10, 5);
+        tracker.checkQuota("user-1");
+        verify(mapper, never()).selectByDateAndUserIds(any(), any());
+
+        properties.getQuota().setEnabled(true);
+        properties.getQuota().setDailyTokens(10_000);
+        // 汇总表查询较慢，并发的首次检查都会在加载完成前到达
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return rows(invocation.getArgument(0), invocation.getArgument(1));
+        }).when(mapper).selectByDateAndUserIds(any(), any());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> checks = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            checks.add(executor.submit(() -> tracker.checkQuota("user-1")));
+        }
+        for (Future<?> check : checks) {
+            check.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        verify(mapper, times(1)).selectByDateAndUserIds(any(), any());
+        assertEquals(915, tracker.usedTokens("user-1"));
+    }
+
+    @Test
+    void failedFlushKeepsIncrementsForTheNextRun() {
+        TokenUsageTracker tracker = new TokenUsageTracker(mapper, properties, new SimpleMeterRegistry());
+        tracker.record("user-1", 100, 50);
+        doThrow(new IllegalStateException("数据库不可用")).when(mapper).upsertIncrementBatch(anyList());
+        tracker.flush();
+        assertEquals(150, tracker.usedTokens("user-1"));
+
+        doAnswer(invocation -> {
+            List<ChatUsageDaily> deltas = invocation.getArgument(0);
+            deltas.forEach(delta -> table.put(delta.getUserId(),
+                    new long[]{delta.getPromptTokens(), delta.getCompletionTokens(), delta.getRequestCount()}));
+            return deltas.size();
+        }).when(mapper).upsertIncrementBatch(anyList());
+        tracker.flush();
+
+        assertEquals(100, table.get("user-1")[0]);
+        assertEquals(1, table.get("user-1")[2]);
+        assertEquals(150, tracker.usedTokens("user-1"));
+    }
+}
@@ -0,0 +1,45 @@
+-- 与 template/init.sql 中的表结构保持一致（去掉H2不支持的COMMENT/ENGINE等MySQL方言）
+CREATE TABLE IF NOT EXISTS chat_record (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id VARCHAR(64) NOT NULL,
+    session_id VARCHAR(64) NOT NULL DEFAULT '',
+    user_prompt TEXT NOT NULL,
+    ai_response TEXT NOT NULL,
+    model VARCHAR(32) NOT NULL,
+    prompt_tokens INT NOT NULL DEFAULT 0,
+    completion_tokens INT NOT NULL DEFAULT 0,
+    latency_ms INT NOT NULL DEFAULT 0,
+    search_terms CLOB,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    is_deleted TINYINT DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_user_deleted_time_id ON chat_record (user_id, is_deleted, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_user_session_deleted_time_id ON chat_record (user_id, session_id, is_deleted, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_create_time ON chat_record (create_time);
+CREATE INDEX IF NOT EXISTS idx_deleted_id ON chat_record (is_deleted, id);
+CREATE TABLE IF NOT EXISTS chat_record_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    user_id VARCHAR(64) NOT NULL,
+    session_id VARCHAR(64) NOT NULL DEFAULT '',
+    prompt_preview VARCHAR(255) NOT NULL DEFAULT '',
+    user_prompt_gz BLOB NOT NULL,
+    ai_response_gz BLOB NOT NULL,
+    model VARCHAR(32) NOT NULL,
+    prompt_tokens INT NOT NULL DEFAULT 0,
+    completion_tokens INT NOT NULL DEFAULT 0,
+    latency_ms INT NOT NULL DEFAULT 0,
+    create_time DATETIME NOT NULL,
+    archive_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    is_deleted TINYINT DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_archive_user_deleted_time_id ON chat_record_archive (user_id, is_deleted, create_time, id);
+CREATE TABLE IF NOT EXISTS chat_usage_daily (
+    user_id VARCHAR(64) NOT NULL,
+    usage_date DATE NOT NULL,
+    prompt_tokens BIGINT NOT NULL DEFAULT 0,
+    completion_tokens BIGINT NOT NULL DEFAULT 0,
+    request_count BIGINT NOT NULL DEFAULT 0,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, usage_date)
+);